@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.archiver.zip.ZipArchiver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the two ways {@code JLinkMojo.createZipArchiveFromImage} creates the zip file of an image: the
+ * {@link ImageZipArchiver}, and the {@link ZipArchiver} of plexus-archiver if no archiver option is configured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArchiveBenchmark {
+    @Param({"100", "5000"})
+    int fileCount;
+
+    @Param({"1024", "65536"})
+    int fileSize;
+
+    private ImageTree imageTree;
+
+    private File zipFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path directory = BenchmarkFixtures.createDirectory("image-" + fileCount + "-" + fileSize);
+        Path image = directory.resolve("image");
+        BenchmarkFixtures.createImageTree(image, fileCount, fileSize);
+        imageTree = ImageTree.scan(image.toFile());
+        zipFile = directory.resolve("image.zip").toFile();
+    }
+
+    @Benchmark
+    public File imageZipArchiver() throws IOException {
+        ImageZipArchiver archiver = new ImageZipArchiver(Runtime.getRuntime().availableProcessors());
+        archiver.createArchive(imageTree, zipFile);
+        return zipFile;
+    }
+
+    @Benchmark
+    public File plexusZipArchiver() throws IOException {
+        ZipArchiver archiver = new ZipArchiver();
+        archiver.addDirectory(imageTree.getDirectory(), "");
+        archiver.setDestFile(zipFile);
+        archiver.setForced(true);
+        archiver.createArchive();
+        return zipFile;
+    }
+}
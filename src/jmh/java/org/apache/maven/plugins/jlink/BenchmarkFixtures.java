@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.toolchain.Toolchain;
+
+/**
+ * Synthetic images and other fixtures for the benchmarks, created in the build directory. The modules are
+ * generated by {@link SyntheticModules}.
+ */
+final class BenchmarkFixtures {
+    private BenchmarkFixtures() {}
+
+    /**
+     * @param name the name of the directory
+     * @return a new, empty directory in the build directory
+     */
+    static Path createDirectory(String name) throws IOException {
+        Path directory = new File("target/jmh-fixtures", name).getAbsoluteFile().toPath();
+        deleteRecursively(directory);
+        return Files.createDirectories(directory);
+    }
+
+    /**
+     * Creates the tree of an image with files of random content, which compress like class files and resources.
+     *
+     * @param directory the directory of the image
+     * @param fileCount the number of files
+     * @param fileSize the size of each file in bytes
+     */
+    static void createImageTree(Path directory, int fileCount, int fileSize) throws IOException {
+        Random random = new Random(fileCount * 31L + fileSize);
+        byte[] content = new byte[fileSize];
+        for (int i = 0; i < fileCount; i++) {
+            Path file = directory.resolve("lib/dir" + (i % 50) + "/file" + i + ".bin");
+            Files.createDirectories(file.getParent());
+            // half random, half zeros
+            random.nextBytes(content);
+            Arrays.fill(content, fileSize / 2, fileSize, (byte) 0);
+            Files.write(file, content);
+        }
+    }
+
+    /**
+     * @return a toolchain of the running JDK, to fork its jlink
+     */
+    static Toolchain runningJdkToolchain() {
+        String javaHome = System.getProperty("java.home");
+        return new Toolchain() {
+            @Override
+            public String getType() {
+                return "jdk";
+            }
+
+            @Override
+            public String findTool(String toolName) {
+                return new File(javaHome, "bin/" + toolName).getPath();
+            }
+        };
+    }
+
+    /**
+     * Sets a field of the mojo, the way Maven injects the parameters.
+     */
+    static void setField(Object mojo, String name, Object value) throws ReflectiveOperationException {
+        Class<?> type = mojo.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(mojo, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+}
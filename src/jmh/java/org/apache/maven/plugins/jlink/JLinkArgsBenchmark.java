@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link JLinkMojo#createJlinkArgs(java.util.Collection, java.util.Collection)} with long module paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JLinkArgsBenchmark {
+    @Param({"100", "1000", "5000"})
+    int moduleCount;
+
+    private JLinkMojo mojo;
+
+    private List<String> pathsOfModules;
+
+    private List<String> modulesToAdd;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        mojo = new JLinkMojo(null, null, null, null, null);
+        BenchmarkFixtures.setField(mojo, "stripDebug", true);
+        BenchmarkFixtures.setField(mojo, "noHeaderFiles", true);
+        pathsOfModules = new ArrayList<>();
+        modulesToAdd = new ArrayList<>();
+        for (int i = 0; i < moduleCount; i++) {
+            pathsOfModules.add("/home/user/.m2/repository/org/example/module" + i + "/1.0/module" + i + "-1.0.jar");
+            modulesToAdd.add("org.example.module" + i);
+        }
+    }
+
+    @Benchmark
+    public List<String> createJlinkArgs() throws MojoExecutionException {
+        return mojo.createJlinkArgs(pathsOfModules, modulesToAdd);
+    }
+}
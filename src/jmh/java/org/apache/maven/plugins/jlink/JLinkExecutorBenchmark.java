@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures linking {@code java.base} with the in-process {@link JLinkExecutor} against running jlink of a toolchain,
+ * all with the running JDK. The toolchain jlink is forked with an {@code @argfile} or runs in a {@link JLinkWorker},
+ * forking it through {@code /bin/sh -c} fails, as the shell receives the quoted command line as a single word.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JLinkExecutorBenchmark {
+    @Param({"in-process", "fork-argfile", "worker"})
+    String executor;
+
+    private JLinkExecutor jLinkExecutor;
+
+    private Path directory;
+
+    private Path output;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = BenchmarkFixtures.createDirectory("jlink-" + executor);
+        if ("in-process".equals(executor)) {
+            jLinkExecutor = new JLinkExecutor(null, new SystemStreamLog());
+        } else {
+            jLinkExecutor = new JLinkExecutor(BenchmarkFixtures.runningJdkToolchain(), new SystemStreamLog());
+            jLinkExecutor.setArgFileDirectory(directory.toFile());
+            jLinkExecutor.setUseWorker("worker".equals(executor));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteImage() throws IOException {
+        output = directory.resolve("image");
+        BenchmarkFixtures.deleteRecursively(output);
+    }
+
+    @Benchmark
+    public int link() throws MojoExecutionException {
+        return jLinkExecutor.executeJlink(
+                List.of("--add-modules", "java.base", "--strip-debug", "--output", output.toString()));
+    }
+}
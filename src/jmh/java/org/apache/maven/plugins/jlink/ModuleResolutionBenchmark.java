@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.languages.java.jpms.LocationManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures {@link JLinkMojo#getModulePathElements()} over {@link SyntheticModules}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModuleResolutionBenchmark {
+    @Param({"10", "100", "1000"})
+    int moduleCount;
+
+    private JLinkMojo mojo;
+
+    @Setup
+    public void setUp() throws IOException, ReflectiveOperationException {
+        File directory = BenchmarkFixtures.createDirectory("modules-" + moduleCount).toFile();
+        List<File> jars = new SyntheticModules(moduleCount).create(directory.toPath());
+
+        Set<Artifact> artifacts = new LinkedHashSet<>();
+        for (File jar : jars) {
+            Artifact artifact = mock(Artifact.class);
+            when(artifact.getFile()).thenReturn(jar);
+            artifacts.add(artifact);
+        }
+        MavenProject project = mock(MavenProject.class);
+        when(project.getArtifacts()).thenReturn(artifacts);
+
+        mojo = new JLinkMojo(null, null, null, new LocationManager(), null);
+        BenchmarkFixtures.setField(mojo, "project", project);
+        BenchmarkFixtures.setField(mojo, "outputDirectory", new File(directory, "no-classes"));
+    }
+
+    @Benchmark
+    public Map<String, File> getModulePathElements() throws MojoFailureException {
+        return mojo.getModulePathElements();
+    }
+}
@@ -66,11 +66,11 @@ abstract class AbstractJLinkExecutor {
 
     public abstract int executeJlink(List<String> jlinkArgs) throws MojoExecutionException;
 
-    public void addAllModules(Collection<String> modulesToAdd) {
+    public synchronized void addAllModules(Collection<String> modulesToAdd) {
         this.modulesToAdd.addAll(modulesToAdd);
     }
 
-    public void addAllModulePaths(Collection<String> pathsOfModules) {
+    public synchronized void addAllModulePaths(Collection<String> pathsOfModules) {
         this.modulePaths.addAll(pathsOfModules);
     }
 }
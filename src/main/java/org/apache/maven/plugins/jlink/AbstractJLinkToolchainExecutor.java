@@ -38,9 +38,18 @@ package org.apache.maven.plugins.jlink;
  */
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -53,11 +62,31 @@ import org.apache.maven.toolchain.Toolchain;
 abstract class AbstractJLinkToolchainExecutor extends AbstractJLinkExecutor {
     private final Toolchain toolchain;
 
+    private JLinkWorkerPool workerPool;
+
+    private File argFileDirectory;
+
     AbstractJLinkToolchainExecutor(Toolchain toolchain, Log log) {
         super(log);
         this.toolchain = toolchain;
     }
 
+    /**
+     * @param workerPool the pool of the long-lived {@link JLinkWorker} JVMs to run jlink of the toolchain in instead
+     *            of forking a new process for each execution, {@code null} to fork jlink
+     */
+    void setWorkerPool(JLinkWorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+
+    /**
+     * @param argFileDirectory the directory of the {@code @argfile} to start jlink directly with, or {@code null} to
+     *            start jlink through the shell
+     */
+    void setArgFileDirectory(File argFileDirectory) {
+        this.argFileDirectory = argFileDirectory;
+    }
+
     protected Optional<Toolchain> getToolchain() {
         return Optional.ofNullable(this.toolchain);
     }
@@ -73,13 +102,110 @@ abstract class AbstractJLinkToolchainExecutor extends AbstractJLinkExecutor {
         getLog().info("Toolchain in maven-jlink-plugin: jlink [ " + jlinkExecutable + " ]");
         Commandline cmd = createJLinkCommandLine(jlinkExecutable, jlinkArgs);
 
-        return executeCommand(cmd);
+        if (workerPool != null) {
+            File javaExecutable = getJavaExecutable(jlinkExecutable);
+            try {
+                if (getLog().isDebugEnabled()) {
+                    getLog().debug("jlink worker [ " + javaExecutable + " ] " + jlinkArgs);
+                }
+                JLinkEvents.JLinkRun event = new JLinkEvents.JLinkRun();
+                event.begin();
+                JLinkOutputConsumer output = new JLinkOutputConsumer(getLog()::info);
+                JLinkOutputConsumer errorOutput = new JLinkOutputConsumer(getLog()::warn);
+                int exitCode = workerPool.run(javaExecutable, jlinkArgs, output::consumeLine, errorOutput::consumeLine);
+                event.complete("worker", jlinkArgs, exitCode);
+                return handleResult(exitCode, output, errorOutput, cmd.toString());
+            } catch (JLinkWorkerPool.StartException e) {
+                getLog().warn(e.getMessage() + " Forking jlink instead.");
+            } catch (IOException e) {
+                throw new MojoExecutionException("Unable to execute jlink command: " + e.getMessage(), e);
+            }
+        }
+
+        if (argFileDirectory != null) {
+            return executeWithArgFile(jlinkExecutable, jlinkArgs);
+        }
+
+        return executeCommand(cmd, jlinkArgs);
+    }
+
+    /**
+     * Whether the jlink of the running JDK can link the {@code jmods} of the toolchain JDK. jlink requires the
+     * same feature and interim version as the {@code java.base} module it links, and the toolchain JDK must contain
+     * {@code jmods}, as the running jlink can not read the run time image of another JDK.
+     *
+     * @return true if the toolchain JDK has {@code jmods} and the same feature and interim version as the running
+     *         JDK
+     */
+    protected boolean isToolchainLinkableInProcess() {
+        File javaHome = getJlinkExecutable().getParentFile().getParentFile();
+        if (!new File(javaHome, JMODS).isDirectory()) {
+            return false;
+        }
+        Optional<Runtime.Version> version = getJavaVersion(javaHome);
+        return version.isPresent()
+                && version.get().feature() == Runtime.version().feature()
+                && version.get().interim() == Runtime.version().interim();
+    }
+
+    /**
+     * @return the version of the JDK whose jlink links the image, empty if it is unknown
+     */
+    Optional<Runtime.Version> getJlinkVersion() {
+        return getJavaVersion(getJlinkExecutable().getParentFile().getParentFile());
+    }
+
+    /**
+     * @param javaHome the home directory of a JDK
+     * @return the {@code JAVA_VERSION} of the {@code release} file of the JDK, or empty if it is unknown
+     */
+    static Optional<Runtime.Version> getJavaVersion(File javaHome) {
+        Properties release = new Properties();
+        try (InputStream is = Files.newInputStream(new File(javaHome, "release").toPath())) {
+            release.load(is);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        String javaVersion = release.getProperty("JAVA_VERSION");
+        if (javaVersion == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Runtime.Version.parse(javaVersion.replace("\"", "").trim()));
+        } catch (IllegalArgumentException e) {
+            // for example 1.8.0_292
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return the {@code java} executable of the toolchain, next to the jlink executable if the toolchain does not
+     *         know it
+     */
+    private File getJavaExecutable(File jlinkExecutable) {
+        String javaExecutable = toolchain.findTool("java");
+        if (javaExecutable != null && new File(javaExecutable).isFile()) {
+            return new File(javaExecutable);
+        }
+        return new File(jlinkExecutable.getParentFile(), "java" + (isOSWindows() ? ".exe" : ""));
     }
 
     private File getJlinkExecutable() {
         return new File(getJLinkExecutable());
     }
 
+    /**
+     * @return the {@code jdeps} executable of the toolchain, next to the jlink executable if the toolchain does not
+     *         know it
+     */
+    Optional<File> getJdepsExecutable() {
+        String jdepsExecutable = toolchain.findTool("jdeps");
+        if (jdepsExecutable != null && new File(jdepsExecutable).isFile()) {
+            return Optional.of(new File(jdepsExecutable));
+        }
+        return Optional.of(new File(getJlinkExecutable().getParentFile(), "jdeps" + (isOSWindows() ? ".exe" : "")));
+    }
+
     @Override
     public Optional<File> getJmodsFolder(/* nullable */ File sourceJdkModules) {
         // Really Hacky...do we have a better solution to find the jmods directory of the JDK?
@@ -109,6 +235,83 @@ abstract class AbstractJLinkToolchainExecutor extends AbstractJLinkExecutor {
         return cmd;
     }
 
+    /**
+     * Writes the arguments to a jlink {@code @argfile}. Every argument is quoted, so arguments may contain spaces,
+     * quotes and backslashes, for example Windows paths.
+     *
+     * @param jlinkArgs the arguments of jlink
+     * @return the lines of the {@code @argfile}, one argument per line
+     */
+    static List<String> createArgFileLines(List<String> jlinkArgs) {
+        return jlinkArgs.stream()
+                .map(arg -> '"' + arg.replace("\\", "\\\\").replace("\"", "\\\"") + '"')
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Starts the jlink executable directly, without a shell, with the arguments in an {@code @argfile}. This saves
+     * the shell process and is not limited by the maximum length of a command line, even with long module paths.
+     * The {@code @argfile} is kept for debugging if jlink runs with {@code --verbose} or debug logging is enabled.
+     */
+    private int executeWithArgFile(File jlinkExecutable, List<String> jlinkArgs) throws MojoExecutionException {
+        boolean keepArgFile = getLog().isDebugEnabled() || jlinkArgs.contains("--verbose");
+        Path argFile = null;
+        try {
+            Files.createDirectories(argFileDirectory.toPath());
+            argFile = Files.createTempFile(argFileDirectory.toPath(), "jlink-", ".args");
+            // jlink reads the @argfile with the default charset
+            Files.write(argFile, createArgFileLines(jlinkArgs), Charset.defaultCharset());
+
+            String commandLine = jlinkExecutable.getAbsolutePath() + " @" + argFile;
+            if (getLog().isDebugEnabled()) {
+                getLog().debug(commandLine);
+            }
+
+            JLinkEvents.JLinkRun event = new JLinkEvents.JLinkRun();
+            event.begin();
+            Process process = new ProcessBuilder(jlinkExecutable.getAbsolutePath(), "@" + argFile).start();
+            process.getOutputStream().close();
+            JLinkOutputConsumer output = new JLinkOutputConsumer(getLog()::info);
+            JLinkOutputConsumer errorOutput = new JLinkOutputConsumer(getLog()::warn);
+            CompletableFuture<Void> errorOutputRead = CompletableFuture.runAsync(
+                    () -> {
+                        try {
+                            errorOutput.consume(process.getErrorStream(), Charset.defaultCharset());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    },
+                    runnable -> new Thread(runnable, "jlink-stderr").start());
+            output.consume(process.getInputStream(), Charset.defaultCharset());
+            int exitCode = process.waitFor();
+            errorOutputRead.join();
+            event.complete("fork-argfile", jlinkArgs, exitCode);
+
+            return handleResult(exitCode, output, errorOutput, commandLine);
+        } catch (IOException | CompletionException e) {
+            throw new MojoExecutionException("Unable to execute jlink command: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while executing jlink", e);
+        } finally {
+            if (argFile != null) {
+                deleteArgFile(argFile, keepArgFile);
+            }
+        }
+    }
+
+    private void deleteArgFile(Path argFile, boolean keepArgFile) {
+        if (keepArgFile) {
+            getLog().info("The arguments of jlink are kept in " + argFile);
+            return;
+        }
+        try {
+            Files.deleteIfExists(argFile);
+        } catch (IOException e) {
+            getLog().warn("Unable to delete " + argFile + ": " + e.getMessage());
+        }
+    }
+
     private String getJLinkExecutable() {
         Optional<Toolchain> toolchain = getToolchain();
 
@@ -147,52 +350,57 @@ abstract class AbstractJLinkToolchainExecutor extends AbstractJLinkExecutor {
         return jLinkExe.getAbsolutePath();
     }
 
-    private int executeCommand(Commandline cmd) throws MojoExecutionException {
+    private int executeCommand(Commandline cmd, List<String> jlinkArgs) throws MojoExecutionException {
         if (getLog().isDebugEnabled()) {
             // no quoted arguments ???
             getLog().debug(CommandLineUtils.toString(cmd.getCommandline()));
         }
 
-        CommandLineUtils.StringStreamConsumer err = new CommandLineUtils.StringStreamConsumer();
-        CommandLineUtils.StringStreamConsumer out = new CommandLineUtils.StringStreamConsumer();
+        JLinkOutputConsumer err = new JLinkOutputConsumer(getLog()::warn);
+        JLinkOutputConsumer out = new JLinkOutputConsumer(getLog()::info);
+        JLinkEvents.JLinkRun event = new JLinkEvents.JLinkRun();
+        event.begin();
         try {
             int exitCode = CommandLineUtils.executeCommandLine(cmd, out, err);
+            event.complete("fork", jlinkArgs, exitCode);
 
-            String output = out.getOutput().trim();
-            output = output.isEmpty() ? null : '\n' + output;
-
-            if (exitCode != 0) {
-
-                if (output != null && !output.isEmpty()) {
-                    // Reconsider to use WARN / ERROR ?
-                    //  getLog().error( output );
-                    for (String outputLine : output.split("\n")) {
-                        getLog().error(outputLine);
-                    }
-                }
-
-                StringBuilder msg = new StringBuilder("\nExit code: ");
-                msg.append(exitCode);
-                if (!err.getOutput().trim().isEmpty()) {
-                    msg.append(" - ").append(err.getOutput());
-                }
-                msg.append('\n');
-                msg.append("Command line was: ").append(cmd).append('\n').append('\n');
+            return handleResult(exitCode, out, err, cmd.toString());
+        } catch (CommandLineException e) {
+            throw new MojoExecutionException("Unable to execute jlink command: " + e.getMessage(), e);
+        }
+    }
 
-                throw new MojoExecutionException(msg.toString());
+    /**
+     * The output of jlink has already been logged line by line while jlink ran. jlink reports its errors on the
+     * standard output, so the last lines of both outputs are part of the message of a failure.
+     *
+     * @param exitCode the exit code of jlink
+     * @param output the standard output of jlink
+     * @param errorOutput the error output of jlink
+     * @param commandLine the command line, for the message of a failure
+     * @return the exit code ({@code 0})
+     * @throws MojoExecutionException if jlink failed
+     */
+    int handleResult(int exitCode, JLinkOutputConsumer output, JLinkOutputConsumer errorOutput, String commandLine)
+            throws MojoExecutionException {
+        if (exitCode != 0) {
+            StringBuilder msg = new StringBuilder("\nExit code: ");
+            msg.append(exitCode);
+            String stderr = errorOutput.getTail();
+            if (!stderr.trim().isEmpty()) {
+                msg.append(" - ").append(stderr);
             }
-
-            if (output != null && !output.isEmpty()) {
-                // getLog().info( output );
-                for (String outputLine : output.split("\n")) {
-                    getLog().info(outputLine);
-                }
+            msg.append('\n');
+            String stdout = output.getTail();
+            if (!stdout.trim().isEmpty()) {
+                msg.append(stdout).append('\n');
             }
+            msg.append("Command line was: ").append(commandLine).append('\n').append('\n');
 
-            return exitCode;
-        } catch (CommandLineException e) {
-            throw new MojoExecutionException("Unable to execute jlink command: " + e.getMessage(), e);
+            throw new MojoExecutionException(msg.toString());
         }
+
+        return exitCode;
     }
 
     private static boolean isOSWindows() {
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Generates the class data sharing (CDS) archives of a linked image, to reduce the startup time of its JVM.
+ *
+ * <p>The default CDS archive {@code lib/server/classes.jsa} is used by {@code bin/java} of the image without further
+ * options. jlink of JDK 18 and later generates it with {@code --generate-cds-archive}, for older JDKs it is dumped by
+ * {@code bin/java -Xshare:dump} of the image. An AppCDS archive {@code lib/<launcher>.jsa} of the classes loaded by a
+ * training run of a launcher is a dynamic archive on top of the default archive, and is passed to the JVM by the
+ * launcher script.</p>
+ *
+ * <p>The archives only depend on the image and the training arguments, see {@link ImageJava}. Note that only JDK 21
+ * and later dump byte for byte identical archives.</p>
+ */
+final class CdsArchiveGenerator {
+    /**
+     * The first JDK whose jlink generates the default CDS archive with {@code --generate-cds-archive}.
+     */
+    static final int GENERATE_CDS_ARCHIVE_VERSION = 18;
+
+    /**
+     * The first JDK which dumps dynamic archives with {@code -XX:ArchiveClassesAtExit}.
+     */
+    static final int ARCHIVE_CLASSES_AT_EXIT_VERSION = 13;
+
+    private static final String SHELL_JAVA_COMMAND = "$DIR/java $JLINK_VM_OPTIONS";
+
+    private static final String BATCH_JAVA_COMMAND = "\"%DIR%\\java\" %JLINK_VM_OPTIONS%";
+
+    private final File image;
+
+    private final Log log;
+
+    /**
+     * @param image the directory of the linked image
+     * @param log the log for the output of the JVMs
+     */
+    CdsArchiveGenerator(File image, Log log) {
+        this.image = image;
+        this.log = log;
+    }
+
+    /**
+     * @param jlinkVersion the version of the JDK running jlink, empty if it is unknown
+     * @return true if jlink generates the default CDS archive with {@code --generate-cds-archive}
+     */
+    static boolean isGeneratedByJlink(Optional<Runtime.Version> jlinkVersion) {
+        return jlinkVersion.isPresent() && jlinkVersion.get().feature() >= GENERATE_CDS_ARCHIVE_VERSION;
+    }
+
+    /**
+     * @param jlinkVersion the version of the JDK running jlink, empty if it is unknown
+     * @throws MojoFailureException if the JVM of the image is known to be unable to dump an AppCDS archive
+     */
+    static void failIfAppCdsIsNotSupported(Optional<Runtime.Version> jlinkVersion) throws MojoFailureException {
+        if (jlinkVersion.isPresent() && jlinkVersion.get().feature() < ARCHIVE_CLASSES_AT_EXIT_VERSION) {
+            throw new MojoFailureException("parameter 'appCdsLauncher' needs at least a Java "
+                    + ARCHIVE_CLASSES_AT_EXIT_VERSION + " runtime or toolchain.");
+        }
+    }
+
+    /**
+     * Generates the default CDS archive unless jlink did, and the AppCDS archive of a launcher, which is added to
+     * its launcher scripts.
+     *
+     * @param defaultArchive whether to dump the default CDS archive
+     * @param launcher the launcher of the AppCDS archive, {@code <name>=<module>[/<mainclass>]}, {@code null} for
+     *                 none
+     * @param trainingArguments the arguments of the training run, can be {@code null}
+     * @throws MojoExecutionException if an archive can not be dumped or added to the launcher
+     */
+    void generate(boolean defaultArchive, String launcher, List<String> trainingArguments)
+            throws MojoExecutionException {
+        if (defaultArchive) {
+            log.info("Generating the default CDS archive of the Run Time Image.");
+            generateDefaultArchive();
+        }
+        if (launcher != null) {
+            String name = ImageJava.getLauncherName(launcher);
+            File archive = generateAppCdsArchive(
+                    launcher, trainingArguments != null ? trainingArguments : Collections.emptyList());
+            addToLauncher(name);
+            log.info("AppCDS archive " + archive + " added to the launcher " + name + ".");
+        }
+    }
+
+    /**
+     * Dumps the default CDS archive with {@code bin/java -Xshare:dump} of the image.
+     *
+     * @throws MojoExecutionException if the archive can not be dumped
+     */
+    void generateDefaultArchive() throws MojoExecutionException {
+        new ImageJava(image, log).run(List.of("-Xshare:dump"), log::debug, "dump the default CDS archive");
+    }
+
+    /**
+     * Runs the main class of a launcher of the image and dumps the classes it loaded into {@code lib/<name>.jsa}.
+     *
+     * @param launcher the launcher, {@code <name>=<module>[/<mainclass>]}
+     * @param trainingArguments the arguments of the training run
+     * @return the AppCDS archive
+     * @throws MojoExecutionException if the training run fails or does not dump the archive
+     */
+    File generateAppCdsArchive(String launcher, List<String> trainingArguments) throws MojoExecutionException {
+        String name = ImageJava.getLauncherName(launcher);
+        File archive = new File(image, "lib/" + name + ".jsa");
+
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath());
+        arguments.add("-m");
+        arguments.add(ImageJava.getLauncherModule(launcher));
+        arguments.addAll(trainingArguments);
+        log.info("Training run of the launcher " + name + " for the AppCDS archive.");
+        new ImageJava(image, log).run(arguments, log::info, "run the launcher " + name + " for the AppCDS archive");
+
+        if (!archive.isFile()) {
+            throw new MojoExecutionException("The training run of the launcher " + name
+                    + " did not dump the AppCDS archive " + archive + ", does the image have a default CDS archive?");
+        }
+        return archive;
+    }
+
+    /**
+     * Passes the AppCDS archive of a launcher to the JVM in the launcher scripts {@code bin/<name>} and
+     * {@code bin/<name>.bat}, whichever exist.
+     *
+     * @param name the name of the launcher
+     * @throws MojoExecutionException if a launcher script can not be rewritten
+     */
+    void addToLauncher(String name) throws MojoExecutionException {
+        boolean added = false;
+        for (String scriptName : new String[] {name, name + ".bat"}) {
+            Path script = new File(image, "bin/" + scriptName).toPath();
+            if (!Files.isRegularFile(script)) {
+                continue;
+            }
+            try {
+                String content = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+                Optional<String> withArchive = addSharedArchiveFile(content, name);
+                if (withArchive.isPresent()) {
+                    // rewriting the file keeps its permissions
+                    Files.write(script, withArchive.get().getBytes(StandardCharsets.UTF_8));
+                    added = true;
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException(
+                        "Unable to add the AppCDS archive to the launcher " + script + ": " + e.getMessage(), e);
+            }
+        }
+        if (!added) {
+            log.warn("No launcher script of " + name + " found to add the AppCDS archive to, pass "
+                    + "-XX:SharedArchiveFile=lib/" + name + ".jsa to the JVM of the image instead.");
+        }
+    }
+
+    /**
+     * Adds {@code -XX:SharedArchiveFile} to the command of a launcher script generated by jlink, relative to the
+     * directory of the script.
+     *
+     * @param script the content of the shell or batch script
+     * @param name the name of the launcher
+     * @return the new content, empty if the script does not contain the command of jlink's template
+     */
+    static Optional<String> addSharedArchiveFile(String script, String name) {
+        if (script.contains(SHELL_JAVA_COMMAND)) {
+            return Optional.of(script.replace(
+                    SHELL_JAVA_COMMAND,
+                    "$DIR/java -XX:SharedArchiveFile=\"$DIR/../lib/" + name + ".jsa\" $JLINK_VM_OPTIONS"));
+        }
+        if (script.contains(BATCH_JAVA_COMMAND)) {
+            return Optional.of(script.replace(
+                    BATCH_JAVA_COMMAND,
+                    "\"%DIR%\\java\" -XX:SharedArchiveFile=\"%DIR%\\..\\lib\\" + name + ".jsa\" %JLINK_VM_OPTIONS%"));
+        }
+        return Optional.empty();
+    }
+}
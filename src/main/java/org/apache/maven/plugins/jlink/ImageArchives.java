@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.maven.archiver.MavenArchiver;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.zip.ZipArchiver;
+
+/**
+ * Creates the archives of a Run Time Image: the zip file, which is the artifact of the {@code jlink} packaging, and
+ * the tar files of the configured formats, all named {@code <finalName>[-<classifier>].<format>}.
+ *
+ * <p>The zip file is created by the {@link ImageZipArchiver} if the number of threads, the incremental mode or the
+ * compression of the entries is configured, and also if tar files are created, so that the zip file has the entries
+ * of the same scan of the image in the same order. Otherwise it is created by the plexus {@code ZipArchiver}. The
+ * tar files of the tar formats are written by the {@link ImageTarArchiver}.</p>
+ */
+final class ImageArchives {
+    /**
+     * The formats created by the {@link ImageTarArchiver}.
+     */
+    private static final Map<String, ImageTarArchiver.Compression> TAR_FORMATS = Map.of(
+            "tar", ImageTarArchiver.Compression.NONE,
+            "tar.gz", ImageTarArchiver.Compression.GZIP,
+            "tar.zst", ImageTarArchiver.Compression.ZSTD);
+
+    private final File directory;
+
+    private final String finalName;
+
+    private final String classifier;
+
+    private final Log log;
+
+    private String prefix = "";
+
+    private Optional<Instant> lastModified = Optional.empty();
+
+    private int threads;
+
+    private boolean incremental;
+
+    private List<String> storedEntries;
+
+    private Integer compressionLevel;
+
+    private boolean autoStore;
+
+    private List<String> formats;
+
+    /**
+     * @param directory the directory of the archives
+     * @param finalName the name of the archives without classifier and extension, must not be empty
+     * @param classifier the classifier of the archives, can be {@code null}
+     * @param log the log for the failures
+     */
+    ImageArchives(File directory, String finalName, String classifier, Log log) {
+        if (finalName.isEmpty()) {
+            throw new IllegalArgumentException("finalName is not allowed to be empty.");
+        }
+        this.directory = directory;
+        this.finalName = finalName;
+        this.classifier = classifier;
+        this.log = log;
+    }
+
+    /**
+     * @param format an archive format
+     * @return true if the format is {@code zip} or one of the tar formats
+     */
+    static boolean isFormat(String format) {
+        return "zip".equals(format) || TAR_FORMATS.containsKey(format);
+    }
+
+    /**
+     * @param prefix the directory prefix of all entries, can be {@code null} or empty
+     */
+    void setPrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            this.prefix = "";
+        } else {
+            this.prefix = prefix.endsWith("/") ? prefix : prefix + '/';
+        }
+    }
+
+    /**
+     * @param outputTimestamp the timestamp of all entries for Reproducible Builds, can be {@code null}
+     */
+    void setOutputTimestamp(String outputTimestamp) {
+        this.lastModified = MavenArchiver.parseBuildOutputTimestamp(outputTimestamp);
+    }
+
+    /**
+     * @param threads the number of compression threads, {@code 0} for the default
+     */
+    void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @param incremental copy the compressed data of unchanged entries from the previous zip file
+     */
+    void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * @param storedEntries the patterns of the zip entries to store uncompressed, can be {@code null}
+     */
+    void setStoredEntries(List<String> storedEntries) {
+        this.storedEntries = storedEntries;
+    }
+
+    /**
+     * @param compressionLevel the deflate level of the zip entries and of {@code tar.gz}, {@code null} for the
+     *        default
+     */
+    void setCompressionLevel(Integer compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * @param autoStore store zip entries uncompressed if a sample of their content does not compress well
+     */
+    void setAutoStore(boolean autoStore) {
+        this.autoStore = autoStore;
+    }
+
+    /**
+     * @param formats the formats of the archives, can be {@code null}; the zip file is always created
+     */
+    void setFormats(List<String> formats) {
+        this.formats = formats;
+    }
+
+    /**
+     * @return the zip file
+     */
+    File getZipFile() {
+        return getArchiveFile("zip");
+    }
+
+    /**
+     * @param extension the extension of the archive format, for example {@code tar.gz}
+     * @return the archive file of the format
+     */
+    File getArchiveFile(String extension) {
+        StringBuilder fileName = new StringBuilder(finalName);
+        if (classifier != null && !classifier.isEmpty()) {
+            fileName.append("-").append(classifier);
+        }
+        fileName.append('.').append(extension);
+        return new File(directory, fileName.toString());
+    }
+
+    /**
+     * @return the configured formats except {@code zip}, without duplicates
+     */
+    List<String> getTarFormats() {
+        List<String> tarFormats = new ArrayList<>();
+        if (formats != null) {
+            for (String format : formats) {
+                if (TAR_FORMATS.containsKey(format) && !tarFormats.contains(format)) {
+                    tarFormats.add(format);
+                }
+            }
+        }
+        return tarFormats;
+    }
+
+    /**
+     * @return true if the zip file and the tar files of all formats exist
+     */
+    boolean exist() {
+        return getZipFile().isFile() && getTarFormats().stream().allMatch(format -> getArchiveFile(format).isFile());
+    }
+
+    /**
+     * @param imageTree the files of the image
+     * @return the zip file
+     * @throws MojoExecutionException if the zip file can not be created
+     */
+    File createZipArchive(ImageTree imageTree) throws MojoExecutionException {
+        File resultArchive = getZipFile();
+        JLinkEvents.ArchiveCreation event = new JLinkEvents.ArchiveCreation();
+        event.begin();
+        try {
+            if (threads > 0 || incremental || hasCompressionPolicy() || !getTarFormats().isEmpty()) {
+                ImageZipArchiver imageZipArchiver = new ImageZipArchiver(getThreads());
+                imageZipArchiver.setPrefix(prefix);
+                imageZipArchiver.setStoredEntries(storedEntries);
+                if (compressionLevel != null) {
+                    imageZipArchiver.setCompressionLevel(compressionLevel);
+                }
+                imageZipArchiver.setAutoStore(autoStore);
+                imageZipArchiver.setIncremental(incremental);
+                lastModified.ifPresent(instant -> imageZipArchiver.configureReproducibleBuild(FileTime.from(instant)));
+                imageZipArchiver.createArchive(imageTree, resultArchive);
+            } else {
+                ZipArchiver zipArchiver = new ZipArchiver();
+                zipArchiver.addDirectory(imageTree.getDirectory(), prefix);
+                lastModified.ifPresent(instant -> zipArchiver.configureReproducibleBuild(FileTime.from(instant)));
+                zipArchiver.setDestFile(resultArchive);
+                zipArchiver.createArchive();
+            }
+        } catch (ArchiverException | IOException e) {
+            log.error(e.getMessage(), e);
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        event.complete("zip", imageTree, resultArchive);
+        return resultArchive;
+    }
+
+    /**
+     * Creates the tar files of all tar formats.
+     *
+     * @param imageTree the files of the image
+     * @throws MojoExecutionException if a tar file can not be created
+     */
+    void createTarArchives(ImageTree imageTree) throws MojoExecutionException {
+        List<String> tarFormats = getTarFormats();
+        if (tarFormats.isEmpty()) {
+            return;
+        }
+
+        ImageTarArchiver imageTarArchiver = new ImageTarArchiver(getThreads());
+        imageTarArchiver.setPrefix(prefix);
+        if (compressionLevel != null) {
+            imageTarArchiver.setCompressionLevel(compressionLevel);
+        }
+        lastModified.ifPresent(instant -> imageTarArchiver.configureReproducibleBuild(FileTime.from(instant)));
+
+        for (String format : tarFormats) {
+            File resultArchive = getArchiveFile(format);
+            JLinkEvents.ArchiveCreation event = new JLinkEvents.ArchiveCreation();
+            event.begin();
+            try {
+                imageTarArchiver.createArchive(imageTree, resultArchive, TAR_FORMATS.get(format));
+                event.complete(format, imageTree, resultArchive);
+            } catch (IOException e) {
+                log.error(e.getMessage(), e);
+                throw new MojoExecutionException(e.getMessage(), e);
+            }
+        }
+    }
+
+    private int getThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return true if the compression of the zip file entries is configured, which is only supported by the
+     *         {@link ImageZipArchiver}
+     */
+    private boolean hasCompressionPolicy() {
+        return (storedEntries != null && !storedEntries.isEmpty()) || compressionLevel != null || autoStore;
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A content addressed cache for Run Time Images and their zip files, shared by all projects using the same
+ * cache directory.
+ *
+ * <p>The layout of the cache directory is:</p>
+ * <pre>
+ * entries/&lt;key&gt;/image/      the Run Time Image
+ * entries/&lt;key&gt;/image.zip   the zip file of the image
+ * entries/&lt;key&gt;/size        the size of the entry in bytes
+ * entries/&lt;key&gt;/last-used   touched on every hit, used for LRU eviction
+ * tmp/                       staging area for entries which are not yet published
+ * statistics.properties      hits, misses and evictions
+ * </pre>
+ *
+ * <p>Entries are staged in {@code tmp} and published with an atomic move, so concurrent builds either see a
+ * complete entry or none at all. The same way, entries are evicted by moving them out of {@code entries}
+ * before they are deleted.</p>
+ */
+class ImageCache {
+    private static final String IMAGE = "image";
+    private static final String ZIP = "image.zip";
+    private static final String SIZE = "size";
+    private static final String LAST_USED = "last-used";
+
+    /**
+     * File locks are held by the whole JVM, so threads of the same build have to be serialized separately.
+     */
+    private static final Object JVM_LOCK = new Object();
+
+    private final Path entries;
+    private final Path tmp;
+    private final Path lockFile;
+    private final Path statisticsFile;
+    private final long maxSize;
+    private final boolean hardLinks;
+    private final Log log;
+
+    /**
+     * @param directory the cache directory, created if it does not exist
+     * @param maxSize the maximum size of all entries in bytes
+     * @param hardLinks restore the files of an entry as hard links instead of copying them
+     * @param log the log
+     */
+    ImageCache(File directory, long maxSize, boolean hardLinks, Log log) {
+        Path root = directory.toPath();
+        this.entries = root.resolve("entries");
+        this.tmp = root.resolve("tmp");
+        this.lockFile = root.resolve(".lock");
+        this.statisticsFile = root.resolve("statistics.properties");
+        this.maxSize = maxSize;
+        this.hardLinks = hardLinks;
+        this.log = log;
+    }
+
+    /**
+     * Restores a cached image and its zip file. The zip file is always copied, as the next build overwrites it in
+     * place, which would change the entry through a hard link.
+     *
+     * @param key the key of the image
+     * @param imageDirectory the directory to restore the image to, must not exist
+     * @param zipFile the file to restore the zip file to
+     * @return {@code true} on a cache hit, {@code false} otherwise
+     */
+    boolean restore(String key, File imageDirectory, File zipFile) {
+        Path entry = entries.resolve(key);
+        boolean hit = Files.isRegularFile(entry.resolve(SIZE));
+        if (hit) {
+            try {
+                copyTree(entry.resolve(IMAGE), imageDirectory.toPath(), hardLinks);
+                Files.createDirectories(zipFile.toPath().getParent());
+                copyFile(entry.resolve(ZIP), zipFile.toPath(), false);
+                touch(entry.resolve(LAST_USED));
+            } catch (IOException e) {
+                // e.g. evicted concurrently
+                log.warn("Unable to restore " + key + " from the image cache: " + e.getMessage());
+                FileUtils.deleteQuietly(imageDirectory);
+                FileUtils.deleteQuietly(zipFile);
+                hit = false;
+            }
+        }
+        log.info("Image cache " + (hit ? "hit" : "miss") + " for " + key);
+        updateStatistics(hit ? "hits" : "misses", 1);
+        return hit;
+    }
+
+    /**
+     * Stores an image and its zip file, and evicts the least recently used entries afterwards if the cache
+     * exceeds its maximum size.
+     *
+     * @param key the key of the image
+     * @param imageDirectory the image to store
+     * @param zipFile the zip file of the image
+     * @throws IOException if the entry can not be staged
+     */
+    void store(String key, File imageDirectory, File zipFile) throws IOException {
+        Path entry = entries.resolve(key);
+        if (Files.exists(entry)) {
+            return;
+        }
+
+        Files.createDirectories(entries);
+        Files.createDirectories(tmp);
+        Path staging = tmp.resolve(key + "-" + UUID.randomUUID());
+        try {
+            // never link into the project, the image in the cache must not change afterwards
+            copyTree(imageDirectory.toPath(), staging.resolve(IMAGE), false);
+            copyFile(zipFile.toPath(), staging.resolve(ZIP), false);
+            long size = sizeOf(staging);
+            Files.write(staging.resolve(SIZE), Long.toString(size).getBytes(StandardCharsets.UTF_8));
+            touch(staging.resolve(LAST_USED));
+
+            try {
+                Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+                log.debug("Stored " + key + " in the image cache (" + size + " bytes)");
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                log.debug("Image " + key + " has been stored by a concurrent build.");
+            } catch (AtomicMoveNotSupportedException e) {
+                log.warn("The image cache requires a file system supporting atomic moves: " + e.getMessage());
+            }
+        } finally {
+            FileUtils.deleteQuietly(staging.toFile());
+        }
+
+        evict();
+    }
+
+    /**
+     * Deletes the least recently used entries until the size of the cache is below its maximum size.
+     */
+    void evict() throws IOException {
+        if (!Files.isDirectory(entries)) {
+            return;
+        }
+
+        synchronized (JVM_LOCK) {
+            try (FileChannel channel = FileChannel.open(
+                            lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    FileLock lock = channel.lock()) {
+                evictLocked();
+            }
+        }
+    }
+
+    private void evictLocked() throws IOException {
+        List<CacheEntry> cacheEntries = listEntries();
+        long totalSize = cacheEntries.stream().mapToLong(e -> e.size).sum();
+        int evicted = 0;
+        for (CacheEntry cacheEntry : cacheEntries) {
+            if (totalSize <= maxSize) {
+                break;
+            }
+            Path trash = tmp.resolve("evicted-" + UUID.randomUUID());
+            try {
+                Files.move(cacheEntry.path, trash, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.debug("Unable to evict " + cacheEntry.path + ": " + e.getMessage());
+                continue;
+            }
+            FileUtils.deleteQuietly(trash.toFile());
+            totalSize -= cacheEntry.size;
+            evicted++;
+        }
+        if (evicted > 0) {
+            log.info("Evicted " + evicted + " entries from the image cache.");
+            updateStatisticsLocked("evictions", evicted);
+        }
+    }
+
+    /**
+     * Logs the statistics of all builds using this cache.
+     */
+    void logStatistics() {
+        Properties statistics = readStatistics();
+        long hits = Long.parseLong(statistics.getProperty("hits", "0"));
+        long misses = Long.parseLong(statistics.getProperty("misses", "0"));
+        long total = hits + misses;
+        log.info("Image cache statistics: " + hits + " hits, " + misses + " misses"
+                + (total > 0 ? " (" + (hits * 100 / total) + "% hit rate)" : "")
+                + ", " + statistics.getProperty("evictions", "0") + " evictions");
+    }
+
+    /**
+     * @return the entries, least recently used first
+     */
+    private List<CacheEntry> listEntries() throws IOException {
+        List<CacheEntry> result = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(entries)) {
+            for (Path path : paths.collect(Collectors.toList())) {
+                Path sizeFile = path.resolve(SIZE);
+                if (!Files.isRegularFile(sizeFile)) {
+                    continue;
+                }
+                try {
+                    long size = Long.parseLong(
+                            new String(Files.readAllBytes(sizeFile), StandardCharsets.UTF_8).trim());
+                    FileTime lastUsed = Files.getLastModifiedTime(path.resolve(LAST_USED));
+                    result.add(new CacheEntry(path, size, lastUsed));
+                } catch (IOException | NumberFormatException e) {
+                    log.debug("Ignoring invalid image cache entry " + path + ": " + e.getMessage());
+                }
+            }
+        }
+        result.sort(Comparator.comparing(e -> e.lastUsed));
+        return result;
+    }
+
+    private void updateStatistics(String key, long delta) {
+        try {
+            Files.createDirectories(lockFile.getParent());
+            synchronized (JVM_LOCK) {
+                try (FileChannel channel = FileChannel.open(
+                                lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                        FileLock lock = channel.lock()) {
+                    updateStatisticsLocked(key, delta);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Unable to update the image cache statistics: " + e.getMessage());
+        }
+    }
+
+    private void updateStatisticsLocked(String key, long delta) throws IOException {
+        Properties statistics = readStatistics();
+        statistics.setProperty(key, Long.toString(Long.parseLong(statistics.getProperty(key, "0")) + delta));
+        try (OutputStream os = Files.newOutputStream(statisticsFile)) {
+            statistics.store(os, null);
+        }
+    }
+
+    private Properties readStatistics() {
+        Properties statistics = new Properties();
+        if (Files.isRegularFile(statisticsFile)) {
+            try (InputStream is = Files.newInputStream(statisticsFile)) {
+                statistics.load(is);
+            } catch (IOException e) {
+                log.debug("Unable to read the image cache statistics: " + e.getMessage());
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Copies a tree, symbolic links like the ones of the legal notices of an image are copied as links.
+     */
+    private void copyTree(Path source, Path target, boolean link) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : paths.collect(Collectors.toList())) {
+                Path destination = target.resolve(source.relativize(path).toString());
+                if (Files.isSymbolicLink(path)) {
+                    Files.createSymbolicLink(destination, Files.readSymbolicLink(path));
+                } else if (Files.isDirectory(path)) {
+                    Files.createDirectories(destination);
+                } else {
+                    copyFile(path, destination, link);
+                }
+            }
+        }
+    }
+
+    private void copyFile(Path source, Path target, boolean link) throws IOException {
+        if (link) {
+            try {
+                Files.createLink(target, source);
+                return;
+            } catch (UnsupportedOperationException | IOException e) {
+                log.debug("Unable to create a hard link for " + target + ", copying instead: " + e.getMessage());
+            }
+        }
+        Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long sizeOf(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            long size = 0;
+            for (Path path : paths.filter(file -> Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS))
+                    .collect(Collectors.toList())) {
+                size += Files.size(path);
+            }
+            return size;
+        }
+    }
+
+    private static void touch(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            Files.createFile(file);
+        }
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    private static final class CacheEntry {
+        private final Path path;
+        private final long size;
+        private final FileTime lastUsed;
+
+        CacheEntry(Path path, long size, FileTime lastUsed) {
+            this.path = path;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Runs {@code bin/java} of a linked image, to post-process the image or to train it with a launcher.
+ *
+ * <p>The JVM runs in the directory of the image, without the options of the environment variables
+ * {@code JAVA_TOOL_OPTIONS}, {@code _JAVA_OPTIONS} and {@code JDK_JAVA_OPTIONS}, so its results only depend on the
+ * image and the arguments.</p>
+ */
+final class ImageJava {
+    private static final List<String> JAVA_OPTIONS_VARIABLES =
+            List.of("JAVA_TOOL_OPTIONS", "_JAVA_OPTIONS", "JDK_JAVA_OPTIONS");
+
+    private static final File PROC_SELF_STAT = new File("/proc/self/stat");
+
+    private final File image;
+
+    private final Log log;
+
+    /**
+     * @param image the directory of the linked image
+     * @param log the log for the command lines
+     */
+    ImageJava(File image, Log log) {
+        this.image = image;
+        this.log = log;
+    }
+
+    /**
+     * @param launcher a launcher, {@code <name>=<module>[/<mainclass>]}
+     * @return the name of the launcher
+     */
+    static String getLauncherName(String launcher) {
+        return launcher.substring(0, launcher.indexOf('='));
+    }
+
+    /**
+     * @param launcher a launcher, {@code <name>=<module>[/<mainclass>]}
+     * @return the module and main class of the launcher, the argument of {@code java -m}
+     */
+    static String getLauncherModule(String launcher) {
+        return launcher.substring(launcher.indexOf('=') + 1);
+    }
+
+    /**
+     * Runs the JVM of the image.
+     *
+     * @param arguments the arguments of {@code bin/java}
+     * @param outputConsumer receives the output and error output of the JVM line by line
+     * @param description what the JVM does, for the message of a failure
+     * @throws MojoExecutionException if the JVM can not be started or exits with an error
+     */
+    void run(List<String> arguments, Consumer<String> outputConsumer, String description)
+            throws MojoExecutionException {
+        List<String> command = new ArrayList<>();
+        command.add(getExecutable().getPath());
+        command.addAll(arguments);
+        execute(command, command, outputConsumer, description);
+    }
+
+    /**
+     * Runs the JVM of the image and counts its page faults. The page faults are only known on Linux, where the JVM
+     * runs as child of {@code /bin/sh}, which reads the page faults of its children from {@code /proc} afterwards.
+     *
+     * @param arguments the arguments of {@code bin/java}
+     * @param outputConsumer receives the output and error output of the JVM line by line
+     * @param description what the JVM does, for the message of a failure
+     * @return the number of minor and major page faults of the JVM, empty if it is unknown
+     * @throws MojoExecutionException if the JVM can not be started or exits with an error
+     */
+    OptionalLong runCountingPageFaults(List<String> arguments, Consumer<String> outputConsumer, String description)
+            throws MojoExecutionException {
+        File shell = new File("/bin/sh");
+        if (!PROC_SELF_STAT.isFile() || !shell.isFile()) {
+            run(arguments, outputConsumer, description);
+            return OptionalLong.empty();
+        }
+
+        List<String> javaCommand = new ArrayList<>();
+        javaCommand.add(getExecutable().getPath());
+        javaCommand.addAll(arguments);
+        Path statFile = null;
+        try {
+            statFile = Files.createTempFile("maven-jlink-stat", ".txt");
+            List<String> command = new ArrayList<>();
+            command.add(shell.getPath());
+            command.add("-c");
+            command.add("statFile=$1; shift; \"$@\"; status=$?; cat /proc/$$/stat > \"$statFile\"; exit $status");
+            command.add("sh");
+            command.add(statFile.toString());
+            command.addAll(javaCommand);
+            execute(command, javaCommand, outputConsumer, description);
+            return readChildPageFaults(new String(Files.readAllBytes(statFile), StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            log.debug("Unable to count the page faults: " + e.getMessage());
+            return OptionalLong.empty();
+        } finally {
+            if (statFile != null) {
+                try {
+                    Files.deleteIfExists(statFile);
+                } catch (IOException e) {
+                    log.debug("Unable to delete " + statFile + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param stat the content of {@code /proc/<pid>/stat}
+     * @return the sum of the minor and major page faults of the waited-for children, {@code cminflt} and
+     *         {@code cmajflt}, empty if the content can not be parsed
+     */
+    static OptionalLong readChildPageFaults(String stat) {
+        // the command name in parentheses may contain spaces, the fields after it start with the state (field 3)
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 1).trim().split("\\s+");
+        if (fields.length < 11) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(fields[8]) + Long.parseLong(fields[10]));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private File getExecutable() throws MojoExecutionException {
+        for (String name : new String[] {"java.exe", "java"}) {
+            File java = new File(image, "bin/" + name);
+            if (java.isFile()) {
+                return java;
+            }
+        }
+        throw new MojoExecutionException("The image " + image + " has no bin/java to run.");
+    }
+
+    private void execute(
+            List<String> command, List<String> javaCommand, Consumer<String> outputConsumer, String description)
+            throws MojoExecutionException {
+        if (log.isDebugEnabled()) {
+            log.debug(String.join(" ", javaCommand));
+        }
+        ProcessBuilder processBuilder = new ProcessBuilder(command).directory(image).redirectErrorStream(true);
+        processBuilder.environment().keySet().removeAll(JAVA_OPTIONS_VARIABLES);
+        JLinkOutputConsumer output = new JLinkOutputConsumer(outputConsumer);
+        int exitCode;
+        try {
+            Process process = processBuilder.start();
+            process.getOutputStream().close();
+            output.consume(process.getInputStream(), Charset.defaultCharset());
+            exitCode = process.waitFor();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to " + description + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while trying to " + description + ".", e);
+        }
+        if (exitCode != 0) {
+            throw new MojoExecutionException("Unable to " + description + ".\nExit code: " + exitCode + " - "
+                    + output.getTail() + "\nCommand line was: " + String.join(" ", javaCommand) + "\n");
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.Deflater;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+
+/**
+ * Creates a tar file of a Run Time Image, optionally compressed with gzip or zstd on several threads.
+ *
+ * <p>The entries are written in the order of the {@link ImageTree}, each directory before its content. The POSIX
+ * permissions are kept, so launchers in {@code bin} stay executable, and symbolic links are stored as such. Owner
+ * and group are not stored. If a reproducible timestamp is configured, all entries use it and group and other
+ * write permissions are removed, like in the zip file.</p>
+ */
+class ImageTarArchiver {
+    /**
+     * The compression of the tar file.
+     */
+    enum Compression {
+        NONE,
+        GZIP,
+        ZSTD
+    }
+
+    private static final int REPRODUCIBLE_UMASK = 0022;
+
+    private static final int DEFAULT_FILE_MODE = 0644;
+
+    private static final int DEFAULT_DIR_MODE = 0755;
+
+    private static final int DEFAULT_ZSTD_LEVEL = 3;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int threads;
+
+    private String prefix = "";
+
+    private FileTime lastModifiedTime;
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * @param threads the number of threads used to compress the tar file
+     */
+    ImageTarArchiver(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1, but was " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * @param prefix the directory prefix of all entries, can be {@code null} or empty
+     */
+    void setPrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            this.prefix = "";
+        } else {
+            this.prefix = prefix.endsWith("/") ? prefix : prefix + '/';
+        }
+    }
+
+    /**
+     * @param compressionLevel the gzip level, from {@code 1} to {@code 9}, or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Use the given timestamp for all entries and remove group and other write permissions.
+     *
+     * @param lastModifiedTime the timestamp of all entries
+     */
+    void configureReproducibleBuild(FileTime lastModifiedTime) {
+        this.lastModifiedTime = lastModifiedTime;
+    }
+
+    /**
+     * Creates the tar file.
+     *
+     * @param tree the directories and files to archive
+     * @param destFile the tar file to create
+     * @param compression the compression of the tar file
+     * @throws IOException if a file can not be read or the tar file can not be written
+     */
+    void createArchive(ImageTree tree, File destFile, Compression compression) throws IOException {
+        try (TarArchiveOutputStream tarOut =
+                new TarArchiveOutputStream(compress(Files.newOutputStream(destFile.toPath()), compression))) {
+            tarOut.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tarOut.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+            int index = prefix.indexOf('/');
+            while (index >= 0) {
+                TarArchiveEntry entry = new TarArchiveEntry(prefix.substring(0, index + 1));
+                setAttributes(entry, null, DEFAULT_DIR_MODE);
+                tarOut.putArchiveEntry(entry);
+                tarOut.closeArchiveEntry();
+                index = prefix.indexOf('/', index + 1);
+            }
+
+            for (String name : tree.getEntries()) {
+                Path path = tree.getFile(name).toPath();
+                TarArchiveEntry entry;
+                if (tree.isDirectory(name)) {
+                    entry = new TarArchiveEntry(prefix + name + '/');
+                    setAttributes(entry, path, DEFAULT_DIR_MODE);
+                } else if (Files.isSymbolicLink(path)) {
+                    entry = new TarArchiveEntry(prefix + name, TarConstants.LF_SYMLINK);
+                    entry.setLinkName(Files.readSymbolicLink(path).toString());
+                    setAttributes(entry, path, 0777);
+                } else {
+                    entry = new TarArchiveEntry(prefix + name);
+                    entry.setSize(Files.size(path));
+                    setAttributes(entry, path, DEFAULT_FILE_MODE);
+                }
+
+                tarOut.putArchiveEntry(entry);
+                if (entry.getSize() > 0) {
+                    Files.copy(path, tarOut);
+                }
+                tarOut.closeArchiveEntry();
+            }
+            tarOut.finish();
+        }
+    }
+
+    private void setAttributes(TarArchiveEntry entry, Path path, int defaultMode) throws IOException {
+        int mode = path != null ? ImageTree.getPermissions(path, defaultMode) : defaultMode;
+        if (lastModifiedTime != null) {
+            mode &= ~REPRODUCIBLE_UMASK;
+        }
+        // keeps the file type bits set by the constructor
+        entry.setMode((entry.getMode() & ~07777) | mode);
+        entry.setUserId(0);
+        entry.setGroupId(0);
+        entry.setUserName("");
+        entry.setGroupName("");
+        if (lastModifiedTime != null) {
+            entry.setModTime(lastModifiedTime);
+        } else if (path != null) {
+            entry.setModTime(Files.getLastModifiedTime(path));
+        }
+    }
+
+    private OutputStream compress(OutputStream out, Compression compression) throws IOException {
+        switch (compression) {
+            case GZIP:
+                return new BufferedOutputStream(
+                        new ParallelGzipOutputStream(
+                                out, threads, compressionLevel, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE),
+                        BUFFER_SIZE);
+            case ZSTD:
+                try {
+                    return new BufferedOutputStream(Zstd.compress(out, threads), BUFFER_SIZE);
+                } catch (LinkageError e) {
+                    throw new IOException("Unable to load the native zstd library of zstd-jni: " + e, e);
+                }
+            default:
+                return new BufferedOutputStream(out, BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Only loaded for {@code tar.zst}, as loading {@link ZstdOutputStream} loads the native library of zstd-jni.
+     */
+    private static final class Zstd {
+        static OutputStream compress(OutputStream out, int threads) throws IOException {
+            ZstdOutputStream zstdOut = new ZstdOutputStream(out, DEFAULT_ZSTD_LEVEL);
+            // with at least one worker the result does not depend on the number of workers
+            zstdOut.setWorkers(threads);
+            return zstdOut;
+        }
+    }
+}
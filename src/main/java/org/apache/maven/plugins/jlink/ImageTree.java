@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The directories and files of a Run Time Image, collected once and shared by the archivers of all formats.
+ *
+ * <p>The entries are in the order of a depth first traversal using {@link File#list()}, and without the default
+ * excludes, the same way as the {@code DirectoryScanner} of plexus-utils collects them for the plexus archivers.</p>
+ */
+final class ImageTree {
+    /**
+     * Names excluded by the default excludes of plexus-utils. All of these are matched against a single path
+     * segment, directories matching them are not traversed.
+     */
+    private static final Pattern DEFAULT_EXCLUDES = Pattern.compile("(.*~|#.*#|\\.#.*|%.*%|\\._.*|CVS|\\.cvsignore"
+            + "|RCS|SCCS|vssver\\.scc|project\\.pj|\\.svn|\\.arch-ids|\\.bzr|\\.MySCMServerInfo|\\.DS_Store"
+            + "|\\.metadata|\\.hg|\\.git|\\.gitignore|BitKeeper|ChangeSet|_darcs|\\.darcsrepo|-darcs-backup.*"
+            + "|\\.darcs-temp-mail)");
+
+    private final File directory;
+
+    private final List<String> entries = new ArrayList<>();
+
+    private final List<String> directories = new ArrayList<>();
+
+    private final List<String> files = new ArrayList<>();
+
+    private final Set<String> directoryNames = new HashSet<>();
+
+    private ImageTree(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param directory the directory of the image
+     * @return the directories and files of the image
+     */
+    static ImageTree scan(File directory) {
+        ImageTree tree = new ImageTree(directory);
+        tree.scan(directory, "");
+        return tree;
+    }
+
+    private void scan(File parent, String relativeName) {
+        String[] names = parent.list();
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            if (DEFAULT_EXCLUDES.matcher(name).matches()) {
+                continue;
+            }
+            File file = new File(parent, name);
+            String childName = relativeName + name;
+            if (file.isDirectory() && !Files.isSymbolicLink(file.toPath())) {
+                entries.add(childName);
+                directories.add(childName);
+                directoryNames.add(childName);
+                scan(file, childName + '/');
+            } else if (file.isFile() || Files.isSymbolicLink(file.toPath())) {
+                entries.add(childName);
+                files.add(childName);
+            }
+        }
+    }
+
+    /**
+     * @return the directory of the image
+     */
+    File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the relative names of all directories and files, each directory before its content
+     */
+    List<String> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return the relative names of all directories
+     */
+    List<String> getDirectories() {
+        return Collections.unmodifiableList(directories);
+    }
+
+    /**
+     * @return the relative names of all files and symbolic links
+     */
+    List<String> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * @param relativeName the relative name of an entry
+     * @return true if the entry is a directory
+     */
+    boolean isDirectory(String relativeName) {
+        return directoryNames.contains(relativeName);
+    }
+
+    /**
+     * @param relativeName the relative name of an entry
+     * @return the file of the entry
+     */
+    File getFile(String relativeName) {
+        return new File(directory, relativeName);
+    }
+
+    /**
+     * @return the total size of the files, in bytes
+     */
+    long getSize() {
+        return files.stream().mapToLong(name -> getFile(name).length()).sum();
+    }
+
+    /**
+     * @param path a file, directory or symbolic link
+     * @param defaultMode the permissions to use if the file system does not support POSIX permissions
+     * @return the POSIX permissions of the path, {@code 0777} for symbolic links
+     */
+    static int getPermissions(Path path, int defaultMode) throws IOException {
+        if (Files.isSymbolicLink(path)) {
+            return 0777;
+        }
+        try {
+            int mode = 0;
+            for (PosixFilePermission permission : Files.getPosixFilePermissions(path)) {
+                mode |= 1 << (8 - permission.ordinal());
+            }
+            return mode;
+        } catch (UnsupportedOperationException e) {
+            return defaultMode;
+        }
+    }
+}
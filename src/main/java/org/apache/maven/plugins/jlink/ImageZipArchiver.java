@@ -0,0 +1,503 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.zip.ScatterZipOutputStream;
+import org.apache.commons.compress.archivers.zip.UnixStat;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntryRequest;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.parallel.InputStreamSupplier;
+
+/**
+ * Creates the zip file of a Run Time Image, compressing the entries on a configurable number of threads.
+ *
+ * <p>Each file is compressed by one of the threads into a temporary file, which is appended to the zip file in
+ * the order of the {@link ImageTree}. Only a few entries per thread are compressed ahead of the entry being
+ * written, so the number of open temporary files and deflaters does not depend on the size of the image.</p>
+ *
+ * <p>The entries are written in the same order and with the same attributes as by the plexus
+ * {@code ZipArchiver} used by {@link JLinkMojo} by default: all directories first, then all files, each in the
+ * order of the {@link ImageTree}. So if a reproducible timestamp is configured, the result is byte
+ * for byte identical.</p>
+ *
+ * <p>Unlike the plexus {@code ZipArchiver}, the compression can be chosen per entry: entries matching
+ * {@link #setStoredEntries(List) patterns} or compressing badly are stored uncompressed, all other entries are
+ * deflated with the {@link #setCompressionLevel(int) configured level}.</p>
+ *
+ * <p>In {@link #setIncremental(boolean) incremental} mode, the compressed data of entries whose size and CRC did
+ * not change is copied from the previous zip file. A small file next to the zip file records the compression
+ * level, so entries are only copied if they would be compressed the same way again.</p>
+ */
+class ImageZipArchiver {
+    /**
+     * The permissions removed from all entries of a reproducible archive.
+     */
+    private static final int REPRODUCIBLE_UMASK = 0022;
+
+    private static final int DEFAULT_FILE_MODE = 0644;
+
+    private static final int DEFAULT_DIR_MODE = 0755;
+
+    /**
+     * The number of bytes compressed to decide whether an entry is stored.
+     */
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    /**
+     * Entries are stored if their sample does not shrink below this percentage when deflated.
+     */
+    private static final int AUTO_STORE_RATIO = 90;
+
+    /**
+     * The suffix of the file next to the zip file which records the settings it has been created with.
+     */
+    private static final String SETTINGS_SUFFIX = ".settings";
+
+    /**
+     * The number of entries per thread which are compressed before they are written.
+     */
+    private static final int ENTRIES_AHEAD_PER_THREAD = 2;
+
+    private final int threads;
+
+    private String prefix = "";
+
+    private FileTime lastModifiedTime;
+
+    private List<PathMatcher> storedEntries = Collections.emptyList();
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    private boolean autoStore;
+
+    private boolean incremental;
+
+    private final AtomicInteger reusedEntries = new AtomicInteger();
+
+    /**
+     * @param threads the number of threads used to compress the entries
+     */
+    ImageZipArchiver(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1, but was " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * @param prefix the directory prefix of all entries, can be {@code null} or empty
+     */
+    void setPrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            this.prefix = "";
+        } else {
+            this.prefix = prefix.endsWith("/") ? prefix : prefix + '/';
+        }
+    }
+
+    /**
+     * Patterns of the entries to store uncompressed. Patterns containing a {@code /} are matched against the path
+     * of the entry relative to the image, others against its file name only. Both support the wildcards of
+     * {@link java.nio.file.FileSystem#getPathMatcher(String) glob} patterns.
+     *
+     * @param patterns the patterns, can be {@code null}
+     */
+    void setStoredEntries(List<String> patterns) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+            }
+        }
+        this.storedEntries = matchers;
+    }
+
+    /**
+     * @param compressionLevel the level used to deflate the entries, from {@code 0} to {@code 9}, or
+     *        {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION && (compressionLevel < 0 || compressionLevel > 9)) {
+            throw new IllegalArgumentException(
+                    "The compression level must be between 0 and 9, but was " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * @param autoStore store entries uncompressed if a sample of their content does not compress well
+     */
+    void setAutoStore(boolean autoStore) {
+        this.autoStore = autoStore;
+    }
+
+    /**
+     * Use the given timestamp for all entries and remove group and other write permissions, the same way as
+     * {@code AbstractArchiver.configureReproducibleBuild} does.
+     *
+     * @param lastModifiedTime the timestamp of all entries
+     */
+    void configureReproducibleBuild(FileTime lastModifiedTime) {
+        this.lastModifiedTime = FileTime.fromMillis(normalizeLastModifiedTime(lastModifiedTime.toMillis()));
+    }
+
+    /**
+     * @param incremental copy the compressed data of unchanged entries from the previous zip file instead of
+     *        compressing them again
+     */
+    void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * @return the number of entries copied from the previous zip file by the last {@link #createArchive(File, File)}
+     */
+    int getReusedEntries() {
+        return reusedEntries.get();
+    }
+
+    /**
+     * Creates the zip file.
+     *
+     * @param directory the directory to archive
+     * @param destFile the zip file to create
+     * @throws IOException if a file can not be read or the zip file can not be written
+     */
+    void createArchive(File directory, File destFile) throws IOException {
+        createArchive(ImageTree.scan(directory), destFile);
+    }
+
+    /**
+     * Creates the zip file.
+     *
+     * @param tree the directories and files to archive
+     * @param destFile the zip file to create
+     * @throws IOException if a file can not be read or the zip file can not be written
+     */
+    void createArchive(ImageTree tree, File destFile) throws IOException {
+        reusedEntries.set(0);
+
+        File settingsFile = new File(destFile.getPath() + SETTINGS_SUFFIX);
+        boolean canReuse =
+                incremental && destFile.isFile() && getSettings(destFile).equals(readSettings(settingsFile));
+        Files.deleteIfExists(settingsFile.toPath());
+
+        Path tempDir = Files.createTempDirectory(destFile.getParentFile().toPath(), destFile.getName());
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        ZipFile previousArchive = null;
+        try (ScatterZipOutputStream directoryEntries =
+                ScatterZipOutputStream.fileBased(Files.createTempFile(tempDir, "dirs", ".tmp").toFile())) {
+            if (canReuse) {
+                Path previousFile = Files.move(destFile.toPath(), tempDir.resolve("previous.zip"));
+                previousArchive = ZipFile.builder().setPath(previousFile).get();
+            }
+
+            Set<String> addedDirectories = new HashSet<>();
+            for (String name : tree.getDirectories()) {
+                addParentDirectories(prefix + name, directoryEntries, addedDirectories);
+                addDirectory(tree.getFile(name), prefix + name + '/', directoryEntries, addedDirectories);
+            }
+            for (String name : tree.getFiles()) {
+                addParentDirectories(prefix + name, directoryEntries, addedDirectories);
+            }
+
+            // the entries are written in the order of the tree as soon as they are compressed, only a few entries
+            // per thread are compressed ahead, as each holds a temporary file and a deflater until it is written
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(destFile.toPath()));
+                    ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(os)) {
+                zipOut.setEncoding("UTF8");
+                zipOut.setCreateUnicodeExtraFields(ZipArchiveOutputStream.UnicodeExtraFieldPolicy.NEVER);
+                zipOut.setMethod(ZipEntry.DEFLATED);
+                directoryEntries.writeTo(zipOut);
+                Deque<Future<EntryWriter>> entries = new ArrayDeque<>();
+                for (String name : tree.getFiles()) {
+                    if (entries.size() == threads * ENTRIES_AHEAD_PER_THREAD) {
+                        entries.removeFirst().get().writeTo(zipOut);
+                    }
+                    entries.addLast(addFile(tree.getFile(name), name, previousArchive, tempDir, executorService));
+                }
+                while (!entries.isEmpty()) {
+                    entries.removeFirst().get().writeTo(zipOut);
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof UncheckedIOException
+                        ? e.getCause().getCause()
+                        : e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException("Unable to compress the entries of " + destFile, cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while creating " + destFile, e);
+            }
+        } finally {
+            executorService.shutdownNow();
+            if (previousArchive != null) {
+                previousArchive.close();
+            }
+            deleteRecursively(tempDir);
+        }
+
+        if (incremental) {
+            Files.write(settingsFile.toPath(), getSettings(destFile).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void addParentDirectories(String name, ScatterZipOutputStream directoryEntries, Set<String> added)
+            throws IOException {
+        int index = name.indexOf('/');
+        while (index >= 0 && index < name.length() - 1) {
+            String parent = name.substring(0, index + 1);
+            if (!added.contains(parent)) {
+                addDirectory(null, parent, directoryEntries, added);
+            }
+            index = name.indexOf('/', index + 1);
+        }
+    }
+
+    private void addDirectory(File file, String name, ScatterZipOutputStream directoryEntries, Set<String> added)
+            throws IOException {
+        if (!added.add(name)) {
+            return;
+        }
+
+        ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        setTime(entry, file != null && file.exists() ? file.lastModified() : System.currentTimeMillis());
+        entry.setSize(0);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setCrc(0);
+        entry.setUnixMode(UnixStat.DIR_FLAG | (file != null ? getMode(file.toPath(), DEFAULT_DIR_MODE) : 0755));
+        directoryEntries.addArchiveEntry(ZipArchiveEntryRequest.createZipArchiveEntryRequest(
+                entry, () -> new ByteArrayInputStream(new byte[0])));
+    }
+
+    private Future<EntryWriter> addFile(
+            File file, String relativeName, ZipFile previousArchive, Path tempDir, ExecutorService executorService)
+            throws IOException {
+        Path path = file.toPath();
+        ZipArchiveEntry entry = new ZipArchiveEntry(prefix + relativeName);
+        setTime(entry, file.lastModified());
+
+        if (Files.isSymbolicLink(path)) {
+            entry.setMethod(ZipEntry.DEFLATED);
+            entry.setUnixMode(UnixStat.LINK_FLAG | getMode(path, 0777));
+            byte[] destination = Files.readSymbolicLink(path).toString().getBytes(StandardCharsets.UTF_8);
+            return executorService.submit(() -> compress(entry, () -> new ByteArrayInputStream(destination), tempDir));
+        }
+
+        entry.setUnixMode(UnixStat.FILE_FLAG | getMode(path, DEFAULT_FILE_MODE));
+        return executorService.submit(() -> {
+            boolean store = compressionLevel == Deflater.NO_COMPRESSION
+                    || isStoredEntry(relativeName)
+                    || (autoStore && !compressesWell(path));
+            entry.setMethod(store ? ZipEntry.STORED : ZipEntry.DEFLATED);
+
+            ZipArchiveEntry previousEntry = previousArchive != null ? previousArchive.getEntry(entry.getName()) : null;
+            if (previousEntry != null && isUnchanged(path, entry.getMethod(), previousEntry)) {
+                reusedEntries.incrementAndGet();
+                entry.setCrc(previousEntry.getCrc());
+                entry.setSize(previousEntry.getSize());
+                entry.setCompressedSize(previousEntry.getCompressedSize());
+                return zipOut -> {
+                    try (InputStream raw = previousArchive.getRawInputStream(previousEntry)) {
+                        zipOut.addRawArchiveEntry(entry, raw);
+                    }
+                };
+            }
+            return compress(entry, () -> openStream(path), tempDir);
+        });
+    }
+
+    private EntryWriter compress(ZipArchiveEntry entry, InputStreamSupplier content, Path tempDir)
+            throws IOException {
+        ScatterZipOutputStream compressed = ScatterZipOutputStream.fileBased(
+                Files.createTempFile(tempDir, "entry", ".tmp").toFile(), compressionLevel);
+        try {
+            compressed.addArchiveEntry(ZipArchiveEntryRequest.createZipArchiveEntryRequest(entry, content));
+        } catch (IOException | RuntimeException e) {
+            compressed.close();
+            throw e;
+        }
+        return zipOut -> {
+            try (ScatterZipOutputStream closeable = compressed) {
+                closeable.writeTo(zipOut);
+            }
+        };
+    }
+
+    /**
+     * @return true if the entry of the previous zip file has the same content, compressed the same way
+     */
+    private static boolean isUnchanged(Path path, int method, ZipArchiveEntry previousEntry) throws IOException {
+        if (previousEntry.getMethod() != method
+                || previousEntry.getSize() != Files.size(path)
+                || previousEntry.getCrc() == ZipArchiveEntry.CRC_UNKNOWN) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        try (InputStream is = Files.newInputStream(path)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue() == previousEntry.getCrc();
+    }
+
+    private boolean isStoredEntry(String relativeName) {
+        Path relativePath = Paths.get(relativeName);
+        Path fileName = relativePath.getFileName();
+        for (PathMatcher matcher : storedEntries) {
+            if (matcher.matches(relativePath) || matcher.matches(fileName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deflates the beginning of the file to decide whether compressing the whole file is worth it.
+     */
+    private boolean compressesWell(Path path) throws IOException {
+        byte[] sample = new byte[SAMPLE_SIZE];
+        int length = 0;
+        try (InputStream is = Files.newInputStream(path)) {
+            int read;
+            while (length < sample.length && (read = is.read(sample, length, sample.length - length)) != -1) {
+                length += read;
+            }
+        }
+        if (length == 0) {
+            return true;
+        }
+
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            deflater.setInput(sample, 0, length);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            long compressed = 0;
+            while (!deflater.finished()) {
+                compressed += deflater.deflate(buffer);
+            }
+            return compressed * 100 < (long) length * AUTO_STORE_RATIO;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void setTime(ZipArchiveEntry entry, long lastModified) {
+        long time = lastModifiedTime != null ? lastModifiedTime.toMillis() : lastModified;
+        // round up to the 2 second granularity of zip timestamps, like the plexus ZipArchiver
+        entry.setTime(time + 1999);
+    }
+
+    private int getMode(Path path, int defaultMode) throws IOException {
+        int mode = ImageTree.getPermissions(path, defaultMode);
+        return lastModifiedTime != null ? mode & ~REPRODUCIBLE_UMASK : mode;
+    }
+
+    private static InputStream openStream(Path path) {
+        try {
+            return Files.newInputStream(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Converts the timestamp so that the local time stored in the zip entries equals the UTC time, like
+     * {@code AbstractZipArchiver.normalizeLastModifiedTime}.
+     */
+    private static long normalizeLastModifiedTime(long time) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getDefault(), Locale.ROOT);
+        long normalized = Math.max(time, 50400000L);
+        calendar.setTimeInMillis(normalized);
+        return normalized - (calendar.get(Calendar.ZONE_OFFSET) + calendar.get(Calendar.DST_OFFSET));
+    }
+
+    /**
+     * @return the settings which influence the compressed data, and the zip file they were used for
+     */
+    private String getSettings(File destFile) {
+        return "compressionLevel=" + compressionLevel + "\nsize=" + destFile.length() + "\nlastModified="
+                + destFile.lastModified() + "\n";
+    }
+
+    private static String readSettings(File settingsFile) throws IOException {
+        if (!settingsFile.isFile()) {
+            return "";
+        }
+        return new String(Files.readAllBytes(settingsFile.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void deleteRecursively(Path directory) {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+
+    /**
+     * Writes an entry, compressed by one of the threads, to the zip file.
+     */
+    private interface EntryWriter {
+        void writeTo(ZipArchiveOutputStream zipOut) throws IOException;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.util.List;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Java Flight Recorder events of the plugin, to correlate its work with the rest of a Maven build.
+ *
+ * <p>Each event is created and {@link Event#begin() begun} before its work, and completed afterwards. The values of
+ * an event are only computed and the event is only committed if a recording is active which enables the event, so
+ * without a recording the events cost next to nothing.</p>
+ */
+final class JLinkEvents {
+    private static final String CATEGORY_MAVEN = "Maven";
+
+    private static final String CATEGORY_JLINK = "jlink Plugin";
+
+    private JLinkEvents() {}
+
+    /**
+     * The resolution of the modules of the project and its dependencies.
+     */
+    @Name("org.apache.maven.plugins.jlink.ModuleResolution")
+    @Label("Module Resolution")
+    @Category({CATEGORY_MAVEN, CATEGORY_JLINK})
+    static final class ModuleResolution extends Event {
+        @Label("Module Count")
+        int moduleCount;
+
+        void complete(ModuleGraph moduleGraph) {
+            end();
+            if (shouldCommit()) {
+                moduleCount = moduleGraph.getModuleNames().size();
+                commit();
+            }
+        }
+    }
+
+    /**
+     * A run of jlink.
+     */
+    @Name("org.apache.maven.plugins.jlink.JLinkRun")
+    @Label("jlink Run")
+    @Category({CATEGORY_MAVEN, CATEGORY_JLINK})
+    static final class JLinkRun extends Event {
+        @Label("Executor")
+        @Description("How jlink runs: in-process, toolchain-in-process, worker, fork or fork-argfile")
+        String executor;
+
+        @Label("Argument Count")
+        int argumentCount;
+
+        @Label("Exit Code")
+        int exitCode;
+
+        void complete(String executor, List<String> jlinkArgs, int exitCode) {
+            end();
+            if (shouldCommit()) {
+                this.executor = executor;
+                this.argumentCount = jlinkArgs.size();
+                this.exitCode = exitCode;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * The copying and filtering of the additional resources into an image.
+     */
+    @Name("org.apache.maven.plugins.jlink.ResourceFiltering")
+    @Label("Resource Filtering")
+    @Category({CATEGORY_MAVEN, CATEGORY_JLINK})
+    static final class ResourceFiltering extends Event {
+        @Label("Classifier")
+        String classifier;
+
+        void complete(String classifier) {
+            end();
+            if (shouldCommit()) {
+                this.classifier = classifier;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * The creation of an archive of an image.
+     */
+    @Name("org.apache.maven.plugins.jlink.ArchiveCreation")
+    @Label("Archive Creation")
+    @Category({CATEGORY_MAVEN, CATEGORY_JLINK})
+    static final class ArchiveCreation extends Event {
+        @Label("Format")
+        String format;
+
+        @Label("Bytes In")
+        @Description("The total size of the files of the image")
+        @DataAmount
+        long bytesIn;
+
+        @Label("Bytes Out")
+        @Description("The size of the archive")
+        @DataAmount
+        long bytesOut;
+
+        void complete(String format, ImageTree imageTree, File archive) {
+            end();
+            if (shouldCommit()) {
+                this.format = format;
+                this.bytesIn = imageTree.getSize();
+                this.bytesOut = archive.length();
+                commit();
+            }
+        }
+    }
+}
@@ -38,9 +38,7 @@ package org.apache.maven.plugins.jlink;
  */
 
 import java.io.File;
-import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.util.List;
 import java.util.Optional;
 import java.util.spi.ToolProvider;
@@ -56,21 +54,42 @@ import org.apache.maven.toolchain.Toolchain;
  * This way, no fork needs to be created.</p>
  */
 class JLinkExecutor extends AbstractJLinkToolchainExecutor {
+    /**
+     * jlink keeps state in static fields, concurrent runs in the same JVM fail.
+     */
+    private static final Object TOOL_PROVIDER_LOCK = new Object();
+
     private final ToolProvider toolProvider;
 
+    private boolean toolchainInProcess;
+
     JLinkExecutor(Toolchain toolchain, Log log) {
         super(toolchain, log);
         this.toolProvider = getJLinkExecutable();
     }
 
+    /**
+     * @param toolchainInProcess link the {@code jmods} of a toolchain JDK with the jlink of the running JDK if both
+     *            have the same version, see {@link #isToolchainLinkableInProcess()}
+     */
+    void setToolchainInProcess(boolean toolchainInProcess) {
+        this.toolchainInProcess = toolchainInProcess;
+    }
+
     protected final ToolProvider getJLinkExecutable() {
         return ToolProvider.findFirst("jlink").orElseThrow(() -> new IllegalStateException("No jlink tool found."));
     }
 
     @Override
     public int executeJlink(List<String> jlinkArgs) throws MojoExecutionException {
+        String executor = "in-process";
         if (getToolchain().isPresent()) {
-            return super.executeJlink(jlinkArgs);
+            if (!toolchainInProcess || !isToolchainLinkableInProcess()) {
+                return super.executeJlink(jlinkArgs);
+            }
+            getLog().info("Toolchain in maven-jlink-plugin: linking the jmods of the toolchain in-process with jlink "
+                    + Runtime.version());
+            executor = "toolchain-in-process";
         }
 
         if (getLog().isDebugEnabled()) {
@@ -78,54 +97,55 @@ class JLinkExecutor extends AbstractJLinkToolchainExecutor {
             getLog().debug(this.toolProvider.name() + " " + jlinkArgs);
         }
 
-        try (StringWriter strErr = new StringWriter();
-                PrintWriter err = new PrintWriter(strErr);
-                StringWriter strOut = new StringWriter();
-                PrintWriter out = new PrintWriter(strOut)) {
-            int exitCode = this.toolProvider.run(out, err, jlinkArgs.toArray(new String[0]));
-            out.flush();
-            err.flush();
-
-            String outAsString = strOut.toString();
-            String output = outAsString.isBlank() ? null : '\n' + outAsString.trim();
-
-            if (exitCode != 0) {
-                if (output != null && !output.isBlank()) {
-                    // Reconsider to use WARN / ERROR ?
-                    //  getLog().error( output );
-                    for (String outputLine : output.split("\n")) {
-                        getLog().error(outputLine);
-                    }
-                }
-
-                StringBuilder msg = new StringBuilder("\nExit code: ");
-                msg.append(exitCode);
-                String errAsString = strErr.toString();
-                if (errAsString != null && !errAsString.isBlank()) {
-                    msg.append(" - ").append(errAsString);
-                }
-                msg.append('\n');
-                msg.append("Command line was: ")
-                        .append(this.toolProvider.name())
-                        .append(' ')
-                        .append(jlinkArgs)
-                        .append('\n')
-                        .append('\n');
-
-                throw new MojoExecutionException(msg.toString());
+        JLinkOutputConsumer output = new JLinkOutputConsumer(getLog()::info);
+        JLinkOutputConsumer errorOutput = new JLinkOutputConsumer(getLog()::warn);
+        JLinkEvents.JLinkRun event = new JLinkEvents.JLinkRun();
+        event.begin();
+        int exitCode;
+        try (PrintWriter err = errorOutput.asWriter();
+                PrintWriter out = output.asWriter()) {
+            synchronized (TOOL_PROVIDER_LOCK) {
+                exitCode = this.toolProvider.run(out, err, jlinkArgs.toArray(new String[0]));
             }
+        }
+        event.complete(executor, jlinkArgs, exitCode);
 
-            if (output != null && !output.isBlank()) {
-                // getLog().info( output );
-                for (String outputLine : output.split("\n")) {
-                    getLog().info(outputLine);
-                }
-            }
+        return handleResult(exitCode, output, errorOutput, this.toolProvider.name() + " " + jlinkArgs);
+    }
+
+    @Override
+    Optional<Runtime.Version> getJlinkVersion() {
+        if (getToolchain().isPresent()) {
+            return super.getJlinkVersion();
+        }
+        return Optional.of(Runtime.version());
+    }
+
+    /**
+     * @return the jdeps executable of the toolchain, empty without a toolchain to run jdeps of the running JDK
+     *         in-process
+     */
+    @Override
+    Optional<File> getJdepsExecutable() {
+        if (getToolchain().isPresent()) {
+            return super.getJdepsExecutable();
+        }
+        return Optional.empty();
+    }
 
-            return exitCode;
-        } catch (IOException e) {
-            throw new MojoExecutionException("Unable to execute jlink command: " + e.getMessage(), e);
+    /**
+     * jlink falls back to the {@code jmods} of its own JDK if the module path has no {@code java.base}, but only
+     * after it applied the {@code --limit-modules}, so limited JDK modules are not found.
+     *
+     * @return the {@code jmods} folder of the running JDK if jlink runs in-process, empty if it runs with a toolchain
+     *         or the running JDK has no {@code jmods}
+     */
+    Optional<File> getInProcessJmodsFolder() {
+        File jmods = new File(System.getProperty("java.home"), JMODS);
+        if (getToolchain().isPresent() || !jmods.isDirectory()) {
+            return Optional.empty();
         }
+        return Optional.of(jmods);
     }
 
     @Override
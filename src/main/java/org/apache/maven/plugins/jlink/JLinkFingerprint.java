@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.model.Resource;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * A SHA-256 digest over everything which influences the result of a jlink execution.
+ *
+ * <p>Every value is added together with a key, so that moving a value from one parameter to another
+ * results in a different fingerprint.</p>
+ */
+class JLinkFingerprint {
+    private final MessageDigest digest;
+
+    private final byte[] buffer = new byte[64 * 1024];
+
+    JLinkFingerprint() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM.", e);
+        }
+    }
+
+    /**
+     * Adds a single value.
+     *
+     * @param key the name of the value
+     * @param value the value, can be {@code null}
+     * @return this fingerprint
+     */
+    JLinkFingerprint add(String key, String value) {
+        update(key);
+        update(value == null ? "\u0000" : value);
+        return this;
+    }
+
+    /**
+     * Adds a list of values, keeping their order.
+     *
+     * @param key the name of the values
+     * @param values the values, can be {@code null}
+     * @return this fingerprint
+     */
+    JLinkFingerprint add(String key, Collection<String> values) {
+        update(key);
+        if (values == null) {
+            update("\u0000");
+        } else {
+            update(Integer.toString(values.size()));
+            values.forEach(this::update);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the content of a file, or of all files below a directory.
+     *
+     * @param key the name of the file
+     * @param file the file or directory
+     * @return this fingerprint
+     * @throws IOException if a file can not be read
+     */
+    JLinkFingerprint addContent(String key, File file) throws IOException {
+        update(key);
+        for (Path path : listFiles(file)) {
+            update(relativeName(file, path));
+            try (InputStream is = Files.newInputStream(path)) {
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds the names, sizes and modification times of a file, or of all files below a directory.
+     * This is much cheaper than {@link #addContent(String, File)} and good enough for files which are
+     * not expected to change their content in place, like the {@code jmods} of a JDK.
+     *
+     * @param key the name of the file
+     * @param file the file or directory
+     * @return this fingerprint
+     * @throws IOException if the attributes of a file can not be read
+     */
+    JLinkFingerprint addMetadata(String key, File file) throws IOException {
+        update(key);
+        for (Path path : listFiles(file)) {
+            update(relativeName(file, path));
+            update(Long.toString(Files.size(path)));
+            update(Long.toString(Files.getLastModifiedTime(path).toMillis()));
+        }
+        return this;
+    }
+
+    /**
+     * Adds the configuration and the content of resources. The content of filtered resources depends on the project,
+     * so its id and properties are added for them as well.
+     *
+     * @param resources the resources, can be {@code null}
+     * @param project the project which filters the resources
+     * @return this fingerprint
+     * @throws IOException if a file of a resource can not be read
+     */
+    JLinkFingerprint addResources(Collection<Resource> resources, MavenProject project) throws IOException {
+        if (resources == null) {
+            return this;
+        }
+        for (Resource resource : resources) {
+            add("targetPath", resource.getTargetPath())
+                    .add("filtering", resource.getFiltering())
+                    .add("includes", resource.getIncludes())
+                    .add("excludes", resource.getExcludes());
+            if (resource.getDirectory() != null) {
+                addContent("resource", new File(resource.getDirectory()));
+            }
+            if (Boolean.parseBoolean(resource.getFiltering())) {
+                add("project", project.getId()).add("properties", String.valueOf(project.getProperties()));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Replaces the values of the arguments which contain paths specific to the project. The content of the modules
+     * is part of the fingerprint anyway.
+     *
+     * @param jlinkArgs the arguments passed to jlink
+     * @return the arguments without project specific paths
+     */
+    static List<String> withoutProjectPaths(List<String> jlinkArgs) {
+        List<String> result = new ArrayList<>(jlinkArgs);
+        for (int i = 0; i < result.size() - 1; i++) {
+            String arg = result.get(i);
+            if ("--output".equals(arg) || "--module-path".equals(arg)) {
+                result.set(i + 1, "");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the hex encoded digest, this fingerprint can not be used anymore afterwards
+     */
+    String toHex() {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads a fingerprint previously stored with {@link #write(File, String)}.
+     *
+     * @param file the fingerprint file
+     * @return the stored fingerprint, or empty if the file does not exist or can not be read
+     */
+    static Optional<String> read(File file) {
+        if (!file.isFile()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    static void write(File file, String fingerprint) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), fingerprint.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void update(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static List<Path> listFiles(File file) throws IOException {
+        if (!file.exists()) {
+            return List.of();
+        }
+        if (!file.isDirectory()) {
+            return List.of(file.toPath());
+        }
+        try (Stream<Path> paths = Files.walk(file.toPath())) {
+            return paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static String relativeName(File base, Path path) {
+        return base.toPath().relativize(path).toString().replace(File.separatorChar, '/');
+    }
+}
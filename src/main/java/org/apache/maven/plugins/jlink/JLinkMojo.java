@@ -41,20 +41,26 @@ import javax.inject.Inject;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.attribute.FileTime;
-import java.time.Instant;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.maven.archiver.MavenArchiver;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -72,8 +78,6 @@ import org.apache.maven.toolchain.Toolchain;
 import org.apache.maven.toolchain.ToolchainManager;
 import org.apache.maven.toolchain.ToolchainPrivate;
 import org.apache.maven.toolchain.java.JavaToolchainImpl;
-import org.codehaus.plexus.archiver.ArchiverException;
-import org.codehaus.plexus.archiver.zip.ZipArchiver;
 import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor;
 import org.codehaus.plexus.languages.java.jpms.LocationManager;
 import org.codehaus.plexus.languages.java.jpms.ResolvePathsRequest;
@@ -90,8 +94,7 @@ import static java.util.Collections.singletonMap;
  * @author Karl Heinz Marbaise <a href="mailto:khmarbaise@apache.org">khmarbaise@apache.org</a>
  */
 @Mojo(name = "jlink", requiresDependencyResolution = ResolutionScope.RUNTIME, defaultPhase = LifecyclePhase.PACKAGE)
-public class JLinkMojo extends AbstractJLinkMojo {
-
+public class JLinkMojo extends AbstractJLinkMojo implements Cloneable {
     /**
      * <p>
      * Specify the requirements for this jdk toolchain. This overrules the toolchain selected by the
@@ -213,6 +216,17 @@ public class JLinkMojo extends AbstractJLinkMojo {
     @Parameter
     private List<String> addModules;
 
+    /**
+     * Add only the module of the project, the {@link #addModules} and the modules of the launchers as root modules,
+     * and leave out the modules of the dependencies which they do not require, directly or indirectly. Without it,
+     * every named module of the dependencies is a root module. Modules which are only used as service providers have
+     * to be added with {@link #addModules}.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean minimalRootModules;
+
     /**
      * Define the plugin module path to be used. There can be defined multiple entries separated by either {@code ;} or
      * {@code :}. The jlink command line equivalent is: <code>--plugin-module-path &lt;modulepath&gt;</code>
@@ -252,12 +266,54 @@ public class JLinkMojo extends AbstractJLinkMojo {
     @Parameter
     private List<String> modulePaths;
 
+    /**
+     * Pass only the modules of the image on the <code>--module-path</code>, so jlink does not scan the other jar files
+     * of the dependencies and the other jmod files of the JDK. The modules are resolved before jlink runs, and the
+     * module path is a directory of symbolic links to their files, {@code maven-jlink-module-path} or
+     * {@code maven-jlink-module-path-<classifier>} in the build directory. If the links can not be created, the full
+     * module path is used.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean pruneModulePath;
+
     /**
      * Add the option <code>--bind-services</code> or not.
      */
     @Parameter(defaultValue = "false")
     private boolean bindServices;
 
+    /**
+     * Bind only the providers of the services which the modules of the project and its dependencies use, instead
+     * of all providers on the module path and in the JDK like {@link #bindServices}. For the services the modules of
+     * the JDK use, like <code>java.sql.Driver</code>, the providers on the module path are bound as well. The
+     * providers are added to the modules to add, and the modules which <code>--bind-services</code> would add in
+     * addition are logged with their size. An image of a variant which sets {@link #bindServices} binds all services.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean bindUsedServices;
+
+    /**
+     * The services bound by {@link #bindUsedServices}, like {@code java.sql.Driver} or {@code org.example.spi.*},
+     * where {@code *} matches any number of characters. All used services are bound if none are given.
+     *
+     * @since 3.3.1
+     */
+    @Parameter
+    private List<String> bindServicesIncludes;
+
+    /**
+     * The services not bound by {@link #bindUsedServices}, like {@code java.sql.Driver} or
+     * {@code org.example.spi.*}, where {@code *} matches any number of characters.
+     *
+     * @since 3.3.1
+     */
+    @Parameter
+    private List<String> bindServicesExcludes;
+
     /**
      * You can disable a plugin by using this option. <code>--disable-plugin pluginName</code>.
      */
@@ -389,6 +445,374 @@ public class JLinkMojo extends AbstractJLinkMojo {
     @Parameter(defaultValue = "")
     private String zipDirPrefix;
 
+    /**
+     * Skip jlink if nothing changed since the previous execution.
+     *
+     * <p>A fingerprint of all inputs (the jlink arguments, the content of the modules on the module path, the
+     * {@code jmods} of the JDK, the JDK itself, the {@link #additionalResources}, {@link #zipDirPrefix} and
+     * {@link #outputTimestamp}) is stored next to the Run Time Image. If the fingerprint of the next execution
+     * is the same and the image and zip file still exist, they are attached again without running jlink and
+     * without the analysis of the modules for {@link #computeJdkModules}, {@link #bindUsedServices} and
+     * {@link #pruneModulePath}.</p>
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * Store the Run Time Image and its zip file in a cache which is shared by all projects and builds using the
+     * same {@link #imageCacheDirectory}, and restore them from there instead of running jlink again.
+     *
+     * <p>The cache key is a digest of the same inputs as used by {@link #incremental}, except for the paths
+     * which are specific to the project. So projects linking the same modules with the same options share their
+     * images.</p>
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean imageCache;
+
+    /**
+     * The directory of the image cache.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "${settings.localRepository}/.cache/maven-jlink-plugin")
+    private File imageCacheDirectory;
+
+    /**
+     * The maximum size of the image cache in megabytes. If the cache grows beyond this size, the least recently
+     * used images are deleted.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "4096")
+    private long imageCacheMaxSize;
+
+    /**
+     * Restore images from the image cache by creating hard links instead of copying the files. This is faster and
+     * saves disk space, but the restored files must not be modified afterwards. The zip file of the image is always
+     * copied. Falls back to copying the files if the file system does not support hard links.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean imageCacheHardLinks;
+
+    /**
+     * Cache the module descriptors of the dependencies in {@link #moduleDescriptorCacheFile}, so that unchanged
+     * jar files do not have to be opened and parsed on every build. A jar file is considered unchanged if its
+     * absolute path, size and modification time are the same, and if {@link #moduleDescriptorCacheVerifyContent}
+     * is set, the digest of its content as well.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean moduleDescriptorCache;
+
+    /**
+     * The file of the module descriptor cache. The entries are keyed by absolute paths, so the file can be shared
+     * by all projects.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "${settings.localRepository}/.cache/maven-jlink-plugin/module-descriptors.txt")
+    private File moduleDescriptorCacheFile;
+
+    /**
+     * Link the automatic modules of the dependencies, which are ignored otherwise, by converting them into named
+     * modules: {@code jdeps --generate-module-info} generates the module descriptor of each jar file from the
+     * analysis of its classes, and a copy of the jar file with the compiled descriptor is linked instead. The copies
+     * are kept in {@link #synthesizedModulesDirectory}, keyed by the digest of the jar file. A jar file whose
+     * descriptor can not be generated, for example because of a split package, is still ignored with a warning.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean synthesizeModuleDescriptors;
+
+    /**
+     * The directory of the jar files converted with {@link #synthesizeModuleDescriptors}. The copies are keyed by
+     * the content of the jar files, so the directory can be shared by all projects.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "${settings.localRepository}/.cache/maven-jlink-plugin/modules")
+    private File synthesizedModulesDirectory;
+
+    /**
+     * Also compare the SHA-256 digest of the content of a jar file before using its cached module descriptor. This
+     * detects jar files which have been replaced keeping their size and modification time, but reads every jar
+     * file on each build.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean moduleDescriptorCacheVerifyContent;
+
+    /**
+     * The number of threads used to compress the entries of the zip file. With the default value {@code 0} the
+     * zip file is created by the plexus {@code ZipArchiver}, which uses one thread per available processor. Any
+     * other value limits the number of threads, for example to leave processors to other modules of a parallel
+     * build. The zip file is identical in both cases.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "0")
+    private int archiverThreads;
+
+    /**
+     * Entries of the zip file which are stored uncompressed, for example because they are compressed already.
+     * Patterns containing a {@code /} are matched against the path of the entry in the image, others against the
+     * file name only. Both may use the wildcards {@code *}, {@code **} and {@code ?}.
+     *
+     * <pre>
+     * &lt;archiveStoredEntries&gt;
+     *   &lt;archiveStoredEntry&gt;lib/modules&lt;/archiveStoredEntry&gt;
+     *   &lt;archiveStoredEntry&gt;*.so&lt;/archiveStoredEntry&gt;
+     *   &lt;archiveStoredEntry&gt;*.jar&lt;/archiveStoredEntry&gt;
+     * &lt;/archiveStoredEntries&gt;
+     * </pre>
+     *
+     * <p>Storing {@code lib/modules} saves most of the archiving time if the image is created with
+     * {@code <compress>zip-6</compress>} or higher, and makes extracting the zip file faster.</p>
+     *
+     * @since 3.3.1
+     */
+    @Parameter
+    private List<String> archiveStoredEntries;
+
+    /**
+     * The level from {@code 0} (none) to {@code 9} (best) used to deflate the entries of the zip file which are
+     * not stored. If not set, the default level of {@code java.util.zip.Deflater} is used.
+     *
+     * @since 3.3.1
+     */
+    @Parameter
+    private Integer archiveCompressionLevel;
+
+    /**
+     * Store entries of the zip file uncompressed if deflating the first 64 KiB of their content saves less than
+     * 10%. Useful if the image contains compressed files which are not known in advance.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean archiveAutoStore;
+
+    /**
+     * Copy the compressed data of entries which did not change from the zip file of the previous build instead of
+     * compressing them again. An entry is unchanged if its size and CRC are the same and it would be compressed
+     * with the same method and level. The zip file is the same as without this option.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean incrementalArchive;
+
+    /**
+     * The formats of the archives created from the Run Time Image: {@code zip}, {@code tar}, {@code tar.gz} and
+     * {@code tar.zst}. The zip file is always created, as it is the artifact of the {@code jlink} packaging. The
+     * other archives are attached with their format as type, using the same classifier.
+     *
+     * <p>The tar files keep the POSIX permissions and symbolic links of the image, and use the same
+     * {@link #zipDirPrefix} and {@link #outputTimestamp} as the zip file. {@code tar.gz} and {@code tar.zst} are
+     * compressed on several threads, see {@link #archiverThreads}. {@code tar.gz} uses the
+     * {@link #archiveCompressionLevel}. The image is scanned once for all archives, but each archive reads the files
+     * of the image again. The native library of zstd-jni is only loaded for {@code tar.zst}.</p>
+     *
+     * @since 3.3.1
+     */
+    @Parameter
+    private List<String> archiveFormats;
+
+    /**
+     * Additional Run Time Images created by this execution. Each variant has its own classifier and overrides some
+     * of the parameters {@code stripDebug}, {@code compress}, {@code launcher}, {@code launchers},
+     * {@code addOptions}, {@code noHeaderFiles}, {@code noManPages}, {@code bindServices}, {@code limitModules},
+     * {@code includeLocales} and {@code additionalResources}, all other parameters are inherited.
+     *
+     * <pre>
+     * &lt;variants&gt;
+     *   &lt;variant&gt;
+     *     &lt;classifier&gt;debug&lt;/classifier&gt;
+     *     &lt;stripDebug&gt;false&lt;/stripDebug&gt;
+     *   &lt;/variant&gt;
+     * &lt;/variants&gt;
+     * </pre>
+     *
+     * <p>The modules and the toolchain are resolved only once for all images. The images are linked and archived
+     * concurrently, see {@link #variantParallelism}, each one in its own output directory like for any other
+     * {@link #classifier}.</p>
+     *
+     * @since 3.3.1
+     */
+    @Parameter
+    private List<Variant> variants;
+
+    /**
+     * The maximum number of images linked at the same time if {@link #variants} are configured. With the default
+     * value {@code 0}, one image per available processor is linked at the same time. Note that jlink can not run
+     * concurrently in the same JVM, so without a toolchain only the other steps of the images run concurrently.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "0")
+    private int variantParallelism;
+
+    /**
+     * If a toolchain is used, run jlink in a long-lived JVM of the toolchain instead of forking a new jlink process
+     * for each execution. The JVM is started on first use and reused by all executions of the plugin in the same
+     * Maven session. It is stopped at the end of the session if the plugin is declared with
+     * {@code <extensions>true</extensions>}, otherwise when Maven exits. This saves the startup and warm-up of a JVM
+     * per execution, for example in reactors with many images. Requires a toolchain JDK 11 or later, with older JDKs
+     * jlink is forked as before.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean jlinkWorker;
+
+    /**
+     * If a toolchain is used, run jlink in-process instead of forking it, provided the toolchain JDK has the same
+     * feature and interim version as the JDK running Maven, for example both 21.0.x, and contains {@code jmods}.
+     * The {@code jmods} of the toolchain JDK are linked with the jlink of the JDK running Maven, otherwise jlink of
+     * the toolchain is forked, or run in the {@link #jlinkWorker}.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean toolchainInProcess;
+
+    /**
+     * If a toolchain is used and jlink is forked, start the jlink executable directly with its arguments in an
+     * {@code @argfile} in the build directory, instead of through {@code /bin/sh -c} or {@code cmd.exe /X /C} with
+     * all arguments on the command line. This saves a shell process per execution, and long module paths can not
+     * exceed the maximum length of a command line. The {@code @argfile} is kept if {@link #verbose} or debug logging
+     * is enabled.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean jlinkArgFile;
+
+    /**
+     * Generate the default class data sharing (CDS) archive of the image, {@code lib/server/classes.jsa}, which the
+     * JVM of the image uses to start faster. With a JDK 18 or later jlink generates it with
+     * {@code --generate-cds-archive}, with older JDKs the image dumps it with {@code bin/java -Xshare:dump} after
+     * jlink and the {@link #additionalResources}. The image must be linked for the platform running the build.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean cdsArchive;
+
+    /**
+     * The name of a {@link #launcher} of the image to create an AppCDS archive {@code lib/<name>.jsa} for. The main
+     * class of the launcher runs once with the {@link #appCdsTrainingArguments} in the directory of the image, and the
+     * classes it loads are dumped on exit, on top of the default CDS archive, which is generated as with
+     * {@link #cdsArchive}. The launcher scripts pass the archive to the JVM with {@code -XX:SharedArchiveFile}.
+     * Requires a JDK 13 or later.
+     *
+     * @since 3.3.1
+     */
+    @Parameter
+    private String appCdsLauncher;
+
+    /**
+     * The arguments of the training run for the {@link #appCdsLauncher}. The training run should load the classes
+     * of a typical start of the application and exit.
+     *
+     * @since 3.3.1
+     */
+    @Parameter
+    private List<String> appCdsTrainingArguments;
+
+    /**
+     * The name of a {@link #launcher} of the image to order the classes in {@code lib/modules} of the image by. The
+     * image is linked once, the main class of the launcher runs with the {@link #orderResourcesTrainingArguments}
+     * in the directory of the image and logs the classes it loads, and the image is linked again with the classes in
+     * the order of loading, with jlink's {@code --order-resources}. The classes needed at startup are then close to
+     * each other, so the JVM of the image reads fewer pages until the main class runs.
+     *
+     * <p>The order is stored in {@code maven-jlink-order-resources.txt}, or
+     * {@code maven-jlink-order-resources-<classifier>.txt} for a {@link #classifier}, in the build directory, and
+     * reused without a training run until the modules of the image, the JDK, the launcher or the training arguments
+     * change. After a training run the time until the main class is loaded and, on Linux, the page faults of the
+     * launcher with and without the order are measured, logged and written to the {@link #buildReport}. Note that
+     * the training run takes place before the {@link #additionalResources} are copied into the image.</p>
+     *
+     * @since 3.3.1
+     */
+    @Parameter
+    private String orderResourcesLauncher;
+
+    /**
+     * The arguments of the training run for the {@link #orderResourcesLauncher}. The training run should start the
+     * application like a typical start and exit.
+     *
+     * @since 3.3.1
+     */
+    @Parameter
+    private List<String> orderResourcesTrainingArguments;
+
+    /**
+     * Compute the modules of the JDK which the classes of the project and its dependencies actually use, with
+     * {@code jdeps --print-module-deps}, and link only them and the modules required by the module descriptors.
+     * JDK modules of {@link #addModules} which the classes do not use are removed, the used ones are added, and
+     * unless {@link #limitModules} are configured, the modules are limited to the modules of the project and its
+     * dependencies and the used JDK modules, so {@link #bindServices} does not bind the providers of other JDK
+     * modules either. The removed modules are logged. The result is stored in {@code maven-jlink-jdk-modules.txt}
+     * in the build directory and reused until a module or the JDK changes.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean computeJdkModules;
+
+    /**
+     * Modules of the JDK to link in addition to the ones computed with {@link #computeJdkModules}, because the
+     * application only uses them by reflection or the {@code ServiceLoader}, which the bytecode analysis does not
+     * see, like {@code jdk.crypto.ec} or {@code jdk.localedata}.
+     *
+     * @since 3.3.1
+     */
+    @Parameter
+    private List<String> jdkModuleHints;
+
+    /**
+     * The JDK modules computed with {@link #computeJdkModules}, including the {@link #jdkModuleHints}.
+     */
+    private Set<String> computedJdkModules;
+
+    /**
+     * The named modules on the module path, to bind the services with {@link #bindUsedServices}.
+     */
+    private ModuleGraph moduleGraph;
+
+    /**
+     * The fingerprint of the inputs of the image, written after it is linked, see {@link #incremental}.
+     */
+    private String imageFingerprint;
+
+    /**
+     * Write a JSON report of the execution to the build directory: the durations of the phases, like resolving the
+     * modules, running jlink, copying the additional resources and creating the archives, the number and size of the
+     * modules, and the size and number of files of the image and the size of the archive. The report is named
+     * {@code maven-jlink-report.json}, or {@code maven-jlink-report-<classifier>.json} for a {@link #classifier}. If
+     * the report of a previous build exists, the new values are compared with it in the build log.
+     *
+     * @since 3.3.1
+     */
+    @Parameter(defaultValue = "false")
+    private boolean buildReport;
+
+    /**
+     * The durations and sizes of the image of this execution, see {@link #buildReport}.
+     */
+    private JLinkReport report = new JLinkReport();
+
     /**
      * Convenience interface for plugins to add or replace artifacts and resources on projects.
      */
@@ -398,68 +822,252 @@ public class JLinkMojo extends AbstractJLinkMojo {
 
     private final LocationManager locationManager;
 
-    /**
-     * The JAR archiver needed for archiving the environments.
-     */
-    private final ZipArchiver zipArchiver = new ZipArchiver();
+    private final JLinkWorkerPool workerPool;
 
     @Inject
     public JLinkMojo(
             MavenProjectHelper projectHelper,
             ToolchainManager toolchainManager,
             MavenResourcesFiltering mavenResourcesFiltering,
-            LocationManager locationManager) {
+            LocationManager locationManager,
+            JLinkWorkerPool workerPool) {
         super(toolchainManager);
         this.mavenResourcesFiltering = mavenResourcesFiltering;
         this.projectHelper = projectHelper;
         this.locationManager = locationManager;
+        this.workerPool = workerPool;
     }
 
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         failIfParametersAreNotInTheirValidValueRanges();
 
-        setOutputDirectoryImage();
-
-        ifOutputDirectoryExistsDelteIt();
+        // the variants inherit the parameters before the output directory depends on the classifier
+        List<JLinkMojo> images = new ArrayList<>();
+        images.add(this);
+        if (variants != null) {
+            for (Variant variant : variants) {
+                images.add(forVariant(variant));
+            }
+        }
+        for (JLinkMojo image : images) {
+            image.setOutputDirectoryImage();
+        }
 
+        // resolve the toolchain and the modules only once for all images
         JLinkExecutor jLinkExec = getJlinkExecutor();
+        if (jlinkWorker) {
+            jLinkExec.setWorkerPool(workerPool);
+        }
+        jLinkExec.setToolchainInProcess(toolchainInProcess);
+        if (jlinkArgFile) {
+            jLinkExec.setArgFileDirectory(buildDirectory);
+        }
+        long resolutionStart = System.nanoTime();
+        JLinkEvents.ModuleResolution resolutionEvent = new JLinkEvents.ModuleResolution();
+        resolutionEvent.begin();
+        int javaVersion = getTargetJavaVersion(jLinkExec);
+        ModuleGraph moduleGraph = getModuleGraph(javaVersion);
+        resolutionEvent.complete(moduleGraph);
+        long resolutionNanos = System.nanoTime() - resolutionStart;
+        for (JLinkMojo image : images) {
+            image.report.addDuration("getModulePathElements", resolutionNanos);
+        }
+        Map<String, File> modulePathElements = minimalRootModules
+                ? getRequiresClosure(moduleGraph, images)
+                : moduleGraph.getModulePathElements();
+        for (Entry<String, File> item : modulePathElements.entrySet()) {
+            getLog().info(" -> module: " + item.getKey() + " ( "
+                    + item.getValue().getPath() + " )");
+        }
+
+        // The jmods directory of the JDK
+        Optional<File> jmodsFolder = jLinkExec.getJmodsFolder(this.sourceJdkModules);
+        if (!jmodsFolder.isPresent() && (computeJdkModules || pruneModulePath)) {
+            // both limit the JDK modules jlink finds on the module path
+            jmodsFolder = jLinkExec.getInProcessJmodsFolder();
+        }
+
+        // the analysis of the modules below is not needed for images which are up to date
+        List<JLinkMojo> outdatedImages = new ArrayList<>();
+        for (JLinkMojo image : images) {
+            if (!image.attachIfUpToDate(modulePathElements, jmodsFolder)) {
+                outdatedImages.add(image);
+            }
+        }
+        if (outdatedImages.isEmpty()) {
+            return;
+        }
+
+        if (computeJdkModules) {
+            long analysisStart = System.nanoTime();
+            Set<String> jdkModules = computeJdkModules(modulePathElements, jLinkExec, javaVersion);
+            long analysisNanos = System.nanoTime() - analysisStart;
+            for (JLinkMojo image : outdatedImages) {
+                image.computedJdkModules = jdkModules;
+                image.report.addDuration("computeJdkModules", analysisNanos);
+            }
+        }
+
+        for (JLinkMojo image : outdatedImages) {
+            image.moduleGraph = moduleGraph;
+        }
+        if (outdatedImages.size() == 1) {
+            outdatedImages.get(0).linkImage(jLinkExec, modulePathElements, jmodsFolder);
+        } else {
+            linkImagesConcurrently(outdatedImages, jLinkExec, modulePathElements, jmodsFolder);
+        }
+    }
+
+    /**
+     * Attaches the image as it is if it is {@link #incremental} and the fingerprint of its inputs did not change
+     * since the last execution. The fingerprint covers the configuration, the JDK and the files of the modules, so it
+     * is checked before the modules are analyzed and linked.
+     *
+     * @return true if the image is up to date
+     */
+    private boolean attachIfUpToDate(Map<String, File> modulePathElements, Optional<File> jmodsFolder)
+            throws MojoExecutionException, MojoFailureException {
+        if (!incremental) {
+            return false;
+        }
+        try (JLinkReport.PhaseTimer timer = report.time("createFingerprint")) {
+            List<String> jlinkArgs = createJlinkArgs(
+                    getPathsOfModules(modulePathElements, jmodsFolder), getModulesToAdd(modulePathElements));
+            imageFingerprint = createFingerprint(jlinkArgs, modulePathElements.values(), jmodsFolder);
+        }
+        ImageArchives archives = getArchives();
+        if (!isUpToDate(imageFingerprint, archives)) {
+            deleteFingerprint();
+            return false;
+        }
+
+        getLog().info("Nothing to link - the Run Time Image " + outputDirectoryImage + " is up to date.");
+        report.setLabel("outcome", "upToDate");
+        attach(archives.getZipFile());
+        if (buildReport) {
+            writeReport(modulePathElements);
+        }
+        return true;
+    }
+
+    /**
+     * @return the {@link #addModules} and the modules of the module path, before they are analyzed
+     */
+    private Collection<String> getModulesToAdd(Map<String, File> modulePathElements) {
         Collection<String> modulesToAdd = new ArrayList<>();
         if (addModules != null) {
             modulesToAdd.addAll(addModules);
         }
-        jLinkExec.addAllModules(modulesToAdd);
+        // We use the real module name and not the artifact Id...
+        modulesToAdd.addAll(modulePathElements.keySet());
+        return modulesToAdd;
+    }
 
+    /**
+     * @return the {@link #modulePaths}, the files of the modules and the {@code jmods} folder
+     */
+    private Collection<String> getPathsOfModules(Map<String, File> modulePathElements, Optional<File> jmodsFolder) {
         Collection<String> pathsOfModules = new ArrayList<>();
         if (modulePaths != null) {
             pathsOfModules.addAll(modulePaths);
         }
+        modulePathElements.values().forEach(file -> pathsOfModules.add(file.getPath()));
+        jmodsFolder.ifPresent(folder -> pathsOfModules.add(folder.getAbsolutePath()));
+        return pathsOfModules;
+    }
 
-        for (Entry<String, File> item : getModulePathElements().entrySet()) {
-            getLog().info(" -> module: " + item.getKey() + " ( "
-                    + item.getValue().getPath() + " )");
-
-            // We use the real module name and not the artifact Id...
-            modulesToAdd.add(item.getKey());
-            pathsOfModules.add(item.getValue().getPath());
+    /**
+     * Creates the image and writes the {@link #buildReport}.
+     */
+    private void linkImage(JLinkExecutor jLinkExec, Map<String, File> modulePathElements, Optional<File> jmodsFolder)
+            throws MojoExecutionException, MojoFailureException {
+        try (JLinkReport.PhaseTimer timer = report.time("linkImage")) {
+            createImage(jLinkExec, modulePathElements, jmodsFolder);
+        }
+        if (buildReport) {
+            writeReport(modulePathElements);
         }
+    }
 
-        // The jmods directory of the JDK
-        jLinkExec
-                .getJmodsFolder(this.sourceJdkModules)
-                .ifPresent(jmodsFolder -> pathsOfModules.add(jmodsFolder.getAbsolutePath()));
+    /**
+     * Links the image, adds the additional resources and creates the archives.
+     */
+    private void createImage(JLinkExecutor jLinkExec, Map<String, File> modulePathElements, Optional<File> jmodsFolder)
+            throws MojoExecutionException, MojoFailureException {
+        Collection<String> modulesToAdd = getModulesToAdd(modulePathElements);
+        jLinkExec.addAllModules(modulesToAdd);
+        Collection<String> pathsOfModules = getPathsOfModules(modulePathElements, jmodsFolder);
         jLinkExec.addAllModulePaths(pathsOfModules);
 
-        List<String> jlinkArgs = createJlinkArgs(pathsOfModules, modulesToAdd);
+        if (computedJdkModules != null) {
+            applyComputedJdkModules(modulesToAdd, pathsOfModules, jmodsFolder);
+        }
+        if (bindUsedServices && !bindServices) {
+            bindUsedServices(modulesToAdd, modulePathElements, jmodsFolder);
+        }
+        if (pruneModulePath) {
+            pruneModulePath(pathsOfModules, modulesToAdd, modulePathElements, jmodsFolder);
+        }
 
-        try {
-            jLinkExec.executeJlink(jlinkArgs);
-        } catch (IllegalStateException e) {
-            throw new MojoFailureException("Unable to find jlink command: " + e.getMessage(), e);
+        List<String> jlinkArgs = new ArrayList<>(createJlinkArgs(pathsOfModules, modulesToAdd));
+        boolean generateCdsArchive = cdsArchive || appCdsLauncher != null;
+        boolean cdsArchiveByJlink = false;
+        String appCdsLauncherSpec = appCdsLauncher != null ? getLauncher(appCdsLauncher, "appCdsLauncher") : null;
+        if (generateCdsArchive) {
+            Optional<Runtime.Version> jlinkVersion = jLinkExec.getJlinkVersion();
+            if (appCdsLauncherSpec != null) {
+                CdsArchiveGenerator.failIfAppCdsIsNotSupported(jlinkVersion);
+            }
+            cdsArchiveByJlink = CdsArchiveGenerator.isGeneratedByJlink(jlinkVersion);
+        }
+        if (cdsArchiveByJlink) {
+            // before --suggest-providers, which must be the last option
+            jlinkArgs.add(0, "--generate-cds-archive");
+        }
+        String orderResourcesLauncherSpec =
+                orderResourcesLauncher != null ? getLauncher(orderResourcesLauncher, "orderResourcesLauncher") : null;
+
+        ImageArchives archives = getArchives();
+        File zipFile = archives.getZipFile();
+        ifOutputDirectoryExistsDelteIt();
+
+        ImageCache cache = null;
+        String cacheKey = null;
+        if (imageCache) {
+            cache = new ImageCache(
+                    imageCacheDirectory, imageCacheMaxSize * 1024 * 1024, imageCacheHardLinks, getLog());
+            boolean restored;
+            try (JLinkReport.PhaseTimer timer = report.time("restoreFromImageCache")) {
+                cacheKey = createFingerprint(
+                        JLinkFingerprint.withoutProjectPaths(jlinkArgs), modulePathElements.values(), jmodsFolder);
+                restored = cache.restore(cacheKey, outputDirectoryImage, zipFile);
+            }
+            if (restored) {
+                cache.logStatistics();
+                report.setLabel("outcome", "imageCache");
+                try (JLinkReport.PhaseTimer timer = report.time("createTarArchivesFromImage")) {
+                    archives.createTarArchives(ImageTree.scan(outputDirectoryImage));
+                }
+                if (imageFingerprint != null) {
+                    writeFingerprint(imageFingerprint);
+                }
+                attach(zipFile);
+                return;
+            }
+        }
+
+        report.setLabel("outcome", "linked");
+        if (orderResourcesLauncherSpec != null) {
+            linkWithResourceOrder(jLinkExec, jlinkArgs, modulesToAdd, orderResourcesLauncherSpec);
+        } else {
+            executeJlink(jLinkExec, jlinkArgs);
         }
 
         // Add additional resources
-        try {
+        try (JLinkReport.PhaseTimer timer = report.time("filterResources")) {
+            JLinkEvents.ResourceFiltering event = new JLinkEvents.ResourceFiltering();
+            event.begin();
             mavenResourcesFiltering.filterResources(new MavenResourcesExecution(
                     additionalResources,
                     outputDirectoryImage,
@@ -468,13 +1076,437 @@ public class JLinkMojo extends AbstractJLinkMojo {
                     Collections.emptyList(),
                     Collections.emptyList(),
                     getSession()));
+            event.complete(hasClassifier() ? getClassifier() : "");
         } catch (MavenFilteringException e) {
             throw new MojoFailureException("Unable to copy the additional resources: " + e.getMessage(), e);
         }
 
-        File createZipArchiveFromImage = createZipArchiveFromImage(buildDirectory, outputDirectoryImage);
+        if (generateCdsArchive) {
+            try (JLinkReport.PhaseTimer timer = report.time("generateCdsArchive")) {
+                new CdsArchiveGenerator(outputDirectoryImage, getLog())
+                        .generate(!cdsArchiveByJlink, appCdsLauncherSpec, appCdsTrainingArguments);
+            }
+        }
+
+        ImageTree imageTree;
+        try (JLinkReport.PhaseTimer timer = report.time("createZipArchiveFromImage")) {
+            imageTree = ImageTree.scan(outputDirectoryImage);
+            archives.createZipArchive(imageTree);
+        }
+        try (JLinkReport.PhaseTimer timer = report.time("createTarArchivesFromImage")) {
+            archives.createTarArchives(imageTree);
+        }
+
+        if (cache != null) {
+            try (JLinkReport.PhaseTimer timer = report.time("storeInImageCache")) {
+                cache.store(cacheKey, outputDirectoryImage, zipFile);
+            } catch (IOException e) {
+                getLog().warn("Unable to store the Run Time Image in the image cache: " + e.getMessage());
+            }
+            cache.logStatistics();
+        }
+
+        if (imageFingerprint != null) {
+            writeFingerprint(imageFingerprint);
+        }
+
+        attach(zipFile);
+    }
+
+    /**
+     * @return the modules required by the module of the project, the {@link #addModules} and the modules of the
+     *         launchers of the images; all modules if none of them is on the module path
+     */
+    private Map<String, File> getRequiresClosure(ModuleGraph moduleGraph, List<JLinkMojo> images) {
+        Set<String> roots = new LinkedHashSet<>();
+        moduleGraph.getModulePathElements().entrySet().stream()
+                .filter(entry -> entry.getValue().equals(outputDirectory))
+                .forEach(entry -> roots.add(entry.getKey()));
+        if (addModules != null) {
+            roots.addAll(addModules);
+        }
+        for (JLinkMojo image : images) {
+            List<String> imageLaunchers = image.launcher != null ? List.of(image.launcher) : image.launchers;
+            if (imageLaunchers != null) {
+                imageLaunchers.forEach(spec -> roots.add(ImageJava.getLauncherModule(spec).split("/")[0]));
+            }
+        }
+
+        Set<String> closure = moduleGraph.getRequiresClosure(roots);
+        if (closure.isEmpty()) {
+            getLog().info("None of the root modules is on the module path, adding all modules.");
+            return moduleGraph.getModulePathElements();
+        }
+        Map<String, File> modulePathElements = new LinkedHashMap<>();
+        closure.forEach(name -> modulePathElements.put(name, moduleGraph.getFile(name)));
+        Set<String> leftOut = new LinkedHashSet<>(moduleGraph.getModuleNames());
+        leftOut.removeAll(closure);
+        getLog().info("Modules not required by the root modules " + String.join(", ", roots) + ": "
+                + (leftOut.isEmpty() ? "none" : String.join(", ", leftOut)));
+        for (JLinkMojo image : images) {
+            image.report.set("modulesNotRequired", leftOut.size());
+        }
+        return modulePathElements;
+    }
+
+    private Set<String> computeJdkModules(
+            Map<String, File> modulePathElements, JLinkExecutor jLinkExec, int javaVersion)
+            throws MojoExecutionException {
+        Set<String> jdkModules = new TreeSet<>(new JdkModuleAnalyzer(getLog())
+                .computeJdkModules(
+                        modulePathElements.values(),
+                        describeJdk(),
+                        new File(buildDirectory, "maven-jlink-jdk-modules.txt"),
+                        jLinkExec.getJdepsExecutable(),
+                        javaVersion));
+        if (jdkModuleHints != null) {
+            jdkModules.addAll(jdkModuleHints);
+        }
+        getLog().info("JDK modules used by the classes: " + String.join(", ", jdkModules));
+        return Collections.unmodifiableSet(jdkModules);
+    }
+
+    private void applyComputedJdkModules(
+            Collection<String> modulesToAdd, Collection<String> pathsOfModules, Optional<File> jmodsFolder) {
+        Optional<JdkModuleAnalyzer.Selection> selection = new JdkModuleAnalyzer(getLog())
+                .select(
+                        computedJdkModules,
+                        modulesToAdd,
+                        hasIncludeLocales() ? List.of("jdk.localedata") : Collections.emptyList(),
+                        limitModules,
+                        pathsOfModules,
+                        jmodsFolder,
+                        bindServices);
+        if (selection.isPresent()) {
+            modulesToAdd.clear();
+            modulesToAdd.addAll(selection.get().getModulesToAdd());
+            limitModules = selection.get().getLimitModules();
+            report.set("jdkModulesRemoved", selection.get().getRemovedModules().size());
+        }
+    }
+
+    private void bindUsedServices(
+            Collection<String> modulesToAdd, Map<String, File> modulePathElements, Optional<File> jmodsFolder) {
+        ServiceBinder.Binding binding = new ServiceBinder(
+                        moduleGraph,
+                        modulePathElements.keySet(),
+                        modulePaths,
+                        jmodsFolder,
+                        bindServicesIncludes,
+                        bindServicesExcludes,
+                        getLog())
+                .bind(modulesToAdd, limitModules);
+        modulesToAdd.addAll(binding.getProviders());
+        report.set("bindUsedServicesUnboundModules", binding.getUnboundModules().size());
+        report.set("bindUsedServicesUnboundSize", binding.getUnboundSize());
+    }
+
+    private void pruneModulePath(
+            Collection<String> pathsOfModules,
+            Collection<String> modulesToAdd,
+            Map<String, File> modulePathElements,
+            Optional<File> jmodsFolder) {
+        List<String> roots = new ArrayList<>(modulesToAdd);
+        if (hasIncludeLocales()) {
+            roots.add("jdk.localedata");
+        }
+        String suffix = hasClassifier() ? "-" + getClassifier() : "";
+        try (JLinkReport.PhaseTimer timer = report.time("pruneModulePath")) {
+            new ModulePathPruner(new File(buildDirectory, "maven-jlink-module-path" + suffix), getLog())
+                    .prune(modulePathElements, modulePaths, jmodsFolder, roots, limitModules, bindServices)
+                    .ifPresent(prunedPath -> {
+                        pathsOfModules.clear();
+                        pathsOfModules.addAll(prunedPath);
+                    });
+        }
+    }
+
+    private void executeJlink(JLinkExecutor jLinkExec, List<String> jlinkArgs)
+            throws MojoExecutionException, MojoFailureException {
+        try (JLinkReport.PhaseTimer timer = report.time("executeJlink")) {
+            jLinkExec.executeJlink(jlinkArgs);
+        } catch (IllegalStateException e) {
+            throw new MojoFailureException("Unable to find jlink command: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Links the image with the classes in the order of the {@link #orderResourcesLauncher}, see
+     * {@link ResourceOrder#link}.
+     */
+    private void linkWithResourceOrder(
+            JLinkExecutor jLinkExec, List<String> jlinkArgs, Collection<String> modulesToAdd, String launcherSpec)
+            throws MojoExecutionException, MojoFailureException {
+        String suffix = hasClassifier() ? "-" + getClassifier() : "";
+        List<String> trainingArguments =
+                orderResourcesTrainingArguments != null ? orderResourcesTrainingArguments : Collections.emptyList();
+        new ResourceOrder(outputDirectoryImage, launcherSpec, trainingArguments, getLog())
+                .link(
+                        args -> {
+                            ifOutputDirectoryExistsDelteIt();
+                            executeJlink(jLinkExec, args);
+                        },
+                        jlinkArgs,
+                        new File(buildDirectory, "maven-jlink-order-resources" + suffix + ".txt"),
+                        ResourceOrder.createKey(modulesToAdd, describeJdk(), launcherSpec, trainingArguments),
+                        new File(buildDirectory, "maven-jlink-class-load" + suffix + ".log"),
+                        report);
+    }
+
+    /**
+     * @param name the name of a launcher
+     * @param parameterName the parameter which names the launcher, for the message of a failure
+     * @return the launcher, {@code <name>=<module>[/<mainclass>]}
+     * @throws MojoFailureException if the image has no launcher of the name
+     */
+    private String getLauncher(String name, String parameterName)
+            throws MojoExecutionException, MojoFailureException {
+        List<String> imageLaunchers = getLaunchers();
+        Optional<String> launcherSpec = imageLaunchers == null
+                ? Optional.empty()
+                : imageLaunchers.stream().filter(item -> item.startsWith(name + "=")).findFirst();
+        if (!launcherSpec.isPresent()) {
+            String message = "The given " + parameterName + " parameter " + name + " is not one of the launchers.";
+            getLog().error(message);
+            throw new MojoFailureException(message);
+        }
+        return launcherSpec.get();
+    }
+
+    private void attach(File zipFile) throws MojoExecutionException {
+        try (JLinkReport.PhaseTimer timer = report.time("attach")) {
+            attachArtifactUnlessDisabled(zipFile);
+            attachTarArchivesUnlessDisabled();
+        }
+    }
+
+    /**
+     * Writes the {@link #buildReport} of the image. A report which can not be written does not fail the build.
+     */
+    private void writeReport(Map<String, File> modulePathElements) {
+        report.setLabel("classifier", hasClassifier() ? getClassifier() : "");
+        File reportFile = new File(
+                buildDirectory, "maven-jlink-report" + (hasClassifier() ? "-" + getClassifier() : "") + ".json");
+        try {
+            report.set("moduleCount", modulePathElements.size());
+            report.set("modulePathSize", JLinkReport.sizeOf(modulePathElements.values()));
+            ImageTree imageTree = ImageTree.scan(outputDirectoryImage);
+            report.set("imageSize", imageTree.getSize());
+            report.set("imageFileCount", imageTree.getFiles().size());
+            report.set("archiveSize", getArchives().getZipFile().length());
+            report.write(reportFile, getLog());
+        } catch (IOException e) {
+            getLog().warn("Unable to write the build report " + reportFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Links the images of the configuration and of the {@link #variants} on at most {@link #variantParallelism}
+     * threads. If an image fails, the others are completed anyway and the first failure is thrown afterwards.
+     */
+    private void linkImagesConcurrently(
+            List<JLinkMojo> images,
+            JLinkExecutor jLinkExec,
+            Map<String, File> modulePathElements,
+            Optional<File> jmodsFolder)
+            throws MojoExecutionException, MojoFailureException {
+        int parallelism = variantParallelism > 0 ? variantParallelism : Runtime.getRuntime().availableProcessors();
+        getLog().info("Linking " + images.size() + " Run Time Images on " + Math.min(parallelism, images.size())
+                + " threads.");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, images.size()));
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (JLinkMojo image : images) {
+                results.add(executorService.submit(() -> {
+                    image.linkImage(jLinkExec, modulePathElements, jmodsFolder);
+                    return null;
+                }));
+            }
+
+            Throwable failure = null;
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException e) {
+                    String imageClassifier = images.get(i).getClassifier();
+                    getLog().error("Unable to create the Run Time Image"
+                            + (hasClassifier(imageClassifier) ? " " + imageClassifier : "") + ": "
+                            + e.getCause().getMessage());
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+
+            if (failure instanceof MojoFailureException) {
+                throw (MojoFailureException) failure;
+            } else if (failure instanceof MojoExecutionException) {
+                throw (MojoExecutionException) failure;
+            } else if (failure != null) {
+                throw new MojoExecutionException(failure.getMessage(), failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while linking the Run Time Images.", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates a copy of this mojo, configured for the given variant.
+     *
+     * @param variant the variant
+     * @return the mojo which creates the image of the variant
+     */
+    JLinkMojo forVariant(Variant variant) {
+        JLinkMojo image;
+        try {
+            image = (JLinkMojo) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+
+        image.variants = null;
+        image.report = new JLinkReport();
+        image.classifier = variant.getClassifier();
+        if (variant.getStripDebug() != null) {
+            image.stripDebug = variant.getStripDebug();
+        }
+        if (variant.getCompress() != null) {
+            image.compress = variant.getCompress();
+        }
+        if (variant.getLauncher() != null || variant.getLaunchers() != null) {
+            image.launcher = variant.getLauncher();
+            image.launchers = variant.getLaunchers();
+        }
+        if (variant.getAddOptions() != null) {
+            image.addOptions = variant.getAddOptions();
+        }
+        if (variant.getNoHeaderFiles() != null) {
+            image.noHeaderFiles = variant.getNoHeaderFiles();
+        }
+        if (variant.getNoManPages() != null) {
+            image.noManPages = variant.getNoManPages();
+        }
+        if (variant.getBindServices() != null) {
+            image.bindServices = variant.getBindServices();
+        }
+        if (variant.getLimitModules() != null) {
+            image.limitModules = variant.getLimitModules();
+        }
+        if (variant.getIncludeLocales() != null) {
+            image.includeLocales = variant.getIncludeLocales();
+        }
+        if (variant.getAdditionalResources() != null) {
+            image.additionalResources = variant.getAdditionalResources();
+        }
+        return image;
+    }
+
+    /**
+     * Creates the fingerprint of all inputs which influence the Run Time Image and the zip file.
+     *
+     * @param jlinkArgs the arguments passed to jlink, they contain the output directory as well
+     * @param moduleFiles the jar files and directories of the modules to link
+     * @param jmodsFolder the {@code jmods} folder of the JDK, if any
+     * @return the fingerprint
+     */
+    String createFingerprint(List<String> jlinkArgs, Collection<File> moduleFiles, Optional<File> jmodsFolder)
+            throws MojoExecutionException {
+        JLinkFingerprint fingerprint = new JLinkFingerprint();
+        try {
+            fingerprint.add("jlinkArgs", jlinkArgs).add("jdk", describeJdk());
+
+            for (File moduleFile : moduleFiles) {
+                fingerprint.addContent("module", moduleFile);
+            }
+            if (modulePaths != null) {
+                for (String modulePath : modulePaths) {
+                    fingerprint.addMetadata("modulePath", new File(modulePath));
+                }
+            }
+            if (jmodsFolder.isPresent()) {
+                fingerprint.addMetadata("jmods", jmodsFolder.get());
+            }
+            fingerprint.addResources(additionalResources, getProject());
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to create the fingerprint of the jlink inputs: " + e.getMessage(), e);
+        }
+
+        return fingerprint
+                .add("zipDirPrefix", zipDirPrefix)
+                .add("outputTimestamp", outputTimestamp)
+                .add("archiveStoredEntries", archiveStoredEntries)
+                .add("archiveCompressionLevel", String.valueOf(archiveCompressionLevel))
+                .add("archiveAutoStore", String.valueOf(archiveAutoStore))
+                .add("archiveFormats", archiveFormats)
+                .add("cdsArchive", String.valueOf(cdsArchive))
+                .add("appCdsLauncher", appCdsLauncher)
+                .add("appCdsTrainingArguments", appCdsTrainingArguments)
+                .add("orderResourcesLauncher", orderResourcesLauncher)
+                .add("orderResourcesTrainingArguments", orderResourcesTrainingArguments)
+                .add("computeJdkModules", String.valueOf(computeJdkModules))
+                .add("jdkModuleHints", jdkModuleHints)
+                .add("bindUsedServices", String.valueOf(bindUsedServices))
+                .add("bindServicesIncludes", bindServicesIncludes)
+                .add("bindServicesExcludes", bindServicesExcludes)
+                .toHex();
+    }
+
+    /**
+     * @return a description of the JDK which runs jlink
+     */
+    private String describeJdk() {
+        Optional<Toolchain> toolchain = getToolchain();
+        if (toolchain.isPresent()) {
+            Toolchain tc = toolchain.orElseThrow(NoSuchElementException::new);
+            if (tc instanceof JavaToolchainImpl) {
+                return ((JavaToolchainImpl) tc).getJavaHome();
+            }
+            return String.valueOf(tc.findTool("jlink"));
+        }
+        return System.getProperty("java.home") + " " + System.getProperty("java.version");
+    }
+
+    private boolean isUpToDate(String fingerprint, ImageArchives archives) {
+        Optional<String> previous = JLinkFingerprint.read(getFingerprintFile());
+        if (!previous.isPresent()) {
+            getLog().debug("No fingerprint of a previous execution found.");
+            return false;
+        }
+        if (!previous.get().equals(fingerprint)) {
+            getLog().info("Changes detected - relinking the Run Time Image.");
+            return false;
+        }
+        return outputDirectoryImage.isDirectory() && archives.exist();
+    }
+
+    /**
+     * The fingerprint is stored next to the image, it must not be part of the image itself.
+     *
+     * @return the file which contains the fingerprint of the last execution
+     */
+    private File getFingerprintFile() {
+        return new File(outputDirectoryImage.getParentFile(), outputDirectoryImage.getName() + ".fingerprint");
+    }
+
+    private void writeFingerprint(String fingerprint) throws MojoExecutionException {
+        try {
+            JLinkFingerprint.write(getFingerprintFile(), fingerprint);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write " + getFingerprintFile() + ": " + e.getMessage(), e);
+        }
+    }
 
-        attachArtifactUnlessDisabled(createZipArchiveFromImage);
+    private void deleteFingerprint() throws MojoExecutionException {
+        try {
+            Files.deleteIfExists(getFingerprintFile().toPath());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to delete " + getFingerprintFile() + ": " + e.getMessage(), e);
+        }
     }
 
     /**
@@ -509,84 +1541,106 @@ public class JLinkMojo extends AbstractJLinkMojo {
     }
 
     Map<String, File> getModulePathElements() throws MojoFailureException {
+        return getModuleGraph(getTargetJavaVersion(getJlinkExecutor())).getModulePathElements();
+    }
+
+    /**
+     * @return the feature version of the JDK whose jlink links the image, the running JDK if it is unknown
+     */
+    private static int getTargetJavaVersion(JLinkExecutor jLinkExec) {
+        return jLinkExec.getJlinkVersion().orElse(Runtime.version()).feature();
+    }
+
+    /**
+     * Resolves the dependencies and the classes of the project in one pass and builds the graph of the named
+     * modules.
+     *
+     * @param javaVersion the feature version of the JDK which links the modules, it selects the descriptor of a
+     *        multi-release jar file
+     * @return the named modules on the module path
+     * @throws MojoFailureException if a dependency or the project is not a module
+     */
+    ModuleGraph getModuleGraph(int javaVersion) throws MojoFailureException {
         // For now only allow named modules. Once we can create a graph with ASM we can specify exactly the modules
         // and we can detect if auto modules are used. In that case, MavenProject.setFile() should not be used, so
         // you cannot depend on this project and so it won't be distributed.
 
-        Map<String, File> modulepathElements = new HashMap<>();
+        ModuleGraph moduleGraph = new ModuleGraph();
+        Map<File, String> automaticModules = new LinkedHashMap<>();
 
         try {
-            Collection<File> dependencyArtifacts = getCompileClasspathElements(getProject());
-
-            ResolvePathsRequest<File> request = ResolvePathsRequest.ofFiles(dependencyArtifacts);
-
-            Optional<Toolchain> toolchain = getToolchain();
-            if (toolchain.isPresent()
-                    && toolchain.orElseThrow(NoSuchElementException::new) instanceof JavaToolchainImpl) {
-                Toolchain toolchain1 = toolchain.orElseThrow(NoSuchElementException::new);
-                request.setJdkHome(new File(((JavaToolchainImpl) toolchain1).getJavaHome()));
+            List<File> pathElements = new ArrayList<>(getCompileClasspathElements(getProject()));
+            // the module of the project itself, if it contains any classes
+            if (outputDirectory.exists()) {
+                pathElements.add(outputDirectory);
             }
 
-            ResolvePathsResult<File> resolvePathsResult = locationManager.resolvePaths(request);
-
-            for (Map.Entry<File, JavaModuleDescriptor> entry :
-                    resolvePathsResult.getPathElements().entrySet()) {
+            Map<File, JavaModuleDescriptor> descriptors = resolvePathElements(pathElements, javaVersion);
+            for (Map.Entry<File, JavaModuleDescriptor> entry : descriptors.entrySet()) {
                 JavaModuleDescriptor descriptor = entry.getValue();
                 if (descriptor == null) {
-                    String message = "The given dependency " + entry.getKey()
-                            + " does not have a module-info.java file. So it can't be linked.";
+                    String message = outputDirectory.equals(entry.getKey())
+                            ? "The given project " + entry.getKey()
+                                    + " does not contain a module-info.java file. So it can't be linked."
+                            : "The given dependency " + entry.getKey()
+                                    + " does not have a module-info.java file. So it can't be linked.";
                     getLog().error(message);
                     throw new MojoFailureException(message);
                 }
 
                 // Filter out automatic modules
                 if (descriptor.isAutomatic()) {
-                    getLog().debug("Ignoring automatic module: " + descriptor.name());
+                    if (synthesizeModuleDescriptors && entry.getKey().isFile()) {
+                        automaticModules.put(entry.getKey(), descriptor.name());
+                    } else {
+                        getLog().debug("Ignoring automatic module: " + descriptor.name());
+                    }
                     continue;
                 }
 
-                if (modulepathElements.containsKey(descriptor.name())) {
+                if (moduleGraph.contains(descriptor.name())) {
                     getLog().warn("The module name " + descriptor.name() + " does already exists.");
                 }
-                modulepathElements.put(descriptor.name(), entry.getKey());
+                moduleGraph.add(entry.getKey(), descriptor);
             }
-
-            // This part is for the module in target/classes ? (Hacky..)
-            // FIXME: Is there a better way to identify that code exists?
-            if (outputDirectory.exists()) {
-                List<File> singletonList = Collections.singletonList(outputDirectory);
-
-                ResolvePathsRequest<File> singleModuls = ResolvePathsRequest.ofFiles(singletonList);
-
-                ResolvePathsResult<File> resolvePaths = locationManager.resolvePaths(singleModuls);
-                for (Entry<File, JavaModuleDescriptor> entry :
-                        resolvePaths.getPathElements().entrySet()) {
-                    JavaModuleDescriptor descriptor = entry.getValue();
-                    if (descriptor == null) {
-                        String message = "The given project " + entry.getKey()
-                                + " does not contain a module-info.java file. So it can't be linked.";
-                        getLog().error(message);
-                        throw new MojoFailureException(message);
-                    }
-
-                    if (descriptor.isAutomatic()) {
-                        getLog().debug("Ignoring automatic module: " + descriptor.name());
-                        continue;
-                    }
-
-                    if (modulepathElements.containsKey(descriptor.name())) {
-                        getLog().warn("The module name " + descriptor.name() + " does already exists.");
-                    }
-                    modulepathElements.put(descriptor.name(), entry.getKey());
-                }
+            if (!automaticModules.isEmpty()) {
+                new ModuleDescriptorSynthesizer(synthesizedModulesDirectory, describeJdk(), javaVersion, getLog())
+                        .addModules(moduleGraph, automaticModules);
             }
-
         } catch (IOException e) {
             getLog().error(e.getMessage());
             throw new MojoFailureException(e.getMessage());
         }
 
-        return modulepathElements;
+        return moduleGraph;
+    }
+
+    /**
+     * Resolves the module descriptors of the path elements with the {@link #moduleDescriptorCache} and the
+     * {@link ModuleDescriptorReader}, and only what it can not handle with the {@link LocationManager}.
+     */
+    private Map<File, JavaModuleDescriptor> resolvePathElements(Collection<File> files, int javaVersion)
+            throws IOException {
+        ModuleDescriptorCache cache = moduleDescriptorCache
+                ? ModuleDescriptorCache.load(
+                        moduleDescriptorCacheFile, javaVersion, moduleDescriptorCacheVerifyContent, getLog())
+                : null;
+        return new ModuleDescriptorResolver(cache, this::resolvePathElementsWithLocationManager, javaVersion, getLog())
+                .resolve(files);
+    }
+
+    private Map<File, JavaModuleDescriptor> resolvePathElementsWithLocationManager(Collection<File> files)
+            throws IOException {
+        ResolvePathsRequest<File> request = ResolvePathsRequest.ofFiles(files);
+
+        Optional<Toolchain> toolchain = getToolchain();
+        if (toolchain.isPresent() && toolchain.orElseThrow(NoSuchElementException::new) instanceof JavaToolchainImpl) {
+            Toolchain toolchain1 = toolchain.orElseThrow(NoSuchElementException::new);
+            request.setJdkHome(new File(((JavaToolchainImpl) toolchain1).getJavaHome()));
+        }
+
+        ResolvePathsResult<File> resolvePathsResult = locationManager.resolvePaths(request);
+        return resolvePathsResult.getPathElements();
     }
 
     private boolean projectHasAlreadySetAnArtifact() {
@@ -604,30 +1658,39 @@ public class JLinkMojo extends AbstractJLinkMojo {
         return hasClassifier(getClassifier());
     }
 
-    private File createZipArchiveFromImage(File outputDirectory, File outputDirectoryImage)
-            throws MojoExecutionException {
-        if (zipDirPrefix != null && !zipDirPrefix.isEmpty() && !zipDirPrefix.endsWith("/")) {
-            zipDirPrefix += "/";
-        }
-        zipArchiver.addDirectory(outputDirectoryImage, zipDirPrefix);
+    /**
+     * @return the archives of the image in the {@link #archiveFormats}
+     */
+    private ImageArchives getArchives() {
+        ImageArchives archives = new ImageArchives(buildDirectory, finalName, getClassifier(), getLog());
+        archives.setPrefix(zipDirPrefix);
+        archives.setOutputTimestamp(outputTimestamp);
+        archives.setThreads(archiverThreads);
+        archives.setIncremental(incrementalArchive);
+        archives.setStoredEntries(archiveStoredEntries);
+        archives.setCompressionLevel(archiveCompressionLevel);
+        archives.setAutoStore(archiveAutoStore);
+        archives.setFormats(archiveFormats);
+        return archives;
+    }
 
-        // configure for Reproducible Builds based on outputTimestamp value
-        Optional<Instant> lastModified = MavenArchiver.parseBuildOutputTimestamp(outputTimestamp);
-        if (lastModified.isPresent()) {
-            zipArchiver.configureReproducibleBuild(FileTime.from(lastModified.get()));
+    private void attachTarArchivesUnlessDisabled() {
+        if (!attach) {
+            return;
         }
 
-        File resultArchive = getZipFile(outputDirectory, finalName, getClassifier());
-
-        zipArchiver.setDestFile(resultArchive);
-        try {
-            zipArchiver.createArchive();
-        } catch (ArchiverException | IOException e) {
-            getLog().error(e.getMessage(), e);
-            throw new MojoExecutionException(e.getMessage(), e);
+        ImageArchives archives = getArchives();
+        // the images of the variants are attached concurrently
+        synchronized (getProject()) {
+            for (String format : archives.getTarFormats()) {
+                File artifactFile = archives.getArchiveFile(format);
+                if (hasClassifier()) {
+                    projectHelper.attachArtifact(getProject(), format, getClassifier(), artifactFile);
+                } else {
+                    projectHelper.attachArtifact(getProject(), format, artifactFile);
+                }
+            }
         }
-
-        return resultArchive;
     }
 
     private void attachArtifactUnlessDisabled(File artifactFile) throws MojoExecutionException {
@@ -635,14 +1698,17 @@ public class JLinkMojo extends AbstractJLinkMojo {
             return;
         }
 
-        if (hasClassifier()) {
-            projectHelper.attachArtifact(getProject(), "jlink", getClassifier(), artifactFile);
-        } else {
-            if (projectHasAlreadySetAnArtifact()) {
-                throw new MojoExecutionException("You have to use a classifier "
-                        + "to attach supplemental artifacts to the project instead of replacing them.");
+        // the images of the variants are attached concurrently
+        synchronized (getProject()) {
+            if (hasClassifier()) {
+                projectHelper.attachArtifact(getProject(), "jlink", getClassifier(), artifactFile);
+            } else {
+                if (projectHasAlreadySetAnArtifact()) {
+                    throw new MojoExecutionException("You have to use a classifier "
+                            + "to attach supplemental artifacts to the project instead of replacing them.");
+                }
+                getProject().getArtifact().setFile(artifactFile);
             }
-            getProject().getArtifact().setFile(artifactFile);
         }
     }
 
@@ -654,9 +1720,50 @@ public class JLinkMojo extends AbstractJLinkMojo {
             throw new MojoFailureException(message);
         }
 
-        if (addOptions != null && !addOptions.isEmpty()) {
+        boolean hasAddOptions = addOptions != null && !addOptions.isEmpty();
+        if (variants != null) {
+            for (Variant variant : variants) {
+                hasAddOptions |= variant.getAddOptions() != null && !variant.getAddOptions().isEmpty();
+            }
+        }
+        if (hasAddOptions) {
             requireJdk14();
         }
+
+        if (archiveCompressionLevel != null && (archiveCompressionLevel < 0 || archiveCompressionLevel > 9)) {
+            String message = "The given archiveCompressionLevel parameter " + archiveCompressionLevel
+                    + " is not between 0 and 9.";
+            getLog().error(message);
+            throw new MojoFailureException(message);
+        }
+
+        if (variants != null) {
+            Set<String> classifiers = new HashSet<>();
+            classifiers.add(hasClassifier() ? classifier : "");
+            for (Variant variant : variants) {
+                if (!hasClassifier(variant.getClassifier())) {
+                    String message = "Each variant requires a classifier.";
+                    getLog().error(message);
+                    throw new MojoFailureException(message);
+                }
+                if (!classifiers.add(variant.getClassifier())) {
+                    String message = "The classifier " + variant.getClassifier() + " of a variant is not unique.";
+                    getLog().error(message);
+                    throw new MojoFailureException(message);
+                }
+            }
+        }
+
+        if (archiveFormats != null) {
+            for (String format : archiveFormats) {
+                if (!ImageArchives.isFormat(format)) {
+                    String message = "The given archiveFormats parameter contains " + format
+                            + ", which is not one of the following values: 'zip', 'tar', 'tar.gz' or 'tar.zst'.";
+                    getLog().error(message);
+                    throw new MojoFailureException(message);
+                }
+            }
+        }
     }
 
     private void requireJdk14() throws MojoFailureException {
@@ -732,15 +1839,9 @@ public class JLinkMojo extends AbstractJLinkMojo {
             jlinkArgs.add("--compress");
             jlinkArgs.add(compress);
         }
-        if (launcher != null) {
-            if (launchers != null) {
-                throw new MojoExecutionException("Specify either single <launcher> or multiple <launchers>, not both.");
-            } else {
-                launchers = List.of(launcher);
-            }
-        }
-        if (launchers != null) {
-            for (String item : launchers) {
+        List<String> imageLaunchers = getLaunchers();
+        if (imageLaunchers != null) {
+            for (String item : imageLaunchers) {
                 jlinkArgs.add("--launcher");
                 jlinkArgs.add(item);
             }
@@ -815,6 +1916,20 @@ public class JLinkMojo extends AbstractJLinkMojo {
         return Collections.unmodifiableList(jlinkArgs);
     }
 
+    /**
+     * @return the {@link #launcher} or the {@link #launchers}, {@code null} if there are none
+     * @throws MojoExecutionException if both are configured
+     */
+    private List<String> getLaunchers() throws MojoExecutionException {
+        if (launcher == null) {
+            return launchers;
+        }
+        if (launchers != null) {
+            throw new MojoExecutionException("Specify either single <launcher> or multiple <launchers>, not both.");
+        }
+        return List.of(launcher);
+    }
+
     private boolean hasIncludeLocales() {
         return includeLocales != null && !includeLocales.isEmpty();
     }
@@ -835,30 +1950,6 @@ public class JLinkMojo extends AbstractJLinkMojo {
         return classifier;
     }
 
-    /**
-     * Returns the archive file to generate, based on an optional classifier.
-     *
-     * @param basedir the output directory
-     * @param finalName the name of the zip file
-     * @param classifier an optional classifier
-     * @return the file to generate
-     */
-    private static File getZipFile(File basedir, String finalName, String classifier) {
-        if (finalName.isEmpty()) {
-            throw new IllegalArgumentException("finalName is not allowed to be empty.");
-        }
-
-        StringBuilder fileName = new StringBuilder(finalName);
-
-        if (hasClassifier(classifier)) {
-            fileName.append("-").append(classifier);
-        }
-
-        fileName.append(".zip");
-
-        return new File(basedir, fileName.toString());
-    }
-
     private static boolean hasClassifier(String classifier) {
         boolean result = false;
         if (classifier != null && !classifier.isEmpty()) {
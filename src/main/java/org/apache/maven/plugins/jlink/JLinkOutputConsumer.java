@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+import org.apache.maven.shared.utils.cli.StreamConsumer;
+
+/**
+ * Consumes the output of jlink line by line while jlink runs, in-process as well as forked.
+ *
+ * <p>Each line is passed on, usually to the Maven log, as soon as it is complete. Only the last lines are kept, for
+ * the message of a failed execution, so even the {@code --verbose} output of large images does not pile up in
+ * memory.</p>
+ */
+final class JLinkOutputConsumer implements StreamConsumer {
+    /**
+     * The number of lines kept for the message of a failed execution.
+     */
+    static final int TAIL_LINES = 100;
+
+    private final Consumer<String> lineConsumer;
+
+    private final int tailLines;
+
+    private final Deque<String> tail = new ArrayDeque<>();
+
+    private long lineCount;
+
+    /**
+     * @param lineConsumer receives each line as soon as it is complete
+     */
+    JLinkOutputConsumer(Consumer<String> lineConsumer) {
+        this(lineConsumer, TAIL_LINES);
+    }
+
+    JLinkOutputConsumer(Consumer<String> lineConsumer, int tailLines) {
+        if (tailLines < 1) {
+            throw new IllegalArgumentException("The number of lines must be at least 1, but was " + tailLines);
+        }
+        this.lineConsumer = lineConsumer;
+        this.tailLines = tailLines;
+    }
+
+    @Override
+    public synchronized void consumeLine(String line) {
+        lineConsumer.accept(line);
+        if (tail.size() == tailLines) {
+            tail.removeFirst();
+        }
+        tail.addLast(line);
+        lineCount++;
+    }
+
+    /**
+     * Consumes the lines of a stream until its end, for example the output of a forked jlink.
+     *
+     * @param is the stream, closed at the end
+     * @param charset the charset of the stream
+     * @throws IOException if the stream can not be read
+     */
+    void consume(InputStream is, Charset charset) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, charset))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                consumeLine(line);
+            }
+        }
+    }
+
+    /**
+     * @return a writer passing on each line written to it, to run jlink in-process; closing it passes on the last
+     *         line even if it is not terminated
+     */
+    PrintWriter asWriter() {
+        return new PrintWriter(new LineWriter());
+    }
+
+    /**
+     * @return the last lines, with the number of lines omitted before them if there have been more
+     */
+    synchronized String getTail() {
+        StringBuilder builder = new StringBuilder();
+        if (lineCount > tail.size()) {
+            builder.append("[")
+                    .append(lineCount - tail.size())
+                    .append(" lines omitted]")
+                    .append('\n');
+        }
+        return builder.append(String.join("\n", tail)).toString();
+    }
+
+    private final class LineWriter extends Writer {
+        private final StringBuilder line = new StringBuilder();
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            synchronized (lock) {
+                for (int i = off; i < off + len; i++) {
+                    char c = cbuf[i];
+                    if (c == '\n') {
+                        endLine();
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            // a line is only passed on once it is complete
+        }
+
+        @Override
+        public void close() {
+            synchronized (lock) {
+                if (line.length() > 0) {
+                    endLine();
+                }
+            }
+        }
+
+        private void endLine() {
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r') {
+                line.setLength(length - 1);
+            }
+            consumeLine(line.toString());
+            line.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * The durations of the phases of an execution and the sizes of its inputs and outputs, written as a JSON report.
+ *
+ * <p>The report is a single JSON object with the durations in milliseconds in the object {@code phases} and the
+ * other values as numbers. If the report of a previous build exists, the values are compared with it before it is
+ * overwritten, so changes of the performance show up in the build log.</p>
+ */
+final class JLinkReport {
+    private static final Pattern NUMBER_VALUE = Pattern.compile("\"(\\w+)\"\\s*:\\s*(-?\\d+)");
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private final Map<String, Long> values = new LinkedHashMap<>();
+
+    private final Map<String, String> labels = new LinkedHashMap<>();
+
+    /**
+     * Measures the duration of a phase, to be used in a {@code try}-with-resources statement.
+     */
+    final class PhaseTimer implements AutoCloseable {
+        private final String phase;
+        private final long start = System.nanoTime();
+
+        private PhaseTimer(String phase) {
+            this.phase = phase;
+        }
+
+        @Override
+        public void close() {
+            addDuration(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param phase the name of the phase
+     * @return the timer, stopped by {@link PhaseTimer#close()}
+     */
+    PhaseTimer time(String phase) {
+        return new PhaseTimer(phase);
+    }
+
+    /**
+     * Adds a duration to a phase, phases which run several times accumulate their durations.
+     *
+     * @param phase the name of the phase
+     * @param nanos the duration in nanoseconds
+     */
+    synchronized void addDuration(String phase, long nanos) {
+        phases.merge(phase, TimeUnit.NANOSECONDS.toMillis(nanos), Long::sum);
+    }
+
+    /**
+     * @param name the name of the value
+     * @param value the value, for example a size in bytes
+     */
+    synchronized void set(String name, long value) {
+        values.put(name, value);
+    }
+
+    /**
+     * @param name the name of the label
+     * @param label a string describing the execution, for example the classifier
+     */
+    synchronized void setLabel(String name, String label) {
+        labels.put(name, label);
+    }
+
+    /**
+     * @return the durations of the phases in milliseconds
+     */
+    synchronized Map<String, Long> getPhases() {
+        return new LinkedHashMap<>(phases);
+    }
+
+    /**
+     * @return the other values
+     */
+    synchronized Map<String, Long> getValues() {
+        return new LinkedHashMap<>(values);
+    }
+
+    /**
+     * @return the report as JSON object
+     */
+    synchronized String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            json.append("  \"")
+                    .append(label.getKey())
+                    .append("\": \"")
+                    .append(escape(label.getValue()))
+                    .append("\",\n");
+        }
+        json.append("  \"phases\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            json.append(separator)
+                    .append("    \"")
+                    .append(phase.getKey())
+                    .append("\": ")
+                    .append(phase.getValue());
+            separator = ",\n";
+        }
+        json.append(phases.isEmpty() ? "}" : "\n  }");
+        for (Map.Entry<String, Long> value : values.entrySet()) {
+            json.append(",\n  \"").append(value.getKey()).append("\": ").append(value.getValue());
+        }
+        return json.append("\n}\n").toString();
+    }
+
+    /**
+     * Reads the numbers of a report written by {@link #toJson()}.
+     *
+     * @param json the report
+     * @return the durations of the phases and the other values, by name
+     */
+    static Map<String, Long> readNumbers(String json) {
+        Map<String, Long> numbers = new LinkedHashMap<>();
+        Matcher matcher = NUMBER_VALUE.matcher(json);
+        while (matcher.find()) {
+            numbers.put(matcher.group(1), Long.parseLong(matcher.group(2)));
+        }
+        return numbers;
+    }
+
+    /**
+     * Compares the durations and values with the ones of a previous report.
+     *
+     * @param previous the numbers of the previous report, see {@link #readNumbers(String)}
+     * @return one line per duration or value which is also part of the previous report
+     */
+    synchronized List<String> compareWith(Map<String, Long> previous) {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            Long before = previous.get(phase.getKey());
+            if (before != null) {
+                lines.add(compare(phase.getKey(), before, phase.getValue(), " ms"));
+            }
+        }
+        for (Map.Entry<String, Long> value : values.entrySet()) {
+            Long before = previous.get(value.getKey());
+            if (before != null) {
+                lines.add(compare(value.getKey(), before, value.getValue(), ""));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Writes the report, after logging the comparison with the previous report in the same file, if any.
+     *
+     * @param file the report file
+     * @param log the log for the comparison
+     * @throws IOException if the report can not be written
+     */
+    void write(File file, Log log) throws IOException {
+        Path path = file.toPath();
+        if (Files.isRegularFile(path)) {
+            String previous = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            List<String> comparison = compareWith(readNumbers(previous));
+            if (!comparison.isEmpty()) {
+                log.info("Compared to the previous build:");
+                comparison.forEach(line -> log.info("  " + line));
+            }
+        }
+        Files.createDirectories(path.getParent());
+        Files.write(path, toJson().getBytes(StandardCharsets.UTF_8));
+        log.info("Build report written to " + file);
+    }
+
+    /**
+     * @param files jar files or directories
+     * @return the total size of the files and of the files in the directories, in bytes
+     * @throws IOException if a directory can not be read
+     */
+    static long sizeOf(Collection<File> files) throws IOException {
+        long size = 0;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                try (Stream<Path> paths = Files.walk(file.toPath())) {
+                    size += paths.filter(Files::isRegularFile)
+                            .mapToLong(path -> path.toFile().length())
+                            .sum();
+                }
+            } else {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    private static String compare(String name, long before, long after, String unit) {
+        StringBuilder line = new StringBuilder(name)
+                .append(": ")
+                .append(before)
+                .append(unit)
+                .append(" -> ")
+                .append(after)
+                .append(unit);
+        if (before != 0) {
+            line.append(String.format(Locale.ROOT, " (%+.1f%%)", (after - before) * 100.0 / before));
+        }
+        return line.toString();
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
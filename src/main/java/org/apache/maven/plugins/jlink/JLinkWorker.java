@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.spi.ToolProvider;
+
+/**
+ * The main class of a long-lived JVM running jlink for the {@link JLinkWorkerPool}.
+ *
+ * <p>The worker is started with the {@code java} executable of the toolchain and hosts the {@code jlink}
+ * {@link ToolProvider} of that JDK. It reads requests from {@code stdin} and writes the results to {@code stdout}
+ * until {@code stdin} is closed, one request at a time. Each line jlink prints is written as soon as it is
+ * complete, so the output is logged while jlink runs. All strings are written as UTF-8 with their length:</p>
+ * <pre>
+ * on start: MAGIC
+ * request:  number of arguments, arguments
+ * result:   OUTPUT or ERROR_OUTPUT and a line, any number of times, then EXIT and the exit code
+ * </pre>
+ *
+ * <p>This class runs in the toolchain JDK without the dependencies of the plugin, so it must only use the JDK.</p>
+ */
+final class JLinkWorker {
+    /**
+     * Written by the worker once it is ready, to detect JVMs which can not run it.
+     */
+    static final int MAGIC = 0x4a4c4e4b;
+
+    /**
+     * Precedes a line of the output of jlink.
+     */
+    static final int OUTPUT = 1;
+
+    /**
+     * Precedes a line of the error output of jlink.
+     */
+    static final int ERROR_OUTPUT = 2;
+
+    /**
+     * Precedes the exit code of jlink, the end of a result.
+     */
+    static final int EXIT = 3;
+
+    private JLinkWorker() {}
+
+    public static void main(String[] args) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        // anything else printed to stdout would corrupt the results
+        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.err), true));
+
+        ToolProvider jlink =
+                ToolProvider.findFirst("jlink").orElseThrow(() -> new IllegalStateException("No jlink tool found."));
+        out.writeInt(MAGIC);
+        out.flush();
+
+        List<String> jlinkArgs;
+        while ((jlinkArgs = readRequest(in)) != null) {
+            int exitCode;
+            try (PrintWriter outWriter = new PrintWriter(new LineWriter(out, OUTPUT));
+                    PrintWriter errWriter = new PrintWriter(new LineWriter(out, ERROR_OUTPUT))) {
+                try {
+                    exitCode = jlink.run(outWriter, errWriter, jlinkArgs.toArray(new String[0]));
+                } catch (RuntimeException e) {
+                    e.printStackTrace(errWriter);
+                    exitCode = 1;
+                }
+            }
+            synchronized (out) {
+                out.writeInt(EXIT);
+                out.writeInt(exitCode);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * @return the arguments of the next request, or {@code null} at the end of the stream
+     */
+    static List<String> readRequest(DataInputStream in) throws IOException {
+        int count;
+        try {
+            count = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    static void writeRequest(DataOutputStream out, List<String> jlinkArgs) throws IOException {
+        out.writeInt(jlinkArgs.size());
+        for (String arg : jlinkArgs) {
+            writeString(out, arg);
+        }
+        out.flush();
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        // unlike writeUTF not limited to 64 KiB, which a module path can exceed
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes each line printed by jlink to the results as soon as it is complete.
+     */
+    private static final class LineWriter extends Writer {
+        private final DataOutputStream out;
+
+        private final int type;
+
+        private final StringBuilder line = new StringBuilder();
+
+        LineWriter(DataOutputStream out, int type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                char c = cbuf[i];
+                if (c == '\n') {
+                    writeLine();
+                } else if (c != '\r') {
+                    line.append(c);
+                }
+            }
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() throws IOException {
+            if (line.length() > 0) {
+                writeLine();
+            }
+        }
+
+        private void writeLine() throws IOException {
+            synchronized (out) {
+                out.writeInt(type);
+                writeString(out, line.toString());
+                out.flush();
+            }
+            line.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Long-lived {@link JLinkWorker} JVMs, shared by all executions of the plugin in the same Maven session.
+ *
+ * <p>There is one pool of workers per {@code java} executable. A worker runs one request at a time, so a new
+ * worker is started if all workers of a JDK are busy, for example while linking {@link Variant}s in parallel.
+ * The pool is a component of the plugin, see {@code META-INF/plexus/components.xml}. Its idle workers are stopped
+ * by the {@link JLinkWorkerPoolLifecycleParticipant} at the end of the session, which Maven only calls if the
+ * plugin is declared with {@code <extensions>true</extensions>}, like for the {@code jlink} packaging. Otherwise a
+ * worker stops with the Maven JVM, as it stops by itself as soon as its {@code stdin} is closed.</p>
+ */
+public final class JLinkWorkerPool {
+    private static final long STOP_TIMEOUT_SECONDS = 5;
+
+    private final Map<String, Deque<Worker>> idleWorkers = new HashMap<>();
+
+    /**
+     * Thrown if no worker can be started, for example because the JDK is too old. Nothing has been run then.
+     */
+    static final class StartException extends IOException {
+        StartException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Runs jlink in a worker of the given JDK.
+     *
+     * @param javaExecutable the {@code java} executable of the JDK
+     * @param jlinkArgs the arguments of jlink
+     * @param output receives each line of the output of jlink while jlink runs
+     * @param errorOutput receives each line of the error output of jlink while jlink runs
+     * @return the exit code of jlink
+     * @throws StartException if no worker can be started
+     * @throws IOException if the worker terminated unexpectedly
+     */
+    int run(File javaExecutable, List<String> jlinkArgs, Consumer<String> output, Consumer<String> errorOutput)
+            throws IOException {
+        Worker worker = borrow(javaExecutable);
+        int exitCode;
+        try {
+            exitCode = worker.run(jlinkArgs, output, errorOutput);
+        } catch (IOException e) {
+            worker.stop();
+            throw e;
+        }
+        release(javaExecutable, worker);
+        return exitCode;
+    }
+
+    /**
+     * Stops all idle workers.
+     */
+    void stopAll() {
+        List<Worker> workers = new ArrayList<>();
+        synchronized (idleWorkers) {
+            idleWorkers.values().forEach(workers::addAll);
+            idleWorkers.clear();
+        }
+        workers.forEach(Worker::stop);
+    }
+
+    private Worker borrow(File javaExecutable) throws IOException {
+        synchronized (idleWorkers) {
+            Deque<Worker> idle = idleWorkers.get(javaExecutable.getAbsolutePath());
+            while (idle != null && !idle.isEmpty()) {
+                Worker worker = idle.pop();
+                if (worker.process.isAlive()) {
+                    return worker;
+                }
+            }
+        }
+        return Worker.start(javaExecutable);
+    }
+
+    private void release(File javaExecutable, Worker worker) {
+        synchronized (idleWorkers) {
+            idleWorkers
+                    .computeIfAbsent(javaExecutable.getAbsolutePath(), key -> new ArrayDeque<>())
+                    .push(worker);
+        }
+    }
+
+    private static final class Worker {
+        private final Process process;
+        private final DataOutputStream requests;
+        private final DataInputStream results;
+
+        private Worker(Process process) {
+            this.process = process;
+            this.requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.results = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        static Worker start(File javaExecutable) throws IOException {
+            String classPath;
+            try {
+                classPath = Paths.get(JLinkWorker.class
+                                .getProtectionDomain()
+                                .getCodeSource()
+                                .getLocation()
+                                .toURI())
+                        .toString();
+            } catch (URISyntaxException | RuntimeException e) {
+                throw new StartException("Unable to locate the classes of the jlink worker: " + e.getMessage(), e);
+            }
+
+            ProcessBuilder processBuilder = new ProcessBuilder(
+                    javaExecutable.getAbsolutePath(), "-cp", classPath, JLinkWorker.class.getName());
+            processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            Worker worker = null;
+            try {
+                worker = new Worker(processBuilder.start());
+                if (worker.results.readInt() != JLinkWorker.MAGIC) {
+                    throw new IOException("Unexpected response of the jlink worker.");
+                }
+            } catch (IOException e) {
+                if (worker != null) {
+                    worker.stop();
+                }
+                throw new StartException(
+                        "Unable to start a jlink worker with " + javaExecutable + ": " + e.getMessage(), e);
+            }
+            return worker;
+        }
+
+        int run(List<String> jlinkArgs, Consumer<String> output, Consumer<String> errorOutput) throws IOException {
+            JLinkWorker.writeRequest(requests, jlinkArgs);
+            while (true) {
+                int type = results.readInt();
+                if (type == JLinkWorker.EXIT) {
+                    return results.readInt();
+                } else if (type == JLinkWorker.OUTPUT) {
+                    output.accept(JLinkWorker.readString(results));
+                } else if (type == JLinkWorker.ERROR_OUTPUT) {
+                    errorOutput.accept(JLinkWorker.readString(results));
+                } else {
+                    throw new IOException("Unexpected response of the jlink worker: " + type);
+                }
+            }
+        }
+
+        void stop() {
+            try {
+                // the worker exits at the end of its input
+                requests.close();
+                if (!process.waitFor(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (IOException e) {
+                process.destroyForcibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+}
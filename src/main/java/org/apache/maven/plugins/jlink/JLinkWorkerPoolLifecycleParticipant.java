@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Stops the idle workers of the {@link JLinkWorkerPool} at the end of the Maven session, so they do not outlive
+ * the session in a Maven JVM which runs several builds. The pool is injected by
+ * {@code META-INF/plexus/components.xml}.
+ */
+public final class JLinkWorkerPoolLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+    private JLinkWorkerPool workerPool;
+
+    public JLinkWorkerPoolLifecycleParticipant() {}
+
+    JLinkWorkerPoolLifecycleParticipant(JLinkWorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+
+    @Override
+    public void afterSessionEnd(MavenSession session) {
+        workerPool.stopAll();
+    }
+}
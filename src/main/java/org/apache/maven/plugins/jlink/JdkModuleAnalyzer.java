@@ -0,0 +1,436 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.module.Configuration;
+import java.lang.module.FindException;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.lang.module.ResolutionException;
+import java.lang.module.ResolvedModule;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.spi.ToolProvider;
+import java.util.stream.Collectors;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Computes the modules of the JDK which the classes of the modules to link actually use, with
+ * {@code jdeps --print-module-deps}.
+ *
+ * <p>jdeps analyzes the bytecode, so modules which are only used by reflection or the {@code ServiceLoader} are not
+ * part of the result and have to be added as hints. The modules required by the module descriptors are resolved by
+ * jlink anyway, so the result is used to drop the other modules: the modules added just in case and the providers
+ * of services bound by {@code --bind-services}. To report what is dropped, the modules of the image are resolved the
+ * same way as jlink resolves them, with and without the result.</p>
+ */
+final class JdkModuleAnalyzer {
+    private static final String KEY_PREFIX = "# key: ";
+
+    /**
+     * Serializes the in-process runs of jdeps, which are not known to be thread-safe.
+     */
+    static final Object JDEPS_LOCK = new Object();
+
+    private final Log log;
+
+    /**
+     * The modules to add and the limit modules of an image with the computed JDK modules, and the modules this
+     * removes from the image.
+     */
+    static final class Selection {
+        private final List<String> modulesToAdd;
+
+        private final List<String> limitModules;
+
+        private final Set<String> removedModules;
+
+        Selection(List<String> modulesToAdd, List<String> limitModules, Set<String> removedModules) {
+            this.modulesToAdd = modulesToAdd;
+            this.limitModules = limitModules;
+            this.removedModules = removedModules;
+        }
+
+        List<String> getModulesToAdd() {
+            return modulesToAdd;
+        }
+
+        List<String> getLimitModules() {
+            return limitModules;
+        }
+
+        Set<String> getRemovedModules() {
+            return removedModules;
+        }
+    }
+
+    /**
+     * @param log the log for the warnings of jdeps and the removed modules
+     */
+    JdkModuleAnalyzer(Log log) {
+        this.log = log;
+    }
+
+    /**
+     * Computes the JDK modules used by the modules, or reads them if they have been computed for the same modules
+     * and JDK before.
+     *
+     * @param moduleFiles the jar files and directories of the modules to analyze
+     * @param jdk a description of the JDK, part of the key of the stored result
+     * @param resultFile the file of the stored result
+     * @param jdepsExecutable the jdeps executable of the toolchain, empty to run jdeps of the running JDK in-process
+     * @param javaVersion the feature version of the JDK which links the image
+     * @return the names of the JDK modules the classes use
+     * @throws MojoExecutionException if jdeps fails
+     */
+    Set<String> computeJdkModules(
+            Collection<File> moduleFiles,
+            String jdk,
+            File resultFile,
+            Optional<File> jdepsExecutable,
+            int javaVersion)
+            throws MojoExecutionException {
+        String key;
+        try {
+            JLinkFingerprint fingerprint =
+                    new JLinkFingerprint().add("jdk", jdk).add("javaVersion", Integer.toString(javaVersion));
+            for (File moduleFile : moduleFiles) {
+                fingerprint.addMetadata("module", moduleFile);
+            }
+            key = fingerprint.toHex();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to create the fingerprint of the modules: " + e.getMessage(), e);
+        }
+
+        Optional<Set<String>> stored = read(resultFile, key);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        Set<String> jdkModules = analyze(moduleFiles, jdepsExecutable, javaVersion);
+        try {
+            write(resultFile, key, jdkModules);
+        } catch (IOException e) {
+            log.warn("Unable to store the JDK modules in " + resultFile + ": " + e.getMessage());
+        }
+        return jdkModules;
+    }
+
+    /**
+     * Replaces the JDK modules to add by the computed JDK modules, and limits the modules to them and the other
+     * modules to add unless limit modules are configured. The modules of the image are resolved before and after,
+     * like jlink resolves them, to log the removed modules.
+     *
+     * @param jdkModules the computed JDK modules
+     * @param modulesToAdd the configured modules to add and the modules of the module path
+     * @param otherModulesToAdd modules jlink adds as well, like {@code jdk.localedata} for the locales
+     * @param limitModules the configured limit modules, {@code null} if there are none
+     * @param pathsOfModules the module path of jlink, including the {@code jmods} folder
+     * @param jmodsFolder the {@code jmods} folder, the modules of the running JDK are linked without
+     * @param bindServices whether jlink binds services
+     * @return the new modules to add and limit modules, empty if the modules can not be resolved, so jlink reports
+     *         the problem with the configured modules
+     */
+    Optional<Selection> select(
+            Set<String> jdkModules,
+            Collection<String> modulesToAdd,
+            Collection<String> otherModulesToAdd,
+            List<String> limitModules,
+            Collection<String> pathsOfModules,
+            Optional<File> jmodsFolder,
+            boolean bindServices) {
+        ModuleFinder jdkFinder = jdkFinder(jmodsFolder);
+        ModuleFinder finder = finder(pathsOfModules, jmodsFolder, jdkFinder);
+
+        Set<String> existingJdkModules = new TreeSet<>();
+        for (String module : jdkModules) {
+            if (jdkFinder.find(module).isPresent()) {
+                existingJdkModules.add(module);
+            } else {
+                log.warn("The JDK module " + module + " does not exist in the JDK to link.");
+            }
+        }
+        List<String> roots = new ArrayList<>(modulesToAdd);
+        roots.removeIf(module -> jdkFinder.find(module).isPresent() && !existingJdkModules.contains(module));
+        existingJdkModules.stream().filter(module -> !roots.contains(module)).forEach(roots::add);
+        List<String> limits = new ArrayList<>();
+        if (limitModules != null && !limitModules.isEmpty()) {
+            limits.addAll(limitModules);
+        } else {
+            roots.stream()
+                    .filter(module -> !jdkFinder.find(module).isPresent())
+                    .forEach(limits::add);
+            limits.addAll(existingJdkModules);
+        }
+
+        Set<String> removed;
+        try {
+            List<String> rootsBefore = new ArrayList<>(modulesToAdd);
+            rootsBefore.addAll(otherModulesToAdd);
+            Set<String> before = resolve(
+                    finder, rootsBefore, limitModules != null ? limitModules : List.of(), bindServices);
+            List<String> rootsAfter = new ArrayList<>(roots);
+            rootsAfter.addAll(otherModulesToAdd);
+            removed = new TreeSet<>(before);
+            removed.removeAll(resolve(finder, rootsAfter, limits, bindServices));
+        } catch (FindException | ResolutionException e) {
+            log.warn("Unable to resolve the modules with the computed JDK modules, linking the configured modules: "
+                    + e.getMessage());
+            return Optional.empty();
+        }
+
+        if (removed.isEmpty()) {
+            log.info("No modules removed from the Run Time Image by the computed JDK modules.");
+        } else {
+            log.info("Modules removed from the Run Time Image by the computed JDK modules: "
+                    + String.join(", ", removed));
+        }
+        return Optional.of(new Selection(roots, limits, removed));
+    }
+
+    /**
+     * Runs jdeps of the toolchain, or of the running JDK in-process without a toolchain. Multi-release jar files are
+     * analyzed with the classes for the version of the JDK which links the image.
+     *
+     * @param moduleFiles the jar files and directories of the modules to analyze
+     * @param jdepsExecutable the jdeps executable of the toolchain, empty to run jdeps of the running JDK in-process
+     * @param javaVersion the feature version of the JDK which links the image
+     * @return the names of the JDK modules the classes use
+     * @throws MojoExecutionException if jdeps fails
+     */
+    Set<String> analyze(Collection<File> moduleFiles, Optional<File> jdepsExecutable, int javaVersion)
+            throws MojoExecutionException {
+        List<String> args = new ArrayList<>();
+        args.add("--print-module-deps");
+        args.add("--ignore-missing-deps");
+        args.add("--multi-release");
+        args.add(Integer.toString(javaVersion));
+        args.add("--module-path");
+        args.add(moduleFiles.stream().map(File::getPath).collect(Collectors.joining(File.pathSeparator)));
+        moduleFiles.forEach(file -> args.add(file.getPath()));
+        if (jdepsExecutable.isPresent()) {
+            return parseModuleDeps(runForked(jdepsExecutable.get(), args));
+        }
+
+        ToolProvider jdeps = ToolProvider.findFirst("jdeps")
+                .orElseThrow(() -> new MojoExecutionException("No jdeps tool found."));
+        if (log.isDebugEnabled()) {
+            log.debug(jdeps.name() + " " + args);
+        }
+
+        StringWriter output = new StringWriter();
+        JLinkOutputConsumer errorOutput = new JLinkOutputConsumer(log::debug);
+        int exitCode;
+        try (PrintWriter out = new PrintWriter(output);
+                PrintWriter err = errorOutput.asWriter()) {
+            synchronized (JDEPS_LOCK) {
+                exitCode = jdeps.run(out, err, args.toArray(new String[0]));
+            }
+        }
+        if (exitCode != 0) {
+            throw failure(exitCode, errorOutput, jdeps.name() + " " + args);
+        }
+        return parseModuleDeps(output.toString());
+    }
+
+    /**
+     * Runs the jdeps executable of a toolchain.
+     *
+     * @return the output of jdeps
+     */
+    private String runForked(File jdepsExecutable, List<String> args) throws MojoExecutionException {
+        List<String> command = new ArrayList<>();
+        command.add(jdepsExecutable.getAbsolutePath());
+        command.addAll(args);
+        String commandLine = String.join(" ", command);
+        if (log.isDebugEnabled()) {
+            log.debug(commandLine);
+        }
+
+        StringBuilder output = new StringBuilder();
+        JLinkOutputConsumer errorOutput = new JLinkOutputConsumer(log::debug);
+        try {
+            Process process = new ProcessBuilder(command).start();
+            process.getOutputStream().close();
+            CompletableFuture<Void> errorOutputRead = CompletableFuture.runAsync(
+                    () -> {
+                        try {
+                            errorOutput.consume(process.getErrorStream(), Charset.defaultCharset());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    },
+                    runnable -> new Thread(runnable, "jdeps-stderr").start());
+            new JLinkOutputConsumer(line -> output.append(line).append('\n'))
+                    .consume(process.getInputStream(), Charset.defaultCharset());
+            int exitCode = process.waitFor();
+            errorOutputRead.join();
+            if (exitCode != 0) {
+                throw failure(exitCode, errorOutput, commandLine);
+            }
+        } catch (IOException | CompletionException e) {
+            throw new MojoExecutionException("Unable to execute jdeps command: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while executing jdeps", e);
+        }
+        return output.toString();
+    }
+
+    private static MojoExecutionException failure(int exitCode, JLinkOutputConsumer errorOutput, String commandLine) {
+        return new MojoExecutionException("Unable to compute the JDK modules with jdeps.\nExit code: " + exitCode
+                + " - " + errorOutput.getTail() + "\nCommand line was: " + commandLine + "\n");
+    }
+
+    /**
+     * @param output the output of {@code jdeps --print-module-deps}
+     * @return the module names of the last line, which is the comma separated list of modules
+     */
+    static Set<String> parseModuleDeps(String output) {
+        List<String> lines = output.trim().lines().collect(Collectors.toList());
+        Set<String> modules = new TreeSet<>();
+        if (!lines.isEmpty()) {
+            for (String module : lines.get(lines.size() - 1).split(",")) {
+                if (!module.trim().isEmpty()) {
+                    modules.add(module.trim());
+                }
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * @param jmodsFolder the {@code jmods} folder, the modules of the running JDK are linked without
+     * @return finds the modules of the JDK to link
+     */
+    static ModuleFinder jdkFinder(Optional<File> jmodsFolder) {
+        return jmodsFolder.isPresent()
+                ? new JmodModuleFinder(jmodsFolder.get().toPath())
+                : ModuleFinder.ofSystem();
+    }
+
+    /**
+     * @param pathsOfModules the module path of jlink
+     * @param jmodsFolder the {@code jmods} folder on the module path, whose modules are found by the jdkFinder
+     * @param jdkFinder finds the modules of the JDK to link
+     * @return finds the modules of the module path, and the modules of the JDK
+     */
+    static ModuleFinder finder(
+            Collection<String> pathsOfModules, Optional<File> jmodsFolder, ModuleFinder jdkFinder) {
+        Optional<Path> jmods = jmodsFolder.map(folder -> folder.toPath().toAbsolutePath());
+        Path[] paths = pathsOfModules.stream()
+                .map(Paths::get)
+                .filter(path -> !jmods.isPresent() || !path.toAbsolutePath().equals(jmods.get()))
+                .toArray(Path[]::new);
+        return ModuleFinder.compose(ModuleFinder.of(paths), jdkFinder);
+    }
+
+    /**
+     * Resolves the modules of an image like jlink: the universe of observable modules is limited to the modules
+     * required by the limit modules, plus the root modules, and the root modules are resolved in it.
+     *
+     * @param finder finds the modules of the module path, including the modules of the JDK
+     * @param roots the modules to add
+     * @param limits the modules to limit the universe to, none to not limit it
+     * @param bindServices whether the providers of the used services are resolved as well
+     * @return the names of the modules of the image
+     * @throws java.lang.module.FindException if a module is not found
+     * @throws java.lang.module.ResolutionException if the modules can not be resolved
+     */
+    static Set<String> resolve(
+            ModuleFinder finder, Collection<String> roots, Collection<String> limits, boolean bindServices) {
+        ModuleFinder universe = finder;
+        if (!limits.isEmpty()) {
+            Map<String, ModuleReference> observable = new HashMap<>();
+            for (ResolvedModule module :
+                    Configuration.empty().resolve(finder, ModuleFinder.of(), limits).modules()) {
+                observable.put(module.name(), module.reference());
+            }
+            for (String root : roots) {
+                finder.find(root).ifPresent(reference -> observable.putIfAbsent(root, reference));
+            }
+            universe = new ModuleFinder() {
+                @Override
+                public Optional<ModuleReference> find(String name) {
+                    return Optional.ofNullable(observable.get(name));
+                }
+
+                @Override
+                public Set<ModuleReference> findAll() {
+                    return new HashSet<>(observable.values());
+                }
+            };
+        }
+        Configuration configuration = bindServices
+                ? Configuration.empty().resolveAndBind(universe, ModuleFinder.of(), roots)
+                : Configuration.empty().resolve(universe, ModuleFinder.of(), roots);
+        return configuration.modules().stream()
+                .map(ResolvedModule::name)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * @param file the file of the stored result
+     * @param key the key of the analyzed modules
+     * @return the stored result, if it was computed for the same modules
+     */
+    static Optional<Set<String>> read(File file, String key) {
+        try {
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            if (lines.size() == 2 && lines.get(0).equals(KEY_PREFIX + key)) {
+                return Optional.of(parseModuleDeps(lines.get(1)));
+            }
+        } catch (IOException e) {
+            // computed again
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param file the file of the stored result
+     * @param key the key of the analyzed modules
+     * @param modules the names of the JDK modules
+     * @throws IOException if the file can not be written
+     */
+    static void write(File file, String key, Set<String> modules) throws IOException {
+        Path path = file.toPath();
+        Files.createDirectories(path.getParent());
+        Files.write(path, List.of(KEY_PREFIX + key, String.join(",", modules)), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.module.FindException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds the modules of the {@code jmods} folder of a JDK by the names of their jmod files.
+ *
+ * <p>{@link ModuleFinder#of(Path...)} refuses jmod files outside of jlink, so the module descriptor is read from
+ * {@code classes/module-info.class} of the jmod file, which is a zip file behind a short header. The descriptors of
+ * the JDK modules record all their packages. The modules can be resolved, but not read.</p>
+ */
+final class JmodModuleFinder implements ModuleFinder {
+    private static final String JMOD_EXTENSION = ".jmod";
+
+    private final Path folder;
+
+    private final Map<String, Optional<ModuleReference>> references = new ConcurrentHashMap<>();
+
+    /**
+     * @param folder the {@code jmods} folder
+     */
+    JmodModuleFinder(Path folder) {
+        this.folder = folder;
+    }
+
+    @Override
+    public Optional<ModuleReference> find(String name) {
+        return references.computeIfAbsent(name, key -> read(key, folder.resolve(key + JMOD_EXTENSION)));
+    }
+
+    @Override
+    public Set<ModuleReference> findAll() {
+        Set<ModuleReference> all = new HashSet<>();
+        try (DirectoryStream<Path> jmods = Files.newDirectoryStream(folder, "*" + JMOD_EXTENSION)) {
+            for (Path jmod : jmods) {
+                String fileName = jmod.getFileName().toString();
+                find(fileName.substring(0, fileName.length() - JMOD_EXTENSION.length()))
+                        .ifPresent(all::add);
+            }
+        } catch (IOException e) {
+            throw new FindException("Unable to list the jmod files of " + folder + ": " + e.getMessage(), e);
+        }
+        return all;
+    }
+
+    private static Optional<ModuleReference> read(String name, Path jmod) {
+        if (!Files.isRegularFile(jmod)) {
+            return Optional.empty();
+        }
+        try (ZipFile zipFile = new ZipFile(jmod.toFile())) {
+            ZipEntry entry = zipFile.getEntry("classes/module-info.class");
+            if (entry == null) {
+                throw new FindException("The jmod file " + jmod + " has no module descriptor.");
+            }
+            ModuleDescriptor descriptor;
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                descriptor = ModuleDescriptor.read(in);
+            }
+            if (!descriptor.name().equals(name)) {
+                return Optional.empty();
+            }
+            return Optional.of(new JmodReference(descriptor, jmod.toUri()));
+        } catch (IOException e) {
+            throw new FindException("Unable to read the jmod file " + jmod + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static final class JmodReference extends ModuleReference {
+        JmodReference(ModuleDescriptor descriptor, URI location) {
+            super(descriptor, location);
+        }
+
+        @Override
+        public ModuleReader open() throws IOException {
+            throw new IOException("The jmod file " + location().orElse(null) + " can only be read by jlink.");
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor.JavaExports;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor.JavaProvides;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor.JavaRequires;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor.JavaRequires.JavaModifier;
+
+/**
+ * An on-disk cache of the module descriptors of jar files, so that unchanged dependencies do not have to be opened
+ * and parsed on every build.
+ *
+ * <p>Entries are keyed by the absolute path of the jar file and are only used if its size and modification time
+ * are unchanged. Optionally, the SHA-256 digest of the content is compared as well, which reads the jar file but
+ * still saves parsing it. A SNAPSHOT jar replaced in the local repository has a new modification time, so its
+ * entry is not used anymore.</p>
+ *
+ * <p>The descriptor of a multi-release jar file depends on the Java version of the JDK which links the modules, so
+ * the entries are keyed by the Java version as well, and builds with different toolchains can share the cache
+ * file.</p>
+ *
+ * <p>The cache file is a text file with one line per jar file and tab separated columns:</p>
+ * <pre>
+ * path  java-version  size  last-modified  sha-256 or -  module|automatic  name  requires  exports  provides  uses
+ * </pre>
+ * <p>The lists are separated by commas and use the syntax of {@code module-info.java}, for example
+ * {@code transitive java.logging} or {@code org.example.spi with org.example.Impl}.</p>
+ *
+ * <p>The file is replaced atomically, so concurrent builds sharing it never read a partially written file. Entries
+ * added by a concurrent build may be lost, which only results in a cache miss later.</p>
+ */
+class ModuleDescriptorCache {
+    private static final String HEADER = "# maven-jlink-plugin module descriptors 2";
+
+    private static final String SEPARATOR = "\t";
+
+    private static final String NO_DIGEST = "-";
+
+    /**
+     * Files modified this recently are not cached: they might be replaced again by a file of the same size within
+     * the resolution of the modification time.
+     */
+    private static final long MIN_AGE_MILLIS = 2000;
+
+    /**
+     * Builds of the same JVM sharing the cache file are serialized while replacing it.
+     */
+    private static final Object JVM_LOCK = new Object();
+
+    private final File cacheFile;
+
+    private final int javaVersion;
+
+    private final boolean verifyContent;
+
+    private final Log log;
+
+    private final Map<String, CacheEntry> entries = new TreeMap<>();
+
+    private boolean modified;
+
+    private int hits;
+
+    private int misses;
+
+    private ModuleDescriptorCache(File cacheFile, int javaVersion, boolean verifyContent, Log log) {
+        this.cacheFile = cacheFile;
+        this.javaVersion = javaVersion;
+        this.verifyContent = verifyContent;
+        this.log = log;
+    }
+
+    /**
+     * Reads the cache file. A missing or unreadable cache file results in an empty cache.
+     *
+     * @param cacheFile the cache file
+     * @param javaVersion the feature version of the JDK which links the modules
+     * @param verifyContent whether to compare the SHA-256 digest of the content as well
+     * @param log the log of the mojo
+     * @return the cache
+     */
+    static ModuleDescriptorCache load(File cacheFile, int javaVersion, boolean verifyContent, Log log) {
+        ModuleDescriptorCache cache = new ModuleDescriptorCache(cacheFile, javaVersion, verifyContent, log);
+        if (!cacheFile.isFile()) {
+            return cache;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                log.debug("Ignoring module descriptor cache " + cacheFile + " of an unknown version.");
+                return cache;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                CacheEntry entry = CacheEntry.parse(line);
+                cache.entries.put(key(entry.path, entry.javaVersion), entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Ignoring unreadable module descriptor cache " + cacheFile + ": " + e.getMessage());
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * @param file a jar file
+     * @return the cached descriptor of the jar file, or empty if it is not cached or has changed
+     * @throws IOException if the attributes or the content of the file can not be read
+     */
+    Optional<JavaModuleDescriptor> get(File file) throws IOException {
+        CacheEntry entry = file.isFile() ? entries.get(key(file.getAbsolutePath(), javaVersion)) : null;
+        if (entry != null
+                && entry.size == file.length()
+                && entry.lastModified == file.lastModified()
+                && (!verifyContent || entry.digest.equals(digest(file)))) {
+            hits++;
+            return Optional.of(entry.descriptor);
+        }
+        misses++;
+        return Optional.empty();
+    }
+
+    /**
+     * Adds the descriptor of a jar file. Directories and files which have just been modified are not cached.
+     *
+     * @param file a jar file
+     * @param descriptor the descriptor read from the file
+     * @throws IOException if the attributes or the content of the file can not be read
+     */
+    void put(File file, JavaModuleDescriptor descriptor) throws IOException {
+        long lastModified = file.lastModified();
+        String path = file.getAbsolutePath();
+        if (!file.isFile()
+                || System.currentTimeMillis() - lastModified < MIN_AGE_MILLIS
+                || path.contains(SEPARATOR)
+                || path.contains("\n")) {
+            return;
+        }
+        String digest = verifyContent ? digest(file) : NO_DIGEST;
+        entries.put(
+                key(path, javaVersion),
+                new CacheEntry(path, javaVersion, file.length(), lastModified, digest, descriptor));
+        modified = true;
+    }
+
+    /**
+     * @return the cache file
+     */
+    File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Writes the cache file if entries have been added. Entries of files which do not exist anymore are removed.
+     *
+     * @throws IOException if the cache file can not be written
+     */
+    void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        entries.values().removeIf(entry -> !new File(entry.path).isFile());
+
+        Path target = cacheFile.toPath();
+        Files.createDirectories(target.getParent());
+        synchronized (JVM_LOCK) {
+            Path temp = Files.createTempFile(target.getParent(), cacheFile.getName(), ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write(HEADER);
+                    writer.newLine();
+                    for (CacheEntry entry : entries.values()) {
+                        writer.write(entry.format());
+                        writer.newLine();
+                    }
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        modified = false;
+    }
+
+    /**
+     * Logs the number of hits and misses.
+     */
+    void logStatistics() {
+        log.debug("Module descriptor cache: " + hits + " hits, " + misses + " misses.");
+    }
+
+    int getHits() {
+        return hits;
+    }
+
+    int getMisses() {
+        return misses;
+    }
+
+    private static String key(String path, int javaVersion) {
+        return path + SEPARATOR + javaVersion;
+    }
+
+    private static String digest(File file) throws IOException {
+        return new JLinkFingerprint().addContent("", file).toHex();
+    }
+
+    private static final class CacheEntry {
+        private final String path;
+        private final int javaVersion;
+        private final long size;
+        private final long lastModified;
+        private final String digest;
+        private final JavaModuleDescriptor descriptor;
+
+        CacheEntry(
+                String path,
+                int javaVersion,
+                long size,
+                long lastModified,
+                String digest,
+                JavaModuleDescriptor descriptor) {
+            this.path = path;
+            this.javaVersion = javaVersion;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+            this.descriptor = descriptor;
+        }
+
+        String format() {
+            return String.join(
+                    SEPARATOR,
+                    path,
+                    Integer.toString(javaVersion),
+                    Long.toString(size),
+                    Long.toString(lastModified),
+                    digest,
+                    descriptor.isAutomatic() ? "automatic" : "module",
+                    descriptor.name(),
+                    join(descriptor.requires(), ModuleDescriptorCache::formatRequires),
+                    join(descriptor.exports(), ModuleDescriptorCache::formatExports),
+                    join(descriptor.provides(), ModuleDescriptorCache::formatProvides),
+                    join(descriptor.uses(), uses -> uses));
+        }
+
+        static CacheEntry parse(String line) {
+            String[] columns = line.split(SEPARATOR, -1);
+            if (columns.length != 11) {
+                throw new IllegalArgumentException("Invalid line: " + line);
+            }
+            JavaModuleDescriptor.Builder builder = "automatic".equals(columns[5])
+                    ? JavaModuleDescriptor.newAutomaticModule(columns[6])
+                    : JavaModuleDescriptor.newModule(columns[6]);
+            for (String requires : split(columns[7])) {
+                List<String> words = Arrays.asList(requires.split(" "));
+                Set<JavaModifier> modifiers = EnumSet.noneOf(JavaModifier.class);
+                for (String modifier : words.subList(0, words.size() - 1)) {
+                    modifiers.add(JavaModifier.valueOf(modifier.toUpperCase(Locale.ROOT)));
+                }
+                builder.requires(modifiers, words.get(words.size() - 1));
+            }
+            for (String exports : split(columns[8])) {
+                String[] words = exports.split(" ");
+                if (words.length == 1) {
+                    builder.exports(words[0]);
+                } else {
+                    builder.exports(words[0], new LinkedHashSet<>(Arrays.asList(words).subList(2, words.length)));
+                }
+            }
+            for (String provides : split(columns[9])) {
+                String[] words = provides.split(" ");
+                builder.provides(words[0], Arrays.asList(words).subList(2, words.length));
+            }
+            for (String uses : split(columns[10])) {
+                builder.uses(uses);
+            }
+            return new CacheEntry(
+                    columns[0],
+                    Integer.parseInt(columns[1]),
+                    Long.parseLong(columns[2]),
+                    Long.parseLong(columns[3]),
+                    columns[4],
+                    builder.build());
+        }
+    }
+
+    private static String formatRequires(JavaRequires requires) {
+        StringBuilder sb = new StringBuilder();
+        for (JavaModifier modifier : new TreeSet<>(requires.modifiers())) {
+            sb.append(modifier.name().toLowerCase(Locale.ROOT)).append(' ');
+        }
+        return sb.append(requires.name()).toString();
+    }
+
+    private static String formatExports(JavaExports exports) {
+        if (exports.targets() == null || exports.targets().isEmpty()) {
+            return exports.source();
+        }
+        return exports.source() + " to " + String.join(" ", exports.targets());
+    }
+
+    private static String formatProvides(JavaProvides provides) {
+        return provides.service() + " with " + String.join(" ", provides.providers());
+    }
+
+    private static <T> String join(Collection<T> values, Function<T, String> formatter) {
+        if (values == null) {
+            return "";
+        }
+        return values.stream().map(formatter).collect(Collectors.joining(","));
+    }
+
+    private static List<String> split(String column) {
+        return column.isEmpty() ? List.of() : new ArrayList<>(Arrays.asList(column.split(",")));
+    }
+}
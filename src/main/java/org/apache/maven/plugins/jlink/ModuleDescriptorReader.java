@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.module.InvalidModuleDescriptorException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleDescriptor.Requires;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipException;
+
+import javax.lang.model.SourceVersion;
+
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor.JavaRequires.JavaModifier;
+
+/**
+ * Reads the module descriptors of jar files on several threads.
+ *
+ * <p>Opening a jar file only reads its central directory. Of the entries, only {@code module-info.class} and, if
+ * needed, the manifest are read. The descriptors are the same as the ones of the {@code LocationManager} of
+ * plexus-java:</p>
+ * <ol>
+ * <li>{@code module-info.class} in the root of the jar file, or for multi-release jar files in
+ * {@code META-INF/versions/N} with the highest {@code N} not above the version of the JDK which links the
+ * modules,</li>
+ * <li>an automatic module named by the {@code Automatic-Module-Name} attribute of the manifest,</li>
+ * <li>an automatic module named after the jar file, derived the same way as by the JDK.</li>
+ * </ol>
+ *
+ * <p>The {@code LocationManager} derives names from file names in a separate JVM, which is the most expensive
+ * part of resolving the dependencies. Files which can not be handled here, like directories, or module
+ * descriptors of a newer class file version than supported by the running JVM, have no descriptor in the
+ * result and have to be resolved by the {@code LocationManager}.</p>
+ */
+class ModuleDescriptorReader {
+    private static final String MODULE_INFO = "module-info.class";
+
+    private static final String VERSIONS = "META-INF/versions/";
+
+    private static final Attributes.Name MULTI_RELEASE = new Attributes.Name("Multi-Release");
+
+    private static final Attributes.Name AUTOMATIC_MODULE_NAME = new Attributes.Name("Automatic-Module-Name");
+
+    private static final Pattern DASH_VERSION = Pattern.compile("-(\\d+(\\.|$))");
+
+    private static final Pattern NON_ALPHANUM = Pattern.compile("[^A-Za-z0-9]");
+
+    private static final Pattern REPEATING_DOTS = Pattern.compile("(\\.)(\\1)+");
+
+    private static final Pattern LEADING_DOTS = Pattern.compile("^\\.");
+
+    private static final Pattern TRAILING_DOTS = Pattern.compile("\\.$");
+
+    private final int threads;
+
+    private final int javaVersion;
+
+    /**
+     * @param threads the maximum number of jar files read at the same time
+     */
+    ModuleDescriptorReader(int threads) {
+        this(threads, Runtime.version().feature());
+    }
+
+    /**
+     * @param threads the maximum number of jar files read at the same time
+     * @param javaVersion the feature version of the JDK which links the modules, it selects the
+     *        {@code module-info.class} of a multi-release jar file
+     */
+    ModuleDescriptorReader(int threads, int javaVersion) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1, but was " + threads);
+        }
+        this.threads = threads;
+        this.javaVersion = javaVersion;
+    }
+
+    /**
+     * Reads the module descriptors of the given files.
+     *
+     * @param files the path elements
+     * @return all files in the given order, with a {@code null} descriptor for files which have to be resolved
+     *         by the {@code LocationManager}
+     * @throws IOException if a jar file can not be read
+     */
+    Map<File, JavaModuleDescriptor> read(Collection<File> files) throws IOException {
+        Map<File, JavaModuleDescriptor> descriptors = new LinkedHashMap<>();
+        if (files.isEmpty()) {
+            return descriptors;
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        try {
+            List<Future<JavaModuleDescriptor>> futures = new ArrayList<>();
+            for (File file : files) {
+                futures.add(executorService.submit(() -> read(file)));
+            }
+            int index = 0;
+            for (File file : files) {
+                descriptors.put(file, futures.get(index++).get());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading module descriptors", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+        return descriptors;
+    }
+
+    /**
+     * @param file a path element
+     * @return the module descriptor, or {@code null} if the file has to be resolved by the {@code LocationManager}
+     * @throws IOException if the jar file can not be read
+     */
+    JavaModuleDescriptor read(File file) throws IOException {
+        String fileName = file.getName();
+        if (!file.isFile() || fileName.toLowerCase(Locale.ROOT).endsWith(".jmod")) {
+            return null;
+        }
+
+        try (JarFile jarFile = new JarFile(file, false)) {
+            Manifest manifest = null;
+            JarEntry moduleInfo = jarFile.getJarEntry(MODULE_INFO);
+            if (moduleInfo == null) {
+                manifest = jarFile.getManifest();
+                if (manifest != null && Boolean.parseBoolean(manifest.getMainAttributes().getValue(MULTI_RELEASE))) {
+                    for (int version = javaVersion; version >= 9 && moduleInfo == null; version--) {
+                        moduleInfo = jarFile.getJarEntry(VERSIONS + version + '/' + MODULE_INFO);
+                    }
+                }
+            }
+
+            if (moduleInfo != null) {
+                try (InputStream is = jarFile.getInputStream(moduleInfo)) {
+                    return toJavaModuleDescriptor(ModuleDescriptor.read(is));
+                } catch (InvalidModuleDescriptorException e) {
+                    // for example a newer class file version than supported by this JVM
+                    return null;
+                }
+            }
+
+            String automaticModuleName =
+                    manifest != null ? manifest.getMainAttributes().getValue(AUTOMATIC_MODULE_NAME) : null;
+            if (automaticModuleName != null) {
+                return JavaModuleDescriptor.newAutomaticModule(automaticModuleName).build();
+            }
+        } catch (ZipException e) {
+            // not a jar file
+            return null;
+        }
+
+        String derivedName = deriveModuleName(fileName);
+        return derivedName != null ? JavaModuleDescriptor.newAutomaticModule(derivedName).build() : null;
+    }
+
+    /**
+     * Derives the name of an automatic module from the name of a jar file, see
+     * {@link java.lang.module.ModuleFinder#of(java.nio.file.Path...)}.
+     *
+     * @param fileName the name of the jar file
+     * @return the module name, or {@code null} if no valid name can be derived
+     */
+    static String deriveModuleName(String fileName) {
+        if (!fileName.endsWith(".jar")) {
+            return null;
+        }
+        String name = fileName.substring(0, fileName.length() - 4);
+        Matcher matcher = DASH_VERSION.matcher(name);
+        if (matcher.find()) {
+            name = name.substring(0, matcher.start());
+        }
+        name = NON_ALPHANUM.matcher(name).replaceAll(".");
+        name = REPEATING_DOTS.matcher(name).replaceAll(".");
+        name = LEADING_DOTS.matcher(name).replaceAll("");
+        name = TRAILING_DOTS.matcher(name).replaceAll("");
+        return SourceVersion.isName(name) ? name : null;
+    }
+
+    static JavaModuleDescriptor toJavaModuleDescriptor(ModuleDescriptor descriptor) {
+        JavaModuleDescriptor.Builder builder = JavaModuleDescriptor.newModule(descriptor.name());
+        for (Requires requires : descriptor.requires()) {
+            Set<JavaModifier> modifiers = new LinkedHashSet<>();
+            if (requires.modifiers().contains(Requires.Modifier.STATIC)) {
+                modifiers.add(JavaModifier.STATIC);
+            }
+            if (requires.modifiers().contains(Requires.Modifier.TRANSITIVE)) {
+                modifiers.add(JavaModifier.TRANSITIVE);
+            }
+            if (modifiers.isEmpty()) {
+                builder.requires(requires.name());
+            } else {
+                builder.requires(modifiers, requires.name());
+            }
+        }
+        for (ModuleDescriptor.Exports exports : descriptor.exports()) {
+            if (exports.targets().isEmpty()) {
+                builder.exports(exports.source());
+            } else {
+                builder.exports(exports.source(), exports.targets());
+            }
+        }
+        for (String uses : descriptor.uses()) {
+            builder.uses(uses);
+        }
+        for (ModuleDescriptor.Provides provides : descriptor.provides()) {
+            builder.provides(provides.service(), provides.providers());
+        }
+        return builder.build();
+    }
+}
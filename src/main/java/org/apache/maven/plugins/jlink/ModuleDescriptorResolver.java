@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor;
+
+/**
+ * Resolves the module descriptors of the path elements. Unchanged jar files are taken from the
+ * {@link ModuleDescriptorCache}, the other jar files are read in parallel by the {@link ModuleDescriptorReader},
+ * and only what it can not handle is resolved by the {@code LocationManager}. The descriptors of the path elements
+ * do not depend on each other, so resolving them separately gives the same result.
+ */
+final class ModuleDescriptorResolver {
+
+    /**
+     * Resolves the path elements which the {@link ModuleDescriptorReader} can not handle.
+     */
+    interface Fallback {
+        /**
+         * @param files the path elements
+         * @return the descriptors of the resolved path elements, the others are left out
+         * @throws IOException if a path element can not be read
+         */
+        Map<File, JavaModuleDescriptor> resolve(Collection<File> files) throws IOException;
+    }
+
+    private final ModuleDescriptorCache cache;
+
+    private final Fallback fallback;
+
+    private final int javaVersion;
+
+    private final Log log;
+
+    /**
+     * @param cache the cache of the descriptors, {@code null} to read all jar files
+     * @param fallback resolves what the {@link ModuleDescriptorReader} can not handle
+     * @param javaVersion the feature version of the JDK which links the modules
+     * @param log the log for a cache which can not be written
+     */
+    ModuleDescriptorResolver(ModuleDescriptorCache cache, Fallback fallback, int javaVersion, Log log) {
+        this.cache = cache;
+        this.fallback = fallback;
+        this.javaVersion = javaVersion;
+        this.log = log;
+    }
+
+    /**
+     * @param files the path elements
+     * @return the descriptor of each path element, in the order of the path elements; {@code null} for a path
+     *         element which is not a module
+     * @throws IOException if a path element can not be read
+     */
+    Map<File, JavaModuleDescriptor> resolve(Collection<File> files) throws IOException {
+        Map<File, JavaModuleDescriptor> pathElements = new LinkedHashMap<>();
+        List<File> changedFiles = new ArrayList<>();
+        for (File file : files) {
+            JavaModuleDescriptor descriptor = cache != null ? cache.get(file).orElse(null) : null;
+            pathElements.put(file, descriptor);
+            if (descriptor == null) {
+                changedFiles.add(file);
+            }
+        }
+
+        Set<File> unreadableFiles = new LinkedHashSet<>();
+        ModuleDescriptorReader reader =
+                new ModuleDescriptorReader(Runtime.getRuntime().availableProcessors(), javaVersion);
+        for (Entry<File, JavaModuleDescriptor> entry : reader.read(changedFiles).entrySet()) {
+            if (entry.getValue() != null) {
+                pathElements.put(entry.getKey(), entry.getValue());
+            } else {
+                unreadableFiles.add(entry.getKey());
+            }
+        }
+        if (!unreadableFiles.isEmpty()) {
+            Map<File, JavaModuleDescriptor> resolved = fallback.resolve(unreadableFiles);
+            // keeps the order of the path elements, and like before only what the LocationManager returned
+            pathElements.keySet().removeIf(file -> unreadableFiles.contains(file) && !resolved.containsKey(file));
+            pathElements.putAll(resolved);
+        }
+
+        if (cache != null) {
+            for (File file : changedFiles) {
+                JavaModuleDescriptor descriptor = pathElements.get(file);
+                if (descriptor != null) {
+                    cache.put(file, descriptor);
+                }
+            }
+            try {
+                cache.save();
+            } catch (IOException e) {
+                log.warn("Unable to write the module descriptor cache " + cache.getCacheFile() + ": "
+                        + e.getMessage());
+            }
+            cache.logStatistics();
+        }
+        return pathElements;
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.spi.ToolProvider;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor;
+
+/**
+ * Turns the jar files of automatic modules into named modules, so they can be linked into the image.
+ *
+ * <p>{@code jdeps --generate-module-info} generates the {@code module-info.java} of each jar file from the analysis
+ * of its classes, with {@code requires} of the modules whose packages it uses, {@code exports} of all its packages
+ * and {@code provides} of its {@code META-INF/services}. javac compiles the descriptor against the module path, and
+ * the {@code jar} tool adds it to a copy of the jar file, which also verifies that the descriptor matches the
+ * packages of the jar file.</p>
+ *
+ * <p>The tools of the running JDK are used, but for the Java version of the JDK which links the image: jdeps
+ * analyzes the classes of multi-release jar files for it, and javac compiles the descriptor with {@code --release}
+ * of it, so its jlink can read the class file. A JDK newer than the running JDK gets a descriptor for the running
+ * JDK, which it can read as well.</p>
+ *
+ * <p>The modular copies are kept in a cache directory, in a subdirectory named after the digest of the content of
+ * the jar file, the JDK, its Java version and the names of the other jar files, so a jar file is only converted
+ * again when one of them changes.</p>
+ */
+final class ModuleDescriptorSynthesizer {
+    private static final String MODULE_INFO = "module-info.java";
+
+    private final File cacheDirectory;
+
+    private final String jdk;
+
+    private final int javaVersion;
+
+    private final Log log;
+
+    /**
+     * @param cacheDirectory the directory of the modular copies of the jar files
+     * @param jdk a description of the JDK, part of the key of the copies
+     * @param javaVersion the feature version of the JDK which links the image
+     * @param log the log for the converted jar files and the failures
+     */
+    ModuleDescriptorSynthesizer(File cacheDirectory, String jdk, int javaVersion, Log log) {
+        this.cacheDirectory = cacheDirectory;
+        this.jdk = jdk;
+        this.javaVersion = javaVersion;
+        this.log = log;
+    }
+
+    /**
+     * Converts the jar files of automatic modules into named modules and adds them to the module graph. A module
+     * whose name is already in the graph is not replaced.
+     *
+     * @param moduleGraph the named modules, which the automatic modules may require
+     * @param automaticModules the jar files of the automatic modules and their names
+     * @throws IOException if a jar file can not be read or copied, or a tool of the JDK is missing
+     */
+    void addModules(ModuleGraph moduleGraph, Map<File, String> automaticModules) throws IOException {
+        Map<File, File> modularJars = synthesize(automaticModules, moduleGraph.getModulePathElements().values());
+        ModuleDescriptorReader reader = new ModuleDescriptorReader(1, javaVersion);
+        for (Map.Entry<File, String> automaticModule : automaticModules.entrySet()) {
+            File modularJar = modularJars.get(automaticModule.getKey());
+            JavaModuleDescriptor descriptor = modularJar != null ? reader.read(modularJar) : null;
+            if (descriptor == null || descriptor.isAutomatic()) {
+                log.debug("Ignoring automatic module: " + automaticModule.getValue());
+            } else if (moduleGraph.contains(descriptor.name())) {
+                log.warn("The module name " + descriptor.name() + " does already exists.");
+            } else {
+                moduleGraph.add(modularJar, descriptor);
+            }
+        }
+    }
+
+    /**
+     * Converts the jar files of automatic modules into named modules. A jar file whose descriptor can not be
+     * generated or compiled is logged and left out of the result.
+     *
+     * @param automaticModules the jar files of the automatic modules and their names
+     * @param modulePath the jar files and directories of the named modules, which the automatic modules may require
+     * @return the modular copy of each converted jar file
+     * @throws IOException if a jar file can not be read or copied, or a tool of the JDK is missing
+     */
+    Map<File, File> synthesize(Map<File, String> automaticModules, Collection<File> modulePath) throws IOException {
+        Collection<File> jars = automaticModules.keySet();
+        Map<File, File> modularJars = new LinkedHashMap<>();
+        List<File> missingJars = new ArrayList<>();
+        for (File jar : jars) {
+            File modularJar = new File(new File(cacheDirectory, createKey(jar, jars)), jar.getName());
+            modularJars.put(jar, modularJar);
+            if (!modularJar.isFile()) {
+                missingJars.add(jar);
+            }
+        }
+        if (missingJars.isEmpty()) {
+            return modularJars;
+        }
+
+        Path workDirectory = null;
+        try {
+            workDirectory = Files.createTempDirectory("maven-jlink-module-info");
+            // all automatic modules are analyzed together, so they can require each other
+            Path sources = workDirectory.resolve("src");
+            if (!generateModuleInfos(jars, modulePath, sources)) {
+                log.warn("Unable to generate the module descriptors of the automatic modules, they are not linked.");
+                modularJars.keySet().removeAll(missingJars);
+                return modularJars;
+            }
+            for (File jar : missingJars) {
+                String moduleName = automaticModules.get(jar);
+                Optional<Path> moduleInfo = findModuleInfo(sources.resolve(moduleName));
+                if (!moduleInfo.isPresent()) {
+                    log.warn("No module descriptor generated for " + jar + ", it is not linked.");
+                    modularJars.remove(jar);
+                } else {
+                    Path classes = workDirectory.resolve("classes").resolve(moduleName);
+                    if (!compileModuleInfo(jar, moduleName, jars, modulePath, moduleInfo.get(), classes)
+                            || !createModularJar(jar, classes, modularJars.get(jar))) {
+                        modularJars.remove(jar);
+                    } else {
+                        log.info("Synthesized the module descriptor of " + moduleName + " for " + jar);
+                    }
+                }
+            }
+        } finally {
+            if (workDirectory != null) {
+                deleteQuietly(workDirectory);
+            }
+        }
+        return modularJars;
+    }
+
+    private String createKey(File jar, Collection<File> jars) throws IOException {
+        Collection<String> names = jars.stream().map(File::getName).collect(Collectors.toCollection(TreeSet::new));
+        return new JLinkFingerprint()
+                .addContent("jar", jar)
+                .add("jdk", jdk)
+                .add("javaVersion", Integer.toString(javaVersion))
+                .add("jars", names)
+                .toHex();
+    }
+
+    private boolean generateModuleInfos(Collection<File> jars, Collection<File> modulePath, Path sources)
+            throws IOException {
+        List<String> args = new ArrayList<>();
+        args.add("--generate-module-info");
+        args.add(sources.toString());
+        args.add("--ignore-missing-deps");
+        args.add("--multi-release");
+        args.add(Integer.toString(javaVersion));
+        if (!modulePath.isEmpty()) {
+            args.add("--module-path");
+            args.add(toPath(modulePath));
+        }
+        jars.forEach(jar -> args.add(jar.getPath()));
+
+        return run("jdeps", args) == 0;
+    }
+
+    /**
+     * @param moduleDirectory the directory named after the module, which jdeps generated the descriptor into
+     * @return the generated {@code module-info.java}, for a multi-release jar file in a {@code versions}
+     *         subdirectory
+     */
+    private static Optional<Path> findModuleInfo(Path moduleDirectory) throws IOException {
+        if (!Files.isDirectory(moduleDirectory)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> files = Files.walk(moduleDirectory)) {
+            return files.filter(file -> file.getFileName().toString().equals(MODULE_INFO))
+                    .findFirst();
+        }
+    }
+
+    private boolean compileModuleInfo(
+            File jar,
+            String moduleName,
+            Collection<File> jars,
+            Collection<File> modulePath,
+            Path moduleInfo,
+            Path classes)
+            throws IOException {
+        List<File> compileModulePath = new ArrayList<>(modulePath);
+        jars.stream().filter(other -> !other.equals(jar)).forEach(compileModulePath::add);
+
+        List<String> javacArgs = new ArrayList<>();
+        javacArgs.add("--release");
+        javacArgs.add(Integer.toString(Math.min(javaVersion, Runtime.version().feature())));
+        javacArgs.add("-d");
+        javacArgs.add(classes.toString());
+        if (!compileModulePath.isEmpty()) {
+            javacArgs.add("--module-path");
+            javacArgs.add(toPath(compileModulePath));
+        }
+        javacArgs.add("--patch-module");
+        javacArgs.add(moduleName + "=" + jar.getPath());
+        javacArgs.add(moduleInfo.toString());
+        if (run("javac", javacArgs) != 0) {
+            log.warn("Unable to compile the generated module descriptor of " + jar + ", it is not linked.");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean createModularJar(File jar, Path classes, File modularJar) throws IOException {
+        Path target = modularJar.toPath();
+        Files.createDirectories(target.getParent());
+        Path copy = Files.createTempFile(target.getParent(), modularJar.getName(), ".tmp");
+        try {
+            Files.copy(jar.toPath(), copy, StandardCopyOption.REPLACE_EXISTING);
+            List<String> jarArgs =
+                    List.of("--update", "--file", copy.toString(), "-C", classes.toString(), "module-info.class");
+            if (run("jar", jarArgs) != 0) {
+                log.warn("Unable to add the generated module descriptor to " + jar + ", it is not linked.");
+                return false;
+            }
+            // concurrent builds sharing the cache write the same content
+            Files.move(copy, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+        return true;
+    }
+
+    private int run(String toolName, List<String> args) throws IOException {
+        ToolProvider tool =
+                ToolProvider.findFirst(toolName).orElseThrow(() -> new IOException("No " + toolName + " tool found."));
+        if (log.isDebugEnabled()) {
+            log.debug(toolName + " " + String.join(" ", args));
+        }
+        JLinkOutputConsumer output = new JLinkOutputConsumer(log::debug);
+        try (PrintWriter writer = output.asWriter()) {
+            if ("jdeps".equals(toolName)) {
+                synchronized (JdkModuleAnalyzer.JDEPS_LOCK) {
+                    return tool.run(writer, writer, args.toArray(new String[0]));
+                }
+            }
+            return tool.run(writer, writer, args.toArray(new String[0]));
+        }
+    }
+
+    private static String toPath(Collection<File> files) {
+        return files.stream().map(File::getPath).collect(Collectors.joining(File.pathSeparator));
+    }
+
+    private void deleteQuietly(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            log.debug("Unable to delete " + directory + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.module.FindException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor.JavaExports;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor.JavaProvides;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor.JavaRequires;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor.JavaRequires.JavaModifier;
+
+/**
+ * The named modules on the module path, indexed by module name.
+ *
+ * <p>The modules are kept in the order of the module path. Adding a module with the name of a module which has
+ * already been added replaces it, like a later {@code put} into a map.</p>
+ */
+final class ModuleGraph {
+    private final Map<String, File> files = new LinkedHashMap<>();
+
+    private final Map<String, JavaModuleDescriptor> descriptors = new LinkedHashMap<>();
+
+    /**
+     * @param name the name of a module
+     * @return true if a module of this name has been added
+     */
+    boolean contains(String name) {
+        return descriptors.containsKey(name);
+    }
+
+    /**
+     * @param file the jar file or directory of the module
+     * @param descriptor the descriptor of the module
+     */
+    void add(File file, JavaModuleDescriptor descriptor) {
+        descriptors.put(descriptor.name(), descriptor);
+        files.put(descriptor.name(), file);
+    }
+
+    /**
+     * @return the names of all modules, in the order of the module path
+     */
+    Set<String> getModuleNames() {
+        return Collections.unmodifiableSet(descriptors.keySet());
+    }
+
+    /**
+     * @return the jar file or directory of each module, in the order of the module path
+     */
+    Map<String, File> getModulePathElements() {
+        return Collections.unmodifiableMap(files);
+    }
+
+    /**
+     * @param name the name of a module
+     * @return the jar file or directory of the module, or {@code null} if there is no such module
+     */
+    File getFile(String name) {
+        return files.get(name);
+    }
+
+    /**
+     * @param name the name of a module
+     * @return the names of the modules required by the module, including modules which are not on the module
+     *         path, like the modules of the JDK
+     */
+    Set<String> getRequires(String name) {
+        Set<String> requires = new LinkedHashSet<>();
+        JavaModuleDescriptor descriptor = descriptors.get(name);
+        if (descriptor != null) {
+            for (JavaRequires javaRequires : descriptor.requires()) {
+                requires.add(javaRequires.name());
+            }
+        }
+        return requires;
+    }
+
+    /**
+     * @param roots the names of the root modules
+     * @return the root modules on the module path and the modules on the module path they require, directly or
+     *         indirectly, in the order of the module path
+     */
+    Set<String> getRequiresClosure(Collection<String> roots) {
+        Set<String> closure = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(roots);
+        while (!pending.isEmpty()) {
+            String name = pending.removeFirst();
+            if (descriptors.containsKey(name) && closure.add(name)) {
+                pending.addAll(getRequires(name));
+            }
+        }
+        Set<String> ordered = new LinkedHashSet<>(descriptors.keySet());
+        ordered.retainAll(closure);
+        return ordered;
+    }
+
+    /**
+     * @param names the names of the modules to find
+     * @return finds these modules by the descriptors of the graph, without opening their files again, only automatic
+     *         modules are read from their files as their descriptors lack the packages they export
+     * @throws FindException if a descriptor is not valid
+     */
+    ModuleFinder getFinder(Collection<String> names) {
+        Map<String, ModuleReference> references = new LinkedHashMap<>();
+        for (String name : names) {
+            JavaModuleDescriptor descriptor = descriptors.get(name);
+            if (descriptor == null) {
+                continue;
+            }
+            File file = files.get(name);
+            if (descriptor.isAutomatic()) {
+                ModuleFinder.of(file.toPath()).find(name).ifPresent(reference -> references.put(name, reference));
+            } else {
+                references.put(name, new GraphReference(toModuleDescriptor(descriptor), file.toURI()));
+            }
+        }
+        return new ModuleFinder() {
+            @Override
+            public Optional<ModuleReference> find(String name) {
+                return Optional.ofNullable(references.get(name));
+            }
+
+            @Override
+            public Set<ModuleReference> findAll() {
+                return new LinkedHashSet<>(references.values());
+            }
+        };
+    }
+
+    private static ModuleDescriptor toModuleDescriptor(JavaModuleDescriptor descriptor) {
+        try {
+            ModuleDescriptor.Builder builder = ModuleDescriptor.newModule(descriptor.name());
+            for (JavaRequires requires : descriptor.requires()) {
+                Set<ModuleDescriptor.Requires.Modifier> modifiers = new HashSet<>();
+                if (requires.modifiers().contains(JavaModifier.STATIC)) {
+                    modifiers.add(ModuleDescriptor.Requires.Modifier.STATIC);
+                }
+                if (requires.modifiers().contains(JavaModifier.TRANSITIVE)) {
+                    modifiers.add(ModuleDescriptor.Requires.Modifier.TRANSITIVE);
+                }
+                builder.requires(modifiers, requires.name());
+            }
+            // the resolution checks that the packages of the used services are exported to the module
+            for (JavaExports exports : descriptor.exports()) {
+                if (exports.targets() == null || exports.targets().isEmpty()) {
+                    builder.exports(exports.source());
+                } else {
+                    builder.exports(exports.source(), exports.targets());
+                }
+            }
+            descriptor.uses().forEach(builder::uses);
+            for (JavaProvides provides : descriptor.provides()) {
+                // the packages of the providers are all that the builder checks of the content of the module
+                for (String provider : provides.providers()) {
+                    int index = provider.lastIndexOf('.');
+                    if (index > 0) {
+                        builder.packages(Collections.singleton(provider.substring(0, index)));
+                    }
+                }
+                builder.provides(provides.service(), provides.providers());
+            }
+            return builder.build();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new FindException("Invalid descriptor of module " + descriptor.name() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A module of the graph, only used to resolve it, its content is not read.
+     */
+    private static final class GraphReference extends ModuleReference {
+        GraphReference(ModuleDescriptor descriptor, URI location) {
+            super(descriptor, location);
+        }
+
+        @Override
+        public ModuleReader open() throws IOException {
+            throw new IOException("The content of module " + descriptor().name() + " is not read");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.module.FindException;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.lang.module.ResolutionException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Builds a module path for jlink which contains only the modules of the image, so jlink does not have to open and
+ * scan the other jar files of the dependencies and the other {@code jmods} of the JDK.
+ *
+ * <p>The modules of the image are resolved like jlink resolves them. The modules of the dependencies are found by
+ * their known files and the modules of the JDK by the names of the jmod files, so only the files of the resolved
+ * modules are opened, unless services are bound, which needs all modules. The directory of the pruned module path
+ * contains a symbolic link to the jar file or jmod file of each resolved module, named after the module. jlink does not
+ * follow a link to a directory, so the exploded directories of the resolved modules follow the directory on the pruned
+ * module path. Modules of the running JDK without {@code jmods}, which have no file, are left to jlink.</p>
+ */
+final class ModulePathPruner {
+    private final File directory;
+
+    private final Log log;
+
+    /**
+     * @param directory the directory of the pruned module path, its previous links are replaced
+     * @param log the log for the size of the pruned module path
+     */
+    ModulePathPruner(File directory, Log log) {
+        this.directory = directory;
+        this.log = log;
+    }
+
+    /**
+     * @param modulePathElements the jar file or directory of each module of the project and its dependencies
+     * @param modulePaths the additional paths of the module path, can be {@code null}
+     * @param jmodsFolder the {@code jmods} folder, the modules of the running JDK are linked without
+     * @param roots the modules to add
+     * @param limitModules the limit modules, {@code null} if there are none
+     * @param bindServices whether jlink binds services
+     * @return the paths of the pruned module path, empty if the modules can not be resolved or linked, so jlink uses
+     *         the full module path
+     */
+    Optional<List<String>> prune(
+            Map<String, File> modulePathElements,
+            List<String> modulePaths,
+            Optional<File> jmodsFolder,
+            Collection<String> roots,
+            List<String> limitModules,
+            boolean bindServices) {
+        try {
+            Map<String, Path> files = new LinkedHashMap<>();
+            modulePathElements.forEach((name, file) -> files.put(name, file.toPath()));
+            ModuleFinder finder = ModuleFinder.compose(
+                    byName(files),
+                    JdkModuleAnalyzer.finder(
+                            modulePaths != null ? modulePaths : List.of(), Optional.empty(), ModuleFinder.of()),
+                    JdkModuleAnalyzer.jdkFinder(jmodsFolder));
+            Set<String> modules = JdkModuleAnalyzer.resolve(
+                    finder, roots, limitModules != null ? limitModules : List.of(), bindServices);
+
+            Path path = directory.toPath();
+            Files.createDirectories(path);
+            try (DirectoryStream<Path> links = Files.newDirectoryStream(path)) {
+                for (Path link : links) {
+                    // deletes the link, not its target
+                    Files.delete(link);
+                }
+            }
+            List<String> prunedPath = new ArrayList<>();
+            prunedPath.add(directory.getPath());
+            int count = 0;
+            for (String module : modules) {
+                ModuleReference reference = finder.find(module).get();
+                Optional<URI> location = reference.location();
+                if (location.isPresent() && "file".equals(location.get().getScheme())) {
+                    Path target = Paths.get(location.get());
+                    if (Files.isDirectory(target)) {
+                        prunedPath.add(target.toString());
+                    } else {
+                        String name = target.getFileName().toString();
+                        Files.createSymbolicLink(path.resolve(module + name.substring(name.lastIndexOf('.'))), target);
+                    }
+                    count++;
+                }
+            }
+            log.info("Module path pruned to the " + count + " modules of the image.");
+            return Optional.of(prunedPath);
+        } catch (FindException | ResolutionException e) {
+            log.warn("Unable to resolve the modules to prune the module path, using the full module path: "
+                    + e.getMessage());
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            log.warn("Unable to link the modules to prune the module path, using the full module path: "
+                    + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param files the file of each module by name
+     * @return finds a module by opening only its file, once
+     */
+    private static ModuleFinder byName(Map<String, Path> files) {
+        return new ModuleFinder() {
+            private final Map<String, Optional<ModuleReference>> references = new HashMap<>();
+
+            private Set<ModuleReference> all;
+
+            @Override
+            public Optional<ModuleReference> find(String name) {
+                return references.computeIfAbsent(name, module -> {
+                    Path file = files.get(module);
+                    return file != null ? ModuleFinder.of(file).find(module) : Optional.empty();
+                });
+            }
+
+            @Override
+            public Set<ModuleReference> findAll() {
+                if (all == null) {
+                    Set<ModuleReference> found = new LinkedHashSet<>();
+                    files.keySet().forEach(module -> find(module).ifPresent(found::add));
+                    all = Collections.unmodifiableSet(found);
+                }
+                return all;
+            }
+        };
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes gzip data compressed on several threads.
+ *
+ * <p>The data is split into blocks of a fixed size, and each block is compressed into a separate gzip member. A
+ * gzip file may consist of several members, so the result can be read by any gzip implementation. As the blocks
+ * do not depend on the number of threads, neither does the result. The header of each member contains no timestamp
+ * and no file name, so the result is reproducible.</p>
+ */
+class ParallelGzipOutputStream extends OutputStream {
+    /**
+     * The number of uncompressed bytes per gzip member.
+     */
+    static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final int OS_UNKNOWN = 255;
+
+    private final OutputStream out;
+
+    private final ExecutorService executorService;
+
+    private final int maxPendingBlocks;
+
+    private final int level;
+
+    private final int blockSize;
+
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+    private byte[] block;
+
+    private int count;
+
+    private boolean memberWritten;
+
+    private boolean closed;
+
+    /**
+     * @param out the stream to write the compressed data to, closed by {@link #close()}
+     * @param threads the number of threads
+     * @param level the deflate level, from {@code 1} to {@code 9}, or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param blockSize the number of uncompressed bytes per gzip member
+     */
+    ParallelGzipOutputStream(OutputStream out, int threads, int level, int blockSize) {
+        this.out = out;
+        this.executorService = Executors.newFixedThreadPool(threads);
+        // bounds the memory used by the compressed blocks which are not yet written
+        this.maxPendingBlocks = threads * 2;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int length = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, block, count, length);
+            count += length;
+            off += length;
+            len -= length;
+            if (count == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (count > 0 || (!memberWritten && pendingBlocks.isEmpty())) {
+                submitBlock();
+            }
+            while (!pendingBlocks.isEmpty()) {
+                writeNextBlock();
+            }
+        } finally {
+            executorService.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        byte[] data = block;
+        int length = count;
+        pendingBlocks.add(executorService.submit(() -> compress(data, length, level)));
+        block = new byte[blockSize];
+        count = 0;
+        while (pendingBlocks.size() > maxPendingBlocks) {
+            writeNextBlock();
+        }
+    }
+
+    private void writeNextBlock() throws IOException {
+        try {
+            out.write(pendingBlocks.removeFirst().get());
+            memberWritten = true;
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to compress a block: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        }
+    }
+
+    /**
+     * @return a complete gzip member containing the data
+     */
+    static byte[] compress(byte[] data, int length, int level) {
+        ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2 + 64);
+        int extraFlags = level == Deflater.BEST_COMPRESSION ? 2 : level == Deflater.BEST_SPEED ? 4 : 0;
+        // no timestamp, no file name
+        byte[] header = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, (byte) extraFlags, (byte) OS_UNKNOWN};
+        member.write(header, 0, header.length);
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int compressed = deflater.deflate(buffer);
+                member.write(buffer, 0, compressed);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        writeInt(member, (int) crc.getValue());
+        writeInt(member, length);
+        return member.toByteArray();
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+}
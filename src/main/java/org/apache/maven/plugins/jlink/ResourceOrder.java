@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * The order of the classes in {@code lib/modules} of an image, captured from a training run of a launcher, for
+ * jlink's {@code --order-resources}.
+ *
+ * <p>The training run logs the classes the launcher loads from the image with {@code -Xlog:class+load}, without
+ * class data sharing, so all classes are read from {@code lib/modules}. The ordering file lists their names in the
+ * order of loading, one per line like {@code java/lang/Object}, after a comment with the key of the module set it
+ * was captured for. Placing these classes together at the start of {@code lib/modules} lets the JVM touch fewer
+ * pages of the image until the main class runs.</p>
+ */
+final class ResourceOrder {
+    /**
+     * The number of runs of each measurement, the fastest run counts.
+     */
+    static final int MEASUREMENT_RUNS = 3;
+
+    private static final Pattern CLASS_LOAD = Pattern.compile("(?:\\[[^]]*\\] *)*(\\S+) source: jrt:/\\S+");
+
+    private static final Pattern UPTIME = Pattern.compile("\\[(\\d+(?:\\.\\d+)?)s\\] *(\\S+) source: .*");
+
+    private static final String KEY_PREFIX = "# key: ";
+
+    private final File image;
+
+    private final String launcher;
+
+    private final List<String> trainingArguments;
+
+    private final Log log;
+
+    /**
+     * The time until the main class is loaded and the page faults of the JVM, in the fastest of
+     * {@link #MEASUREMENT_RUNS} runs.
+     */
+    static final class Measurement {
+        private final OptionalLong timeToMainMillis;
+
+        private final OptionalLong pageFaults;
+
+        Measurement(OptionalLong timeToMainMillis, OptionalLong pageFaults) {
+            this.timeToMainMillis = timeToMainMillis;
+            this.pageFaults = pageFaults;
+        }
+
+        /**
+         * @return the uptime of the JVM when the main class is loaded, empty if the launcher names no main class
+         */
+        OptionalLong getTimeToMainMillis() {
+            return timeToMainMillis;
+        }
+
+        /**
+         * @return the minor and major page faults of the JVM, empty if they are unknown on this platform
+         */
+        OptionalLong getPageFaults() {
+            return pageFaults;
+        }
+    }
+
+    /**
+     * Links the image, with the arguments of jlink.
+     */
+    interface Linker {
+        /**
+         * @param jlinkArgs the arguments of jlink
+         * @throws MojoExecutionException if jlink fails
+         * @throws MojoFailureException if jlink is not found
+         */
+        void link(List<String> jlinkArgs) throws MojoExecutionException, MojoFailureException;
+    }
+
+    /**
+     * @param image the directory of the linked image
+     * @param launcher the launcher of the training run, {@code <name>=<module>[/<mainclass>]}
+     * @param trainingArguments the arguments of the training run
+     * @param log the log for the output of the training run
+     */
+    ResourceOrder(File image, String launcher, List<String> trainingArguments, Log log) {
+        this.image = image;
+        this.launcher = launcher;
+        this.trainingArguments = trainingArguments;
+        this.log = log;
+    }
+
+    /**
+     * Links the image with the resource order. Unless the ordering file was captured for the same key, the image is
+     * linked and trained first, and the startup of the launcher is measured with both images.
+     *
+     * @param linker links the image, replacing a previous image
+     * @param jlinkArgs the arguments of jlink without the resource order
+     * @param orderFile the ordering file
+     * @param key the key of the module set, see {@link #createKey}
+     * @param logFile the file for the class loading logs
+     * @param report the report of the image, for the durations and the measurements
+     * @throws MojoExecutionException if jlink or a run of the launcher fails
+     * @throws MojoFailureException if jlink is not found
+     */
+    void link(Linker linker, List<String> jlinkArgs, File orderFile, String key, File logFile, JLinkReport report)
+            throws MojoExecutionException, MojoFailureException {
+        List<String> orderedJlinkArgs = withOrderResources(jlinkArgs, orderFile);
+        if (isCapturedFor(orderFile, key)) {
+            log.info("Linking with the resource order " + orderFile);
+            linker.link(orderedJlinkArgs);
+            return;
+        }
+
+        linker.link(jlinkArgs);
+        Measurement before;
+        try (JLinkReport.PhaseTimer timer = report.time("trainResourceOrder")) {
+            List<String> classes = capture(logFile);
+            write(orderFile, key, classes);
+            log.info("Resource order of " + classes.size() + " classes written to " + orderFile);
+            before = measure(logFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to write the resource order " + orderFile + ": " + e.getMessage(), e);
+        }
+
+        linker.link(orderedJlinkArgs);
+        Measurement after;
+        try (JLinkReport.PhaseTimer timer = report.time("measureResourceOrder")) {
+            after = measure(logFile);
+        }
+        report(before, after, report);
+    }
+
+    /**
+     * Runs the launcher and captures the order in which it loads the classes of the image.
+     *
+     * @param logFile the file for the class loading log, deleted afterwards
+     * @return the names of the classes, like {@code java/lang/Object}, in the order of loading
+     * @throws MojoExecutionException if the training run fails
+     */
+    List<String> capture(File logFile) throws MojoExecutionException {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-Xshare:off");
+        arguments.add("-Xlog:class+load=info:file=\"" + logFile.getAbsolutePath() + "\":none");
+        addLauncher(arguments);
+        String name = ImageJava.getLauncherName(launcher);
+        log.info("Training run of the launcher " + name + " for the resource order.");
+        new ImageJava(image, log).run(arguments, log::info, "run the launcher " + name + " for the resource order");
+        return readClassLoadOrder(readAndDelete(logFile));
+    }
+
+    /**
+     * Measures the startup of the launcher, with class data sharing as usual.
+     *
+     * @param logFile the file for the class loading log, deleted afterwards
+     * @return the measurement of the fastest run
+     * @throws MojoExecutionException if a run fails
+     */
+    Measurement measure(File logFile) throws MojoExecutionException {
+        String module = ImageJava.getLauncherModule(launcher);
+        int slash = module.indexOf('/');
+        Optional<String> mainClass = slash < 0 ? Optional.empty() : Optional.of(module.substring(slash + 1));
+
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-Xlog:class+load=info:file=\"" + logFile.getAbsolutePath() + "\":uptime");
+        addLauncher(arguments);
+        OptionalLong timeToMain = OptionalLong.empty();
+        OptionalLong pageFaults = OptionalLong.empty();
+        for (int run = 0; run < MEASUREMENT_RUNS; run++) {
+            OptionalLong runPageFaults = new ImageJava(image, log)
+                    .runCountingPageFaults(arguments, log::debug, "measure the startup of the launcher");
+            List<String> logLines = readAndDelete(logFile);
+            if (mainClass.isPresent()) {
+                timeToMain = min(timeToMain, readUptimeMillis(logLines, mainClass.get()));
+            }
+            pageFaults = min(pageFaults, runPageFaults);
+        }
+        return new Measurement(timeToMain, pageFaults);
+    }
+
+    /**
+     * @param modules the modules to add
+     * @param jdk a description of the JDK
+     * @param launcher the launcher of the training run
+     * @param trainingArguments the arguments of the training run
+     * @return the key of the module set, which the stored order must have been captured for
+     */
+    static String createKey(Collection<String> modules, String jdk, String launcher, List<String> trainingArguments) {
+        List<String> sortedModules = new ArrayList<>(modules);
+        Collections.sort(sortedModules);
+        return new JLinkFingerprint()
+                .add("modules", sortedModules)
+                .add("jdk", jdk)
+                .add("launcher", launcher)
+                .add("trainingArguments", trainingArguments)
+                .toHex();
+    }
+
+    /**
+     * @param jlinkArgs the arguments of jlink
+     * @param orderFile the ordering file
+     * @return the arguments with {@code --order-resources} of the ordering file
+     */
+    static List<String> withOrderResources(List<String> jlinkArgs, File orderFile) {
+        List<String> orderedJlinkArgs = new ArrayList<>(jlinkArgs);
+        // before --suggest-providers, which must be the last option
+        orderedJlinkArgs.add(0, "--order-resources=@" + orderFile.getAbsolutePath().replace("\\", "\\\\"));
+        return orderedJlinkArgs;
+    }
+
+    /**
+     * @param logLines the lines of a {@code -Xlog:class+load} log
+     * @return the names of the classes loaded from the image, like {@code java/lang/Object}, without duplicates
+     */
+    static List<String> readClassLoadOrder(List<String> logLines) {
+        Set<String> classes = new LinkedHashSet<>();
+        for (String line : logLines) {
+            Matcher matcher = CLASS_LOAD.matcher(line);
+            if (matcher.matches()) {
+                classes.add(matcher.group(1).replace('.', '/'));
+            }
+        }
+        return new ArrayList<>(classes);
+    }
+
+    /**
+     * @param logLines the lines of a {@code -Xlog:class+load} log with the {@code uptime} decoration
+     * @param className the binary name of a class
+     * @return the uptime of the JVM in milliseconds when it loaded the class, empty if it did not
+     */
+    static OptionalLong readUptimeMillis(List<String> logLines, String className) {
+        for (String line : logLines) {
+            Matcher matcher = UPTIME.matcher(line);
+            if (matcher.matches() && matcher.group(2).equals(className)) {
+                return OptionalLong.of(Math.round(Double.parseDouble(matcher.group(1)) * 1000));
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * @param orderFile the ordering file
+     * @param key the key of the module set
+     * @return true if the ordering file exists and was captured for the module set
+     */
+    static boolean isCapturedFor(File orderFile, String key) {
+        try {
+            List<String> lines = Files.readAllLines(orderFile.toPath(), StandardCharsets.UTF_8);
+            return !lines.isEmpty() && lines.get(0).equals(KEY_PREFIX + key);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param orderFile the ordering file
+     * @param key the key of the module set
+     * @param classes the names of the classes, in order
+     * @throws IOException if the ordering file can not be written
+     */
+    static void write(File orderFile, String key, List<String> classes) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(KEY_PREFIX + key);
+        lines.addAll(classes);
+        Path path = orderFile.toPath();
+        Files.createDirectories(path.getParent());
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Logs the measurements without and with the resource order, and adds them to the report.
+     *
+     * @param before the measurement of the image without the resource order
+     * @param after the measurement of the image with the resource order
+     * @param report the report of the image
+     */
+    private void report(Measurement before, Measurement after, JLinkReport report) {
+        report("time to main", "timeToMain", before.getTimeToMainMillis(), after.getTimeToMainMillis(), " ms", report);
+        report("page faults", "pageFaults", before.getPageFaults(), after.getPageFaults(), "", report);
+    }
+
+    private void report(
+            String description, String name, OptionalLong before, OptionalLong after, String unit, JLinkReport report) {
+        if (before.isPresent() && after.isPresent()) {
+            log.info("Resource order " + description + ": " + before.getAsLong() + unit + " without, "
+                    + after.getAsLong() + unit + " with the order.");
+            report.set(name + "Unordered", before.getAsLong());
+            report.set(name + "Ordered", after.getAsLong());
+        }
+    }
+
+    private void addLauncher(List<String> arguments) {
+        arguments.add("-m");
+        arguments.add(ImageJava.getLauncherModule(launcher));
+        arguments.addAll(trainingArguments);
+    }
+
+    private static List<String> readAndDelete(File logFile) throws MojoExecutionException {
+        try {
+            List<String> lines = Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8);
+            Files.delete(logFile.toPath());
+            return lines;
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to read the class loading log " + logFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static OptionalLong min(OptionalLong a, OptionalLong b) {
+        if (!a.isPresent()) {
+            return b;
+        }
+        if (!b.isPresent()) {
+            return a;
+        }
+        return OptionalLong.of(Math.min(a.getAsLong(), b.getAsLong()));
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.module.FindException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.lang.module.ResolutionException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Binds only the providers of the services which the modules of the application use, instead of all providers on
+ * the module path and in the JDK like {@code --bind-services}.
+ *
+ * <p>The modules are resolved like jlink resolves them, and for each service used by a module which is not a module
+ * of the JDK, the modules providing it are added. For the services used by the modules of the JDK, like
+ * {@code java.sql.Driver} used by {@code java.sql}, only the providers which are not modules of the JDK are added,
+ * so a JDBC driver on the module path is bound, but not the many providers of the JDK for the services of
+ * {@code java.base}. This is repeated until the added providers do not need further providers. The services can be
+ * filtered by name, where {@code *} matches any number of characters.</p>
+ *
+ * <p>The modules of the project and its dependencies are resolved with the descriptors of the {@link ModuleGraph},
+ * so their files are not opened again. Only the additional module paths and the modules of the JDK are read.</p>
+ */
+final class ServiceBinder {
+    private final ModuleFinder finder;
+
+    private final ModuleFinder jdkFinder;
+
+    private final List<Pattern> includes;
+
+    private final List<Pattern> excludes;
+
+    private final Log log;
+
+    /**
+     * The providers added as modules, and the modules and their size which {@code --bind-services} would add on top.
+     */
+    static final class Binding {
+        private final List<String> providers;
+
+        private final Set<String> unboundModules;
+
+        private final long unboundSize;
+
+        Binding(List<String> providers, Set<String> unboundModules, long unboundSize) {
+            this.providers = providers;
+            this.unboundModules = unboundModules;
+            this.unboundSize = unboundSize;
+        }
+
+        /**
+         * @return the modules providing the used services, which are not resolved otherwise
+         */
+        List<String> getProviders() {
+            return providers;
+        }
+
+        /**
+         * @return the modules which {@code --bind-services} would add in addition
+         */
+        Set<String> getUnboundModules() {
+            return unboundModules;
+        }
+
+        /**
+         * @return the size in bytes of the {@link #getUnboundModules()}, of the jar and jmod files or of the classes
+         *         and resources of the running JDK, an estimate of their size in the image
+         */
+        long getUnboundSize() {
+            return unboundSize;
+        }
+    }
+
+    /**
+     * @param moduleGraph the named modules of the project and its dependencies
+     * @param modules the names of the modules of the graph on the module path of jlink
+     * @param modulePaths the additional paths of the module path, can be {@code null}
+     * @param jmodsFolder the {@code jmods} folder, the modules of the running JDK are linked without
+     * @param includes the services to bind, all if empty or {@code null}
+     * @param excludes the services not to bind, none if empty or {@code null}
+     * @param log the log for the bound services
+     */
+    ServiceBinder(
+            ModuleGraph moduleGraph,
+            Collection<String> modules,
+            List<String> modulePaths,
+            Optional<File> jmodsFolder,
+            List<String> includes,
+            List<String> excludes,
+            Log log) {
+        this.jdkFinder = JdkModuleAnalyzer.jdkFinder(jmodsFolder);
+        // the additional module paths come first on the module path of jlink
+        this.finder = JdkModuleAnalyzer.finder(
+                modulePaths != null ? modulePaths : Collections.emptyList(),
+                jmodsFolder,
+                ModuleFinder.compose(moduleGraph.getFinder(modules), jdkFinder));
+        this.includes = toPatterns(includes);
+        this.excludes = toPatterns(excludes);
+        this.log = log;
+    }
+
+    /**
+     * @param service the fully qualified name of a service interface
+     * @return true if the service passes the includes and the excludes
+     */
+    boolean isBound(String service) {
+        return (includes.isEmpty() || includes.stream().anyMatch(include -> include.matcher(service).matches()))
+                && excludes.stream().noneMatch(exclude -> exclude.matcher(service).matches());
+    }
+
+    /**
+     * @param modulesToAdd the modules to add
+     * @param limitModules the limit modules, {@code null} if there are none
+     * @return the providers of the used services, empty if the modules can not be resolved, so jlink reports the
+     *         problem
+     */
+    Binding bind(Collection<String> modulesToAdd, List<String> limitModules) {
+        List<String> limits = limitModules != null ? limitModules : Collections.emptyList();
+        Map<String, Set<String>> providersByService = new TreeMap<>();
+        for (ModuleReference reference : finder.findAll()) {
+            for (ModuleDescriptor.Provides provides : reference.descriptor().provides()) {
+                providersByService
+                        .computeIfAbsent(provides.service(), service -> new TreeSet<>())
+                        .add(reference.descriptor().name());
+            }
+        }
+
+        try {
+            List<String> roots = new ArrayList<>(modulesToAdd);
+            Set<String> providers = new LinkedHashSet<>();
+            Set<String> boundServices = new TreeSet<>();
+            Set<String> boundJdkServices = new TreeSet<>();
+            boolean added;
+            do {
+                added = false;
+                for (String module : JdkModuleAnalyzer.resolve(finder, roots, limits, false)) {
+                    boolean jdkModule = jdkFinder.find(module).isPresent();
+                    for (String service : finder.find(module).get().descriptor().uses()) {
+                        if (!isBound(service) || !(jdkModule ? boundJdkServices : boundServices).add(service)) {
+                            continue;
+                        }
+                        Set<String> serviceProviders =
+                                new TreeSet<>(providersByService.getOrDefault(service, Collections.emptySet()));
+                        if (jdkModule) {
+                            // binding the providers of the JDK for the JDK modules is left to --bind-services
+                            serviceProviders.removeIf(provider -> jdkFinder.find(provider).isPresent());
+                            if (serviceProviders.isEmpty()) {
+                                continue;
+                            }
+                        }
+                        log.info("Binding the providers of " + service + ": "
+                                + (serviceProviders.isEmpty() ? "none" : String.join(", ", serviceProviders)));
+                        for (String provider : serviceProviders) {
+                            if (!roots.contains(provider)) {
+                                roots.add(provider);
+                                providers.add(provider);
+                                added = true;
+                            }
+                        }
+                    }
+                }
+            } while (added);
+
+            Set<String> unboundModules = JdkModuleAnalyzer.resolve(finder, modulesToAdd, limits, true);
+            unboundModules.removeAll(JdkModuleAnalyzer.resolve(finder, roots, limits, false));
+            long unboundSize = 0;
+            for (String module : unboundModules) {
+                unboundSize += getSize(finder.find(module).get());
+            }
+            log.info("Binding the used services instead of all services leaves out " + unboundModules.size()
+                    + " modules of about " + unboundSize / 1024 + " KiB"
+                    + (unboundModules.isEmpty() ? "." : ": " + String.join(", ", unboundModules)));
+            return new Binding(new ArrayList<>(providers), unboundModules, unboundSize);
+        } catch (FindException | ResolutionException e) {
+            log.warn("Unable to resolve the modules to bind the used services: " + e.getMessage());
+            return new Binding(Collections.emptyList(), Collections.emptySet(), 0);
+        }
+    }
+
+    private long getSize(ModuleReference reference) {
+        Optional<URI> location = reference.location();
+        if (!location.isPresent()) {
+            return 0;
+        }
+        try {
+            // jrt:/<module> of the running JDK is the directory /modules/<module> of the jrt file system
+            Path path = Paths.get(location.get());
+            if (!Files.isDirectory(path)) {
+                return Files.size(path);
+            }
+            try (Stream<Path> files = Files.walk(path)) {
+                long size = 0;
+                for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    size += Files.size(file);
+                }
+                return size;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unable to determine the size of " + location.get() + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static List<Pattern> toPatterns(List<String> services) {
+        List<Pattern> patterns = new ArrayList<>();
+        if (services != null) {
+            for (String service : services) {
+                patterns.add(Pattern.compile(Stream.of(service.trim().split("\\*", -1))
+                        .map(Pattern::quote)
+                        .collect(Collectors.joining(".*"))));
+            }
+        }
+        return patterns;
+    }
+}
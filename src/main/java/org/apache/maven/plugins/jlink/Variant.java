@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.util.List;
+
+import org.apache.maven.model.Resource;
+
+/**
+ * An additional Run Time Image created by the same execution of {@link JLinkMojo}, see
+ * {@link JLinkMojo#variants}.
+ *
+ * <p>Each variant has its own classifier. All other values are optional and override the corresponding parameter
+ * of the mojo, parameters which are not set are inherited.</p>
+ *
+ * @since 3.3.1
+ */
+public class Variant {
+    /**
+     * The classifier of the image, required.
+     */
+    private String classifier;
+
+    private Boolean stripDebug;
+
+    private String compress;
+
+    private String launcher;
+
+    private List<String> launchers;
+
+    private List<String> addOptions;
+
+    private Boolean noHeaderFiles;
+
+    private Boolean noManPages;
+
+    private Boolean bindServices;
+
+    private List<String> limitModules;
+
+    private List<String> includeLocales;
+
+    private List<Resource> additionalResources;
+
+    public String getClassifier() {
+        return classifier;
+    }
+
+    public void setClassifier(String classifier) {
+        this.classifier = classifier;
+    }
+
+    public Boolean getStripDebug() {
+        return stripDebug;
+    }
+
+    public void setStripDebug(Boolean stripDebug) {
+        this.stripDebug = stripDebug;
+    }
+
+    public String getCompress() {
+        return compress;
+    }
+
+    public void setCompress(String compress) {
+        this.compress = compress;
+    }
+
+    public String getLauncher() {
+        return launcher;
+    }
+
+    public void setLauncher(String launcher) {
+        this.launcher = launcher;
+    }
+
+    public List<String> getLaunchers() {
+        return launchers;
+    }
+
+    public void setLaunchers(List<String> launchers) {
+        this.launchers = launchers;
+    }
+
+    public List<String> getAddOptions() {
+        return addOptions;
+    }
+
+    public void setAddOptions(List<String> addOptions) {
+        this.addOptions = addOptions;
+    }
+
+    public Boolean getNoHeaderFiles() {
+        return noHeaderFiles;
+    }
+
+    public void setNoHeaderFiles(Boolean noHeaderFiles) {
+        this.noHeaderFiles = noHeaderFiles;
+    }
+
+    public Boolean getNoManPages() {
+        return noManPages;
+    }
+
+    public void setNoManPages(Boolean noManPages) {
+        this.noManPages = noManPages;
+    }
+
+    public Boolean getBindServices() {
+        return bindServices;
+    }
+
+    public void setBindServices(Boolean bindServices) {
+        this.bindServices = bindServices;
+    }
+
+    public List<String> getLimitModules() {
+        return limitModules;
+    }
+
+    public void setLimitModules(List<String> limitModules) {
+        this.limitModules = limitModules;
+    }
+
+    public List<String> getIncludeLocales() {
+        return includeLocales;
+    }
+
+    public void setIncludeLocales(List<String> includeLocales) {
+        this.includeLocales = includeLocales;
+    }
+
+    public List<Resource> getAdditionalResources() {
+        return additionalResources;
+    }
+
+    public void setAdditionalResources(List<Resource> additionalResources) {
+        this.additionalResources = additionalResources;
+    }
+}
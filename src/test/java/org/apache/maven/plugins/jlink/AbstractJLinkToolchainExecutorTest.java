@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.toolchain.Toolchain;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AbstractJLinkToolchainExecutorTest {
+
+    @TempDir
+    Path javaHome;
+
+    @Test
+    void readJavaVersionFromReleaseFile() throws Exception {
+        Files.write(javaHome.resolve("release"), List.of("IMPLEMENTOR=\"Test\"", "JAVA_VERSION=\"17.0.2\""));
+
+        assertThat(AbstractJLinkToolchainExecutor.getJavaVersion(javaHome.toFile()))
+                .hasValueSatisfying(version -> {
+                    assertThat(version.feature()).isEqualTo(17);
+                    assertThat(version.interim()).isZero();
+                    assertThat(version.update()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    void unknownJavaVersion() throws Exception {
+        assertThat(AbstractJLinkToolchainExecutor.getJavaVersion(javaHome.toFile()))
+                .isEmpty();
+
+        Files.write(javaHome.resolve("release"), List.of("JAVA_VERSION=\"1.8.0_292\""));
+        assertThat(AbstractJLinkToolchainExecutor.getJavaVersion(javaHome.toFile()))
+                .isEmpty();
+    }
+
+    @Test
+    void jdepsOfTheToolchain() throws Exception {
+        Path bin = Files.createDirectories(javaHome.resolve("bin"));
+        Toolchain toolchain = mock(Toolchain.class);
+        Path jlink = Files.createFile(bin.resolve("jlink"));
+        when(toolchain.findTool("jlink")).thenReturn(jlink.toString());
+
+        File jdeps = new JLinkExecutor(toolchain, mock(Log.class))
+                .getJdepsExecutable()
+                .orElseThrow(AssertionError::new);
+
+        assertThat(jdeps.getParentFile()).isEqualTo(bin.toFile());
+        assertThat(jdeps.getName()).startsWith("jdeps");
+        // without a toolchain jdeps runs in-process
+        assertThat(new JLinkExecutor(null, mock(Log.class)).getJdepsExecutable()).isEmpty();
+    }
+
+    @Test
+    void quoteArgFileLines() {
+        assertThat(AbstractJLinkToolchainExecutor.createArgFileLines(
+                        List.of("--module-path", "C:\\my mods;/a \"b\"", "#comment")))
+                .containsExactly("\"--module-path\"", "\"C:\\\\my mods;/a \\\"b\\\"\"", "\"#comment\"");
+    }
+
+    @Test
+    void linkLimitedJdkModulesInProcess() throws Exception {
+        File jmods = new File(System.getProperty("java.home"), "jmods");
+        assumeTrue(jmods.isDirectory(), "the running JDK has no jmods");
+        JLinkExecutor executor = new JLinkExecutor(null, mock(Log.class));
+        assertThat(executor.getInProcessJmodsFolder()).contains(jmods);
+
+        Path output = javaHome.resolve("image");
+        List<String> jlinkArgs = List.of(
+                "--module-path",
+                jmods.getPath(),
+                "--limit-modules",
+                "java.base,java.logging",
+                "--add-modules",
+                "java.logging",
+                "--output",
+                output.toString());
+
+        assertThat(executor.executeJlink(jlinkArgs)).isZero();
+        assertThat(output.resolve("release")).isRegularFile();
+        assertThat(new JLinkExecutor(mock(Toolchain.class), mock(Log.class)).getInProcessJmodsFolder())
+                .isEmpty();
+    }
+
+    @Test
+    void reportTheErrorOfJlinkInTheFailure() {
+        Log log = mock(Log.class);
+        List<String> jlinkArgs =
+                List.of("--add-modules", "missing", "--output", javaHome.resolve("image").toString());
+
+        assertThatThrownBy(() -> new JLinkExecutor(null, log).executeJlink(jlinkArgs))
+                .isInstanceOf(MojoExecutionException.class)
+                .hasMessageContaining("Exit code: 1")
+                .hasMessageContaining("Error: Module missing not found");
+    }
+
+    @Test
+    void startJlinkWithArgFile() throws Exception {
+        File jlink = new File(System.getProperty("java.home"), "bin/jlink");
+        Toolchain toolchain = mock(Toolchain.class);
+        when(toolchain.findTool("jlink")).thenReturn(jlink.getPath());
+        Log log = mock(Log.class);
+        JLinkExecutor executor = new JLinkExecutor(toolchain, log);
+        executor.setArgFileDirectory(javaHome.toFile());
+
+        Path output = javaHome.resolve("my \"image\"");
+        List<String> jlinkArgs = List.of("--add-modules", "java.base", "--output", output.toString());
+
+        assertThat(executor.executeJlink(jlinkArgs)).isZero();
+
+        assertThat(output.resolve("release")).isRegularFile();
+        // the @argfile is only kept for debugging
+        try (Stream<Path> files = Files.list(javaHome)) {
+            assertThat(files).containsExactly(output);
+        }
+    }
+}
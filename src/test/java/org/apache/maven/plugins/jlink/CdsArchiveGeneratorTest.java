@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CdsArchiveGeneratorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void jlinkGeneratesTheArchiveSinceJdk18() {
+        assertThat(CdsArchiveGenerator.isGeneratedByJlink(Optional.of(Runtime.Version.parse("17.0.9"))))
+                .isFalse();
+        assertThat(CdsArchiveGenerator.isGeneratedByJlink(Optional.of(Runtime.Version.parse("18"))))
+                .isTrue();
+        assertThat(CdsArchiveGenerator.isGeneratedByJlink(Optional.empty())).isFalse();
+    }
+
+    @Test
+    void addSharedArchiveFileToLauncherScripts() {
+        String shell = "#!/bin/sh\nJLINK_VM_OPTIONS=\nDIR=`dirname $0`\n"
+                + "$DIR/java $JLINK_VM_OPTIONS -m m/p.Main \"$@\"\n";
+        assertThat(CdsArchiveGenerator.addSharedArchiveFile(shell, "app"))
+                .hasValue("#!/bin/sh\nJLINK_VM_OPTIONS=\nDIR=`dirname $0`\n"
+                        + "$DIR/java -XX:SharedArchiveFile=\"$DIR/../lib/app.jsa\" $JLINK_VM_OPTIONS "
+                        + "-m m/p.Main \"$@\"\n");
+
+        String batch = "@echo off\r\nset JLINK_VM_OPTIONS=\r\nset DIR=%~dp0\r\n"
+                + "\"%DIR%\\java\" %JLINK_VM_OPTIONS% -m m/p.Main %*\r\n";
+        assertThat(CdsArchiveGenerator.addSharedArchiveFile(batch, "app"))
+                .hasValue("@echo off\r\nset JLINK_VM_OPTIONS=\r\nset DIR=%~dp0\r\n"
+                        + "\"%DIR%\\java\" -XX:SharedArchiveFile=\"%DIR%\\..\\lib\\app.jsa\" %JLINK_VM_OPTIONS% "
+                        + "-m m/p.Main %*\r\n");
+
+        assertThat(CdsArchiveGenerator.addSharedArchiveFile("java -m m/p.Main", "app"))
+                .isEmpty();
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void generateArchivesOfImage() throws Exception {
+        File image = HelloWorldImage.link(directory);
+
+        CdsArchiveGenerator generator = new CdsArchiveGenerator(image, mock(Log.class));
+        generator.generateDefaultArchive();
+        assertThat(new File(image, "lib/server/classes.jsa")).isFile();
+
+        File archive = generator.generateAppCdsArchive(HelloWorldImage.LAUNCHER, List.of("training"));
+        assertThat(archive).isFile().isEqualTo(new File(image, "lib/app.jsa"));
+
+        generator.addToLauncher("app");
+        Process process = new ProcessBuilder(new File(image, "bin/app").getPath(), "world")
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(process.waitFor()).isZero();
+        assertThat(output).isEqualTo("Hello world" + System.lineSeparator());
+    }
+}
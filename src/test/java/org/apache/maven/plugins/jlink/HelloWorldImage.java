@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import javax.tools.ToolProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Links a small image of the running JDK with the module {@code m} and the launcher {@code app=m/p.Main}, which
+ * prints {@code Hello} and its arguments, to test the steps which run the JVM of an image.
+ */
+final class HelloWorldImage {
+    static final String LAUNCHER = "app=m/p.Main";
+
+    private HelloWorldImage() {}
+
+    /**
+     * @param directory the directory for the sources, the classes and the image
+     * @return the directory of the image
+     * @throws IOException if the sources can not be written
+     */
+    static File link(Path directory) throws IOException {
+        Path sources = Files.createDirectories(directory.resolve("src/p"));
+        Path moduleInfo = Files.write(directory.resolve("src/module-info.java"), List.of("module m {}"));
+        Path main = Files.write(
+                sources.resolve("Main.java"),
+                List.of("package p; public class Main { public static void main(String[] args) {"
+                        + " System.out.println(\"Hello \" + String.join(\" \", args)); } }"));
+        Path classes = directory.resolve("classes");
+        if (ToolProvider.getSystemJavaCompiler()
+                        .run(null, null, null, "-d", classes.toString(), moduleInfo.toString(), main.toString())
+                != 0) {
+            throw new IllegalStateException("Unable to compile the module m in " + sources);
+        }
+
+        File image = directory.resolve("image").toFile();
+        int exitCode = java.util.spi.ToolProvider.findFirst("jlink")
+                .orElseThrow()
+                .run(
+                        System.out,
+                        System.err,
+                        "--module-path",
+                        classes.toString(),
+                        "--add-modules",
+                        "m",
+                        "--launcher",
+                        LAUNCHER,
+                        "--output",
+                        image.getPath());
+        if (exitCode != 0) {
+            throw new IllegalStateException("Unable to link the image " + image);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ImageArchivesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void nameArchivesByClassifierAndFormat() {
+        ImageArchives archives = new ImageArchives(tempDir.toFile(), "app", "debug", mock(Log.class));
+        archives.setFormats(List.of("zip", "tar.gz", "tar", "tar.gz"));
+
+        assertThat(archives.getZipFile()).isEqualTo(tempDir.resolve("app-debug.zip").toFile());
+        assertThat(archives.getArchiveFile("tar.gz")).isEqualTo(tempDir.resolve("app-debug.tar.gz").toFile());
+        assertThat(archives.getTarFormats()).containsExactly("tar.gz", "tar");
+        assertThat(ImageArchives.isFormat("tar.zst")).isTrue();
+        assertThat(ImageArchives.isFormat("7z")).isFalse();
+    }
+
+    @Test
+    void createArchivesOfAllFormats() throws Exception {
+        Path image = Files.createDirectories(tempDir.resolve("image/bin"));
+        Files.write(image.resolve("java"), new byte[] {1, 2, 3});
+        ImageTree imageTree = ImageTree.scan(tempDir.resolve("image").toFile());
+        ImageArchives archives = new ImageArchives(tempDir.toFile(), "app", null, mock(Log.class));
+        archives.setFormats(List.of("tar"));
+        archives.setThreads(1);
+
+        assertThat(archives.exist()).isFalse();
+        File zipFile = archives.createZipArchive(imageTree);
+        archives.createTarArchives(imageTree);
+
+        assertThat(zipFile).isEqualTo(tempDir.resolve("app.zip").toFile()).isFile();
+        assertThat(archives.getArchiveFile("tar")).isFile();
+        assertThat(archives.exist()).isTrue();
+    }
+}
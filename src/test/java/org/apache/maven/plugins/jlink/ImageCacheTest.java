@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ImageCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File image;
+
+    private File zip;
+
+    @BeforeEach
+    void createImage() throws Exception {
+        Path imageDir = Files.createDirectories(tempDir.resolve("project/image/bin"));
+        Files.write(imageDir.resolve("java"), new byte[100]);
+        image = imageDir.getParent().toFile();
+        zip = Files.write(tempDir.resolve("project/image.zip"), new byte[50]).toFile();
+    }
+
+    @Test
+    void restoreStoredImage() throws Exception {
+        ImageCache cache = new ImageCache(tempDir.resolve("cache").toFile(), 1024, false, mock(Log.class));
+        File restoredImage = tempDir.resolve("other/image").toFile();
+        File restoredZip = tempDir.resolve("other/image.zip").toFile();
+
+        assertThat(cache.restore("key", restoredImage, restoredZip)).isFalse();
+
+        cache.store("key", image, zip);
+
+        assertThat(cache.restore("key", restoredImage, restoredZip)).isTrue();
+        assertThat(new File(restoredImage, "bin/java")).hasSize(100);
+        assertThat(restoredZip).hasSize(50);
+        assertThat(tempDir.resolve("cache/statistics.properties"))
+                .content()
+                .contains("hits=1")
+                .contains("misses=1");
+    }
+
+    @Test
+    void restoreWithHardLinks() throws Exception {
+        ImageCache cache = new ImageCache(tempDir.resolve("cache").toFile(), 1024, true, mock(Log.class));
+        cache.store("key", image, zip);
+
+        File restoredImage = tempDir.resolve("other/image").toFile();
+        File restoredZip = tempDir.resolve("other/image.zip").toFile();
+        assertThat(cache.restore("key", restoredImage, restoredZip)).isTrue();
+        assertThat(new File(restoredImage, "bin/java")).hasSize(100);
+
+        // the next build overwrites the zip file in place
+        Files.write(restoredZip.toPath(), new byte[10]);
+        assertThat(tempDir.resolve("cache/entries/key/image.zip")).hasSize(50);
+    }
+
+    @Test
+    void restoreSymbolicLinksAsLinks() throws Exception {
+        Path base = Files.createDirectories(image.toPath().resolve("legal/java.base"));
+        Files.write(base.resolve("LICENSE"), new byte[10]);
+        Path legal = Files.createDirectories(image.toPath().resolve("legal/java.logging"));
+        Files.createSymbolicLink(legal.resolve("LICENSE"), Paths.get("../java.base/LICENSE"));
+        ImageCache cache = new ImageCache(tempDir.resolve("cache").toFile(), 1024, true, mock(Log.class));
+        cache.store("key", image, zip);
+
+        Path restoredImage = tempDir.resolve("other/image");
+        assertThat(cache.restore("key", restoredImage.toFile(), tempDir.resolve("other/image.zip").toFile()))
+                .isTrue();
+        assertThat(Files.readSymbolicLink(restoredImage.resolve("legal/java.logging/LICENSE")))
+                .hasToString("../java.base/LICENSE");
+    }
+
+    @Test
+    void deleteAPartialRestore() throws Exception {
+        ImageCache cache = new ImageCache(tempDir.resolve("cache").toFile(), 1024, false, mock(Log.class));
+        cache.store("key", image, zip);
+        Files.delete(tempDir.resolve("cache/entries/key/image.zip"));
+        File restoredImage = tempDir.resolve("other/image").toFile();
+        Path other = Files.createDirectories(tempDir.resolve("other"));
+        File restoredZip = Files.write(other.resolve("image.zip"), new byte[5]).toFile();
+
+        assertThat(cache.restore("key", restoredImage, restoredZip)).isFalse();
+        assertThat(restoredImage).doesNotExist();
+        assertThat(restoredZip).doesNotExist();
+    }
+
+    @Test
+    void evictLeastRecentlyUsedEntries() throws Exception {
+        // each entry takes 150 bytes
+        ImageCache cache = new ImageCache(tempDir.resolve("cache").toFile(), 400, false, mock(Log.class));
+        cache.store("first", image, zip);
+        cache.store("second", image, zip);
+        Files.setLastModifiedTime(
+                tempDir.resolve("cache/entries/first/last-used"),
+                Files.getLastModifiedTime(tempDir.resolve("cache/entries/second/last-used")));
+        Thread.sleep(10);
+        cache.restore("first", tempDir.resolve("restored/image").toFile(), tempDir.resolve("restored/image.zip")
+                .toFile());
+
+        cache.store("third", image, zip);
+
+        assertThat(tempDir.resolve("cache/entries/first")).exists();
+        assertThat(tempDir.resolve("cache/entries/second")).doesNotExist();
+        assertThat(tempDir.resolve("cache/entries/third")).exists();
+    }
+}
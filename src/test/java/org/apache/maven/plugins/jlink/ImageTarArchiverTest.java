@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisabledOnOs(OS.WINDOWS)
+class ImageTarArchiverTest {
+
+    private static final FileTime TIMESTAMP = FileTime.from(Instant.parse("2024-01-01T10:00:00Z"));
+
+    @TempDir
+    Path tempDir;
+
+    private ImageTree tree;
+
+    @BeforeEach
+    void createImage() throws Exception {
+        Path root = Files.createDirectories(tempDir.resolve("image"));
+        Path bin = Files.createDirectories(root.resolve("bin"));
+        Files.write(bin.resolve("java"), "#!/bin/sh".getBytes());
+        Files.setPosixFilePermissions(bin.resolve("java"), PosixFilePermissions.fromString("rwxrwxrwx"));
+        Files.createSymbolicLink(bin.resolve("launcher"), Paths.get("java"));
+        Files.write(Files.createDirectories(root.resolve("lib")).resolve("modules"), new byte[3 * 1024 * 1024]);
+        tree = ImageTree.scan(root.toFile());
+    }
+
+    @Test
+    void keepPermissionsAndSymbolicLinks() throws Exception {
+        File tar = tempDir.resolve("image.tar").toFile();
+        ImageTarArchiver archiver = new ImageTarArchiver(1);
+        archiver.setPrefix("prefix");
+        archiver.configureReproducibleBuild(TIMESTAMP);
+        archiver.createArchive(tree, tar, ImageTarArchiver.Compression.NONE);
+
+        List<TarArchiveEntry> entries = readEntries(Files.newInputStream(tar.toPath()));
+
+        assertThat(entries)
+                .extracting(TarArchiveEntry::getName)
+                .containsExactlyInAnyOrder(
+                        "prefix/", "prefix/bin/", "prefix/bin/java", "prefix/bin/launcher", "prefix/lib/",
+                        "prefix/lib/modules");
+        assertThat(entries.get(0).getName()).isEqualTo("prefix/");
+        TarArchiveEntry java = find(entries, "prefix/bin/java");
+        assertThat(java.getMode() & 07777).isEqualTo(0755);
+        assertThat(java.getModTime()).isEqualTo(Date.from(TIMESTAMP.toInstant()));
+        assertThat(java.getUserName()).isEmpty();
+        TarArchiveEntry launcher = find(entries, "prefix/bin/launcher");
+        assertThat(launcher.isSymbolicLink()).isTrue();
+        assertThat(launcher.getLinkName()).isEqualTo("java");
+    }
+
+    @Test
+    void compressedTarFilesDoNotDependOnTheNumberOfThreads() throws Exception {
+        for (ImageTarArchiver.Compression compression :
+                List.of(ImageTarArchiver.Compression.GZIP, ImageTarArchiver.Compression.ZSTD)) {
+            File single = tempDir.resolve("single." + compression).toFile();
+            ImageTarArchiver singleThreaded = new ImageTarArchiver(1);
+            singleThreaded.configureReproducibleBuild(TIMESTAMP);
+            singleThreaded.createArchive(tree, single, compression);
+
+            File multi = tempDir.resolve("multi." + compression).toFile();
+            ImageTarArchiver multiThreaded = new ImageTarArchiver(4);
+            multiThreaded.configureReproducibleBuild(TIMESTAMP);
+            multiThreaded.createArchive(tree, multi, compression);
+
+            assertThat(multi).hasSameBinaryContentAs(single);
+        }
+    }
+
+    @Test
+    void readCompressedTarFiles() throws Exception {
+        File tarGz = tempDir.resolve("image.tar.gz").toFile();
+        File tarZst = tempDir.resolve("image.tar.zst").toFile();
+        ImageTarArchiver archiver = new ImageTarArchiver(2);
+        archiver.createArchive(tree, tarGz, ImageTarArchiver.Compression.GZIP);
+        archiver.createArchive(tree, tarZst, ImageTarArchiver.Compression.ZSTD);
+
+        List<TarArchiveEntry> gzEntries = readEntries(new GZIPInputStream(Files.newInputStream(tarGz.toPath())));
+        List<TarArchiveEntry> zstEntries = readEntries(new ZstdInputStream(Files.newInputStream(tarZst.toPath())));
+
+        assertThat(find(gzEntries, "lib/modules").getSize()).isEqualTo(3 * 1024 * 1024);
+        assertThat(zstEntries)
+                .extracting(TarArchiveEntry::getName)
+                .containsExactlyInAnyOrder("bin/", "bin/java", "bin/launcher", "lib/", "lib/modules")
+                .containsExactlyElementsOf(gzEntries.stream()
+                        .map(TarArchiveEntry::getName)
+                        .collect(Collectors.toList()));
+    }
+
+    private static List<TarArchiveEntry> readEntries(InputStream in) throws Exception {
+        List<TarArchiveEntry> entries = new ArrayList<>();
+        try (TarArchiveInputStream tarIn = new TarArchiveInputStream(in)) {
+            TarArchiveEntry entry;
+            while ((entry = tarIn.getNextEntry()) != null) {
+                // reads the content to verify the compressed stream
+                tarIn.transferTo(OutputStream.nullOutputStream());
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private static TarArchiveEntry find(List<TarArchiveEntry> entries, String name) {
+        return entries.stream().filter(e -> e.getName().equals(name)).findFirst().orElseThrow(AssertionError::new);
+    }
+}
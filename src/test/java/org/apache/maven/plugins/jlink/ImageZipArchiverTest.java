@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.codehaus.plexus.archiver.zip.ZipArchiver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisabledOnOs(OS.WINDOWS)
+class ImageZipArchiverTest {
+
+    private static final FileTime TIMESTAMP = FileTime.from(Instant.parse("2024-01-01T10:00:00Z"));
+
+    @TempDir
+    Path tempDir;
+
+    private File image;
+
+    @BeforeEach
+    void createImage() throws Exception {
+        Path root = Files.createDirectories(tempDir.resolve("image"));
+        Path bin = Files.createDirectories(root.resolve("bin"));
+        Files.write(bin.resolve("java"), "#!/bin/sh".getBytes());
+        Files.setPosixFilePermissions(bin.resolve("java"), PosixFilePermissions.fromString("rwxrwxrwx"));
+        Files.createSymbolicLink(bin.resolve("launcher"), Paths.get("java"));
+
+        Path lib = Files.createDirectories(root.resolve("lib"));
+        byte[] modules = new byte[256 * 1024];
+        new Random(0).nextBytes(modules);
+        Files.write(lib.resolve("modules"), modules);
+        Files.write(lib.resolve("release"), new byte[0]);
+        Files.setPosixFilePermissions(lib.resolve("release"), PosixFilePermissions.fromString("rw-------"));
+
+        Path security = Files.createDirectories(root.resolve("conf/security/policy"));
+        Files.write(security.resolve("README.txt"), "text text text text text".getBytes());
+        Files.createDirectories(root.resolve("legal/empty"));
+
+        image = root.toFile();
+    }
+
+    @Test
+    void sameBytesAsPlexusZipArchiver() throws Exception {
+        File expected = tempDir.resolve("expected.zip").toFile();
+        ZipArchiver zipArchiver = new ZipArchiver();
+        zipArchiver.addDirectory(image, "prefix/");
+        zipArchiver.configureReproducibleBuild(TIMESTAMP);
+        zipArchiver.setDestFile(expected);
+        zipArchiver.createArchive();
+
+        File actual = tempDir.resolve("actual.zip").toFile();
+        ImageZipArchiver imageZipArchiver = new ImageZipArchiver(3);
+        imageZipArchiver.setPrefix("prefix");
+        imageZipArchiver.configureReproducibleBuild(TIMESTAMP);
+        imageZipArchiver.createArchive(image, actual);
+
+        assertThat(actual).hasSameBinaryContentAs(expected);
+    }
+
+    @Test
+    void sameBytesWithSingleThreadAndNoPrefix() throws Exception {
+        File expected = tempDir.resolve("expected.zip").toFile();
+        ZipArchiver zipArchiver = new ZipArchiver();
+        zipArchiver.addDirectory(image, "");
+        zipArchiver.configureReproducibleBuild(TIMESTAMP);
+        zipArchiver.setDestFile(expected);
+        zipArchiver.createArchive();
+
+        File actual = tempDir.resolve("actual.zip").toFile();
+        ImageZipArchiver imageZipArchiver = new ImageZipArchiver(1);
+        imageZipArchiver.configureReproducibleBuild(TIMESTAMP);
+        imageZipArchiver.createArchive(image, actual);
+
+        assertThat(actual).hasSameBinaryContentAs(expected);
+        assertThat(tempDir.toFile().list()).containsExactlyInAnyOrder("image", "expected.zip", "actual.zip");
+    }
+
+    @Test
+    void storeMatchingEntries() throws Exception {
+        File actual = tempDir.resolve("actual.zip").toFile();
+        ImageZipArchiver imageZipArchiver = new ImageZipArchiver(2);
+        imageZipArchiver.setStoredEntries(List.of("lib/modules", "*.txt"));
+        imageZipArchiver.setCompressionLevel(9);
+        imageZipArchiver.createArchive(image, actual);
+
+        try (ZipFile zipFile = new ZipFile(actual)) {
+            assertThat(zipFile.getEntry("lib/modules").getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(zipFile.getEntry("conf/security/policy/README.txt").getMethod())
+                    .isEqualTo(ZipEntry.STORED);
+            assertThat(zipFile.getEntry("bin/java").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+            assertThat(zipFile.getInputStream(zipFile.getEntry("lib/modules")))
+                    .hasSameContentAs(Files.newInputStream(image.toPath().resolve("lib/modules")));
+        }
+    }
+
+    @Test
+    void autoStoreIncompressibleEntries() throws Exception {
+        File actual = tempDir.resolve("actual.zip").toFile();
+        ImageZipArchiver imageZipArchiver = new ImageZipArchiver(2);
+        imageZipArchiver.setAutoStore(true);
+        imageZipArchiver.createArchive(image, actual);
+
+        try (ZipFile zipFile = new ZipFile(actual)) {
+            // random bytes do not compress
+            assertThat(zipFile.getEntry("lib/modules").getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(zipFile.getEntry("conf/security/policy/README.txt").getMethod())
+                    .isEqualTo(ZipEntry.DEFLATED);
+            assertThat(zipFile.getInputStream(zipFile.getEntry("conf/security/policy/README.txt")))
+                    .hasContent("text text text text text");
+        }
+    }
+
+    @Test
+    void reuseUnchangedEntries() throws Exception {
+        File actual = tempDir.resolve("actual.zip").toFile();
+        ImageZipArchiver imageZipArchiver = new ImageZipArchiver(2);
+        imageZipArchiver.setIncremental(true);
+        imageZipArchiver.configureReproducibleBuild(TIMESTAMP);
+        imageZipArchiver.createArchive(image, actual);
+        assertThat(imageZipArchiver.getReusedEntries()).isZero();
+
+        Files.write(image.toPath().resolve("bin/java"), "#!/bin/bash".getBytes());
+        imageZipArchiver.createArchive(image, actual);
+        // all files except bin/java and the symbolic link
+        assertThat(imageZipArchiver.getReusedEntries()).isEqualTo(3);
+
+        File expected = tempDir.resolve("expected.zip").toFile();
+        ImageZipArchiver fullArchiver = new ImageZipArchiver(1);
+        fullArchiver.configureReproducibleBuild(TIMESTAMP);
+        fullArchiver.createArchive(image, expected);
+        assertThat(actual).hasSameBinaryContentAs(expected);
+    }
+
+    @Test
+    void doNotReuseEntriesCompressedWithOtherLevel() throws Exception {
+        File actual = tempDir.resolve("actual.zip").toFile();
+        ImageZipArchiver imageZipArchiver = new ImageZipArchiver(2);
+        imageZipArchiver.setIncremental(true);
+        imageZipArchiver.createArchive(image, actual);
+
+        imageZipArchiver.setCompressionLevel(1);
+        imageZipArchiver.createArchive(image, actual);
+
+        assertThat(imageZipArchiver.getReusedEntries()).isZero();
+    }
+}
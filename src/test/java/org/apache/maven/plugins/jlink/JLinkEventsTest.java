@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JLinkEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recordEvents() throws Exception {
+        Path image = Files.createDirectories(tempDir.resolve("image/bin"));
+        Files.write(image.resolve("java"), new byte[1000]);
+        File archive = Files.write(tempDir.resolve("image.zip"), new byte[300]).toFile();
+        Path recordingFile = tempDir.resolve("recording.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(JLinkEvents.JLinkRun.class).withoutThreshold();
+            recording.enable(JLinkEvents.ArchiveCreation.class).withoutThreshold();
+            recording.start();
+
+            JLinkEvents.JLinkRun run = new JLinkEvents.JLinkRun();
+            run.begin();
+            run.complete("fork", List.of("--add-modules", "java.base"), 0);
+
+            JLinkEvents.ArchiveCreation archiveCreation = new JLinkEvents.ArchiveCreation();
+            archiveCreation.begin();
+            archiveCreation.complete("zip", ImageTree.scan(tempDir.resolve("image").toFile()), archive);
+
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("org.apache.maven.plugins.jlink.JLinkRun"))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getString("executor")).isEqualTo("fork");
+                    assertThat(event.getInt("argumentCount")).isEqualTo(2);
+                    assertThat(event.getInt("exitCode")).isZero();
+                });
+        assertThat(events)
+                .filteredOn(event ->
+                        event.getEventType().getName().equals("org.apache.maven.plugins.jlink.ArchiveCreation"))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getLong("bytesIn")).isEqualTo(1000);
+                    assertThat(event.getLong("bytesOut")).isEqualTo(300);
+                });
+    }
+}
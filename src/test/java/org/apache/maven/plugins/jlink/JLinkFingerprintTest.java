@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JLinkFingerprintTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sameInputsResultInSameFingerprint() throws Exception {
+        Path module = Files.write(tempDir.resolve("module.jar"), new byte[] {1, 2, 3});
+
+        String first = new JLinkFingerprint()
+                .add("args", List.of("--strip-debug"))
+                .addContent("module", module.toFile())
+                .toHex();
+        String second = new JLinkFingerprint()
+                .add("args", List.of("--strip-debug"))
+                .addContent("module", module.toFile())
+                .toHex();
+
+        assertThat(first).isEqualTo(second).hasSize(64);
+    }
+
+    @Test
+    void changedContentResultsInDifferentFingerprint() throws Exception {
+        Path directory = Files.createDirectories(tempDir.resolve("classes"));
+        Path clazz = Files.write(directory.resolve("A.class"), new byte[] {1, 2, 3});
+
+        String before = new JLinkFingerprint().addContent("module", directory.toFile()).toHex();
+        Files.write(clazz, new byte[] {1, 2, 4});
+        String after = new JLinkFingerprint().addContent("module", directory.toFile()).toHex();
+
+        assertThat(before).isNotEqualTo(after);
+    }
+
+    @Test
+    void valuesAreNotAmbiguous() {
+        String first = new JLinkFingerprint().add("a", "bc").add("d", (String) null).toHex();
+        String second = new JLinkFingerprint().add("ab", "c").add("d", "").toHex();
+
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    void readWhatWasWritten() throws Exception {
+        File file = tempDir.resolve("default.fingerprint").toFile();
+
+        assertThat(JLinkFingerprint.read(file)).isEmpty();
+
+        JLinkFingerprint.write(file, "abc");
+
+        assertThat(JLinkFingerprint.read(file)).contains("abc");
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import javax.tools.ToolProvider;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.apache.maven.shared.filtering.MavenResourcesFiltering;
+import org.apache.maven.toolchain.ToolchainManager;
+import org.codehaus.plexus.languages.java.jpms.LocationManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the goal on a module compiled by the test, twice with {@code incremental} like two builds of the same project.
+ */
+class JLinkMojoIncrementalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void skipJlinkAndTheAnalysisOfTheModulesIfUpToDate() throws Exception {
+        File buildDirectory = tempDir.resolve("target").toFile();
+        compileModule(new File(buildDirectory, "classes"));
+        File jdkModules = new File(buildDirectory, "maven-jlink-jdk-modules.txt");
+        File prunedModulePath = new File(buildDirectory, "maven-jlink-module-path");
+
+        JLinkExecutor firstExecutor = spy(new JLinkExecutor(null, new SystemStreamLog()));
+        createMojo(buildDirectory, firstExecutor).execute();
+
+        verify(firstExecutor).executeJlink(anyList());
+        assertThat(new File(buildDirectory, "maven-jlink/default/release")).isFile();
+        assertThat(jdkModules).isFile();
+        assertThat(prunedModulePath).isDirectory();
+
+        Files.delete(jdkModules.toPath());
+        FileUtils.deleteDirectory(prunedModulePath);
+        JLinkExecutor secondExecutor = spy(new JLinkExecutor(null, new SystemStreamLog()));
+        createMojo(buildDirectory, secondExecutor).execute();
+
+        verify(secondExecutor, never()).executeJlink(anyList());
+        assertThat(jdkModules).doesNotExist();
+        assertThat(prunedModulePath).doesNotExist();
+        assertThat(new File(buildDirectory, "app.zip")).isFile();
+    }
+
+    @Test
+    void generateTheCdsArchiveWithJlinkOfJdk18() throws Exception {
+        File buildDirectory = tempDir.resolve("target").toFile();
+        compileModule(new File(buildDirectory, "classes"));
+        JLinkExecutor executor = spy(new JLinkExecutor(null, new SystemStreamLog()));
+        doReturn(Optional.of(Runtime.Version.parse("18"))).when(executor).getJlinkVersion();
+        List<List<String>> jlinkArgs = new ArrayList<>();
+        doAnswer(invocation -> {
+                    jlinkArgs.add(invocation.getArgument(0));
+                    File image = new File(buildDirectory, "maven-jlink/default");
+                    Files.createDirectories(image.toPath());
+                    Files.write(new File(image, "release").toPath(), List.of("JAVA_VERSION=\"18\""));
+                    return 0;
+                })
+                .when(executor)
+                .executeJlink(anyList());
+
+        JLinkMojo mojo = createMojo(buildDirectory, executor);
+        setField(mojo, "incremental", false);
+        setField(mojo, "computeJdkModules", false);
+        setField(mojo, "bindUsedServices", false);
+        setField(mojo, "pruneModulePath", false);
+        setField(mojo, "cdsArchive", true);
+        mojo.execute();
+
+        assertThat(jlinkArgs).hasSize(1);
+        assertThat(jlinkArgs.get(0)).first().isEqualTo("--generate-cds-archive");
+        assertThat(new File(buildDirectory, "app.zip")).isFile();
+    }
+
+    private void compileModule(File classes) throws Exception {
+        Path source = Files.createDirectories(tempDir.resolve("src/p"));
+        Path moduleInfo =
+                Files.write(tempDir.resolve("src/module-info.java"), List.of("module m { requires java.logging; }"));
+        Path main = Files.write(
+                source.resolve("Main.java"),
+                List.of("package p; public class Main { public static void main(String[] args) {"
+                        + " java.util.logging.Logger.getGlobal().info(\"Hello\"); } }"));
+        assertThat(ToolProvider.getSystemJavaCompiler()
+                        .run(null, null, null, "-d", classes.getPath(), moduleInfo.toString(), main.toString()))
+                .isZero();
+    }
+
+    private JLinkMojo createMojo(File buildDirectory, JLinkExecutor executor) throws Exception {
+        JLinkMojo mojo =
+                new JLinkMojo(
+                        mock(MavenProjectHelper.class),
+                        mock(ToolchainManager.class),
+                        mock(MavenResourcesFiltering.class),
+                        new LocationManager(),
+                        new JLinkWorkerPool()) {
+                    @Override
+                    protected JLinkExecutor getJlinkExecutor() {
+                        return executor;
+                    }
+                };
+        setField(mojo, "project", mock(MavenProject.class));
+        setField(mojo, "buildDirectory", buildDirectory);
+        setField(mojo, "outputDirectory", new File(buildDirectory, "classes"));
+        setField(mojo, "outputDirectoryImage", new File(buildDirectory, "maven-jlink"));
+        setField(mojo, "finalName", "app");
+        setField(mojo, "launcher", "app=m/p.Main");
+        setField(mojo, "incremental", true);
+        setField(mojo, "computeJdkModules", true);
+        setField(mojo, "bindUsedServices", true);
+        setField(mojo, "pruneModulePath", true);
+        setField(mojo, "attach", false);
+        return mojo;
+    }
+
+    private static void setField(JLinkMojo mojo, String name, Object value) throws Exception {
+        Field field;
+        try {
+            field = JLinkMojo.class.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            field = AbstractJLinkMojo.class.getDeclaredField(name);
+        }
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.apache.maven.shared.filtering.MavenResourcesFiltering;
+import org.apache.maven.toolchain.ToolchainManager;
+import org.codehaus.plexus.languages.java.jpms.LocationManager;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the goal with 10, 100 and 1000 {@link SyntheticModules} and checks budgets for the wall-clock time and the
+ * peak heap usage, to catch regressions of the resolution, the arguments and the archives with many modules.
+ *
+ * <p>The suite takes minutes, so it only runs if the system property {@code jlink.scaleTests} is {@code true}:</p>
+ * <pre>
+ * mvn test -Djlink.scaleTests=true -Dtest=JLinkMojoScaleTest
+ * </pre>
+ *
+ * <p>The budgets leave room for slow build machines, they are meant to catch changes of the order of growth, not
+ * small changes.</p>
+ */
+@EnabledIfSystemProperty(named = "jlink.scaleTests", matches = "true")
+class JLinkMojoScaleTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest(name = "{0} modules")
+    @CsvSource({"10, 60, 256", "100, 120, 384", "1000, 600, 768"})
+    void linkSyntheticModules(int moduleCount, long maxSeconds, long maxHeapMegabytes) throws Exception {
+        SyntheticModules modules = new SyntheticModules(moduleCount);
+        modules.setRequiresFanOut(3);
+        modules.setProvidesFanOut(2);
+        modules.setResourceSize(16 * 1024);
+        modules.setPathDepth(8);
+        List<File> jars = modules.create(tempDir.resolve("modules"));
+        File buildDirectory = tempDir.resolve("target").toFile();
+        JLinkMojo mojo = createMojo(jars, buildDirectory);
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans();
+        heapPools.removeIf(pool -> pool.getType() != MemoryType.HEAP);
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+
+        mojo.execute();
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        // the sum of the peaks of all pools, an upper bound of the peak of the heap
+        long peakHeap = heapPools.stream()
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+
+        assertThat(new File(buildDirectory, "maven-jlink/default/release")).isFile();
+        assertThat(new File(buildDirectory, "synthetic.zip")).isFile();
+        assertThat(duration).as("wall-clock time").isLessThanOrEqualTo(Duration.ofSeconds(maxSeconds));
+        assertThat(peakHeap / (1024 * 1024)).as("peak heap in MiB").isLessThanOrEqualTo(maxHeapMegabytes);
+    }
+
+    private JLinkMojo createMojo(List<File> jars, File buildDirectory) throws Exception {
+        Set<Artifact> artifacts = new LinkedHashSet<>();
+        for (File jar : jars) {
+            Artifact artifact = mock(Artifact.class);
+            when(artifact.getFile()).thenReturn(jar);
+            artifacts.add(artifact);
+        }
+        MavenProject project = mock(MavenProject.class);
+        when(project.getArtifacts()).thenReturn(artifacts);
+
+        JLinkMojo mojo = new JLinkMojo(
+                mock(MavenProjectHelper.class),
+                mock(ToolchainManager.class),
+                mock(MavenResourcesFiltering.class),
+                new LocationManager(),
+                new JLinkWorkerPool());
+        setField(mojo, "project", project);
+        setField(mojo, "buildDirectory", buildDirectory);
+        setField(mojo, "outputDirectory", new File(buildDirectory, "classes"));
+        setField(mojo, "outputDirectoryImage", new File(buildDirectory, "maven-jlink"));
+        setField(mojo, "finalName", "synthetic");
+        setField(mojo, "stripDebug", true);
+        // the descriptors of 1000 modules exceed the maximum method size of the generated SystemModules class
+        setField(mojo, "disablePlugin", "system-modules");
+        setField(mojo, "attach", false);
+        return mojo;
+    }
+
+    private static void setField(JLinkMojo mojo, String name, Object value) throws Exception {
+        Class<?> type = JLinkMojo.class;
+        Field field;
+        try {
+            field = type.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            field = type.getSuperclass().getDeclaredField(name);
+        }
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+}
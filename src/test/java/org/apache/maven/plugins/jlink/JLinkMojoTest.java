@@ -73,7 +73,7 @@ class JLinkMojoTest {
 
     @BeforeEach
     void setUp() throws Exception {
-        mojo = new JLinkMojo(projectHelper, toolchainManager, mavenResourcesFiltering, locationManager);
+        mojo = new JLinkMojo(projectHelper, toolchainManager, mavenResourcesFiltering, locationManager, null);
         Field stripDebug = mojo.getClass().getDeclaredField("stripDebug");
         stripDebug.setAccessible(true);
         stripDebug.set(mojo, Boolean.TRUE);
@@ -88,6 +88,26 @@ class JLinkMojoTest {
         assertThat(jlinkArgs).noneMatch(arg -> arg.trim().isBlank());
     }
 
+    @Test
+    void variantOverridesParameters() throws Exception {
+        Field noHeaderFiles = mojo.getClass().getDeclaredField("noHeaderFiles");
+        noHeaderFiles.setAccessible(true);
+        noHeaderFiles.set(mojo, Boolean.TRUE);
+
+        Variant variant = new Variant();
+        variant.setClassifier("debug");
+        variant.setStripDebug(false);
+        variant.setCompress("zip-9");
+        JLinkMojo variantMojo = mojo.forVariant(variant);
+
+        assertThat(variantMojo.getClassifier()).isEqualTo("debug");
+        assertThat(variantMojo.createJlinkArgs(List.of(), List.of()))
+                .containsExactly("--compress", "zip-9", "--no-header-files");
+        // the configuration of the mojo itself is unchanged
+        assertThat(mojo.getClassifier()).isNull();
+        assertThat(mojo.createJlinkArgs(List.of(), List.of())).containsExactly("--strip-debug", "--no-header-files");
+    }
+
     @DisabledOnOs(OS.WINDOWS)
     @Test
     void singleQuotesShellCommandUnix() throws Exception {
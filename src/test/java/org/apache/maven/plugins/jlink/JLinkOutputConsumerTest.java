@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.ByteArrayInputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JLinkOutputConsumerTest {
+
+    @Test
+    void passOnLinesWhileWriting() {
+        List<String> lines = new ArrayList<>();
+        JLinkOutputConsumer consumer = new JLinkOutputConsumer(lines::add);
+
+        try (PrintWriter writer = consumer.asWriter()) {
+            writer.print("first");
+            writer.flush();
+            assertThat(lines).isEmpty();
+            writer.print(" line\r\nsecond line\n");
+            assertThat(lines).containsExactly("first line", "second line");
+            writer.print("unterminated");
+        }
+
+        assertThat(lines).containsExactly("first line", "second line", "unterminated");
+        assertThat(consumer.getTail()).isEqualTo("first line\nsecond line\nunterminated");
+    }
+
+    @Test
+    void keepOnlyTheLastLines() throws Exception {
+        List<String> lines = new ArrayList<>();
+        JLinkOutputConsumer consumer = new JLinkOutputConsumer(lines::add, 2);
+
+        byte[] forkedOutput = "a\nb\nc\nd\ne".getBytes(StandardCharsets.UTF_8);
+        consumer.consume(new ByteArrayInputStream(forkedOutput), StandardCharsets.UTF_8);
+
+        assertThat(lines).containsExactly("a", "b", "c", "d", "e");
+        assertThat(consumer.getTail()).isEqualTo("[3 lines omitted]\nd\ne");
+    }
+}
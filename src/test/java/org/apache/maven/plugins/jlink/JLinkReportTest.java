@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class JLinkReportTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writeAndReadNumbers() {
+        JLinkReport report = new JLinkReport();
+        report.setLabel("classifier", "a \"quoted\" name");
+        report.addDuration("executeJlink", TimeUnit.MILLISECONDS.toNanos(1200));
+        report.addDuration("executeJlink", TimeUnit.MILLISECONDS.toNanos(300));
+        try (JLinkReport.PhaseTimer timer = report.time("attach")) {
+            // nothing to do
+        }
+        report.set("imageSize", 123456789L);
+
+        String json = report.toJson();
+
+        assertThat(json).contains("\"classifier\": \"a \\\"quoted\\\" name\"");
+        assertThat(JLinkReport.readNumbers(json))
+                .containsEntry("executeJlink", 1500L)
+                .containsKey("attach")
+                .containsEntry("imageSize", 123456789L);
+    }
+
+    @Test
+    void compareWithPreviousReport() throws Exception {
+        File reportFile = tempDir.resolve("maven-jlink-report.json").toFile();
+        JLinkReport previous = new JLinkReport();
+        previous.addDuration("executeJlink", TimeUnit.MILLISECONDS.toNanos(1000));
+        previous.set("imageSize", 200);
+        previous.write(reportFile, mock(Log.class));
+
+        JLinkReport report = new JLinkReport();
+        report.addDuration("executeJlink", TimeUnit.MILLISECONDS.toNanos(1500));
+        report.addDuration("filterResources", TimeUnit.MILLISECONDS.toNanos(10));
+        report.set("imageSize", 150);
+        Log log = mock(Log.class);
+        report.write(reportFile, log);
+
+        verify(log).info("  executeJlink: 1000 ms -> 1500 ms (+50.0%)");
+        verify(log).info("  imageSize: 200 -> 150 (-25.0%)");
+        assertThat(JLinkReport.readNumbers(new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8)))
+                .containsEntry("executeJlink", 1500L)
+                .containsEntry("filterResources", 10L);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JLinkWorkerPoolTest {
+
+    private static final File JAVA = new File(
+            System.getProperty("java.home"),
+            "bin/java" + (System.getProperty("os.name").startsWith("Windows") ? ".exe" : ""));
+
+    private final JLinkWorkerPool workerPool = new JLinkWorkerPool();
+
+    @AfterEach
+    void stopWorkers() {
+        workerPool.stopAll();
+    }
+
+    @Test
+    void runJLinkInWorker() throws Exception {
+        List<String> output = new ArrayList<>();
+        List<String> errorOutput = new ArrayList<>();
+        assertThat(workerPool.run(JAVA, List.of("--version"), output::add, errorOutput::add))
+                .isZero();
+        assertThat(output).singleElement().asString().startsWith(Integer.toString(Runtime.version().feature()));
+
+        // the same worker reports errors of the next request, arguments are not limited to 64 KiB
+        output.clear();
+        String longPath = "x".repeat(100_000);
+        assertThat(workerPool.run(JAVA, List.of("--module-path", longPath, "--unknown"), output::add, errorOutput::add))
+                .isNotZero();
+        assertThat(String.join("\n", output) + String.join("\n", errorOutput)).contains("--unknown");
+    }
+
+    @Test
+    void stopTheWorkersAtTheEndOfTheSession() throws Exception {
+        workerPool.run(JAVA, List.of("--version"), line -> {}, line -> {});
+        assertThat(workers()).hasSize(1);
+
+        new JLinkWorkerPoolLifecycleParticipant(workerPool).afterSessionEnd(null);
+
+        assertThat(workers()).isEmpty();
+    }
+
+    @Test
+    void failToStartWorker() {
+        assertThatThrownBy(() -> workerPool.run(
+                        new File("does-not-exist/java"), List.of("--version"), line -> {}, line -> {}))
+                .isInstanceOf(JLinkWorkerPool.StartException.class);
+    }
+
+    private static List<ProcessHandle> workers() {
+        return ProcessHandle.current()
+                .children()
+                .filter(ProcessHandle::isAlive)
+                .filter(process -> process.info()
+                        .commandLine()
+                        .orElse("")
+                        .contains(JLinkWorker.class.getName()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import javax.tools.ToolProvider;
+
+import java.io.File;
+import java.lang.module.ModuleFinder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+class JdkModuleAnalyzerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void parseModuleDeps() {
+        assertThat(JdkModuleAnalyzer.parseModuleDeps("Warning: split package\njava.base,java.logging\n"))
+                .containsExactly("java.base", "java.logging");
+        assertThat(JdkModuleAnalyzer.parseModuleDeps("")).isEmpty();
+    }
+
+    @Test
+    void analyzeUsedJdkModules() throws Exception {
+        File classes = compileLoggingModule();
+
+        Set<String> jdkModules = new JdkModuleAnalyzer(mock(Log.class))
+                .analyze(List.of(classes), Optional.empty(), Runtime.version().feature());
+
+        assertThat(jdkModules).contains("java.logging").doesNotContain("java.sql", "m");
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void analyzeWithJdepsOfTheToolchain() throws Exception {
+        File classes = compileLoggingModule();
+        // the jdeps of a toolchain JDK older than the running JDK
+        int javaVersion = Runtime.version().feature() - 1;
+        Path arguments = directory.resolve("jdeps-arguments.txt");
+        Path bin = Files.createDirectories(directory.resolve("toolchain/bin"));
+        Path jdeps = Files.write(
+                bin.resolve("jdeps"),
+                List.of(
+                        "#!/bin/sh",
+                        "printf '%s\\n' \"$@\" > '" + arguments + "'",
+                        "echo 'Warning: split package' >&2",
+                        "echo 'java.base,java.naming'"));
+        assertThat(jdeps.toFile().setExecutable(true)).isTrue();
+
+        Set<String> jdkModules = new JdkModuleAnalyzer(mock(Log.class))
+                .analyze(List.of(classes), Optional.of(jdeps.toFile()), javaVersion);
+
+        assertThat(jdkModules).containsExactly("java.base", "java.naming");
+        assertThat(Files.readAllLines(arguments))
+                .containsSubsequence("--multi-release", Integer.toString(javaVersion))
+                .endsWith(classes.getPath());
+    }
+
+    @Test
+    void resolveWithLimitModules() {
+        ModuleFinder finder = ModuleFinder.ofSystem();
+
+        assertThat(JdkModuleAnalyzer.resolve(finder, List.of("java.logging"), List.of(), false))
+                .containsExactlyInAnyOrder("java.base", "java.logging");
+        assertThat(JdkModuleAnalyzer.resolve(finder, List.of("java.sql"), List.of(), false))
+                .contains("java.sql", "java.logging", "java.xml");
+        assertThat(JdkModuleAnalyzer.resolve(finder, List.of("java.logging"), List.of("java.logging"), true))
+                .doesNotContain("java.sql", "java.desktop");
+    }
+
+    @Test
+    void selectComputedJdkModules() throws Exception {
+        File classes = compileLoggingModule();
+
+        Optional<JdkModuleAnalyzer.Selection> selection = new JdkModuleAnalyzer(mock(Log.class))
+                .select(
+                        Set.of("java.logging"),
+                        List.of("java.desktop", "java.sql", "m"),
+                        List.of(),
+                        null,
+                        List.of(classes.getPath()),
+                        Optional.empty(),
+                        false);
+
+        assertThat(selection).isPresent();
+        assertThat(selection.get().getModulesToAdd()).containsExactly("m", "java.logging");
+        assertThat(selection.get().getLimitModules()).containsExactly("m", "java.logging");
+        assertThat(selection.get().getRemovedModules())
+                .contains("java.desktop", "java.sql", "java.xml")
+                .doesNotContain("java.base", "java.logging", "m");
+    }
+
+    @Test
+    void selectFromJmodsOnTheModulePath() throws Exception {
+        File jmods = new File(System.getProperty("java.home"), "jmods");
+        assumeTrue(jmods.isDirectory(), "the running JDK has no jmods");
+        File classes = compileLoggingModule();
+
+        Optional<JdkModuleAnalyzer.Selection> selection = new JdkModuleAnalyzer(mock(Log.class))
+                .select(
+                        Set.of("java.logging"),
+                        List.of("java.sql", "m"),
+                        List.of(),
+                        null,
+                        List.of(classes.getPath(), jmods.getAbsolutePath()),
+                        Optional.of(jmods),
+                        false);
+
+        assertThat(selection).isPresent();
+        assertThat(selection.get().getModulesToAdd()).containsExactly("m", "java.logging");
+        assertThat(selection.get().getRemovedModules()).contains("java.sql", "java.xml");
+    }
+
+    @Test
+    void storedResultIsOnlyReusedForTheSameKey() throws Exception {
+        File file = directory.resolve("jdk-modules.txt").toFile();
+        assertThat(JdkModuleAnalyzer.read(file, "a")).isEmpty();
+
+        JdkModuleAnalyzer.write(file, "a", Set.of("java.logging"));
+
+        assertThat(JdkModuleAnalyzer.read(file, "a")).hasValue(Set.of("java.logging"));
+        assertThat(JdkModuleAnalyzer.read(file, "b")).isEmpty();
+    }
+
+    private File compileLoggingModule() throws Exception {
+        Path sources = Files.createDirectories(directory.resolve("src/p"));
+        Path moduleInfo =
+                Files.write(directory.resolve("src/module-info.java"), List.of("module m { requires java.logging; }"));
+        Path main = Files.write(
+                sources.resolve("Main.java"),
+                List.of("package p; public class Main { public static void main(String[] args) {"
+                        + " java.util.logging.Logger.getLogger(\"m\").info(\"Hello\"); } }"));
+        Path classes = directory.resolve("classes");
+        assertThat(ToolProvider.getSystemJavaCompiler()
+                        .run(null, null, null, "-d", classes.toString(), moduleInfo.toString(), main.toString()))
+                .isZero();
+        return classes.toFile();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.lang.module.ModuleReference;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class JmodModuleFinderTest {
+
+    private Path jmods;
+
+    @BeforeEach
+    void findJmods() {
+        File folder = new File(System.getProperty("java.home"), "jmods");
+        assumeTrue(folder.isDirectory(), "the running JDK has no jmods");
+        jmods = folder.toPath();
+    }
+
+    @Test
+    void readModuleDescriptorOfJmodFile() {
+        Optional<ModuleReference> reference = new JmodModuleFinder(jmods).find("java.logging");
+
+        assertThat(reference).hasValueSatisfying(module -> {
+            assertThat(module.descriptor().name()).isEqualTo("java.logging");
+            assertThat(module.descriptor().packages()).contains("java.util.logging", "sun.util.logging.internal");
+            assertThat(module.location()).contains(jmods.resolve("java.logging.jmod").toUri());
+        });
+    }
+
+    @Test
+    void findAllModulesOfTheFolder() {
+        JmodModuleFinder finder = new JmodModuleFinder(jmods);
+
+        assertThat(finder.find("no.such.module")).isEmpty();
+        assertThat(finder.findAll())
+                .extracting(module -> module.descriptor().name())
+                .contains("java.base", "java.logging", "jdk.jlink");
+    }
+}
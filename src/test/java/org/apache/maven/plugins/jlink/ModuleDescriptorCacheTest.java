@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor;
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor.JavaRequires.JavaModifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ModuleDescriptorCacheTest {
+
+    private static final long ONE_HOUR_AGO = System.currentTimeMillis() - 3600_000;
+
+    @TempDir
+    Path tempDir;
+
+    private File cacheFile;
+
+    private File jar;
+
+    private final JavaModuleDescriptor descriptor = JavaModuleDescriptor.newModule("org.example.app")
+            .requires(EnumSet.of(JavaModifier.TRANSITIVE, JavaModifier.STATIC), "java.logging")
+            .requires("org.example.lib")
+            .exports("org.example.app")
+            .exports("org.example.app.internal", Set.of("org.example.test"))
+            .provides("org.example.spi.Service", List.of("org.example.app.A", "org.example.app.B"))
+            .uses("org.example.spi.Plugin")
+            .build();
+
+    @BeforeEach
+    void createJar() throws Exception {
+        cacheFile = tempDir.resolve("cache/module-descriptors.txt").toFile();
+        jar = Files.write(tempDir.resolve("app.jar"), new byte[100]).toFile();
+        jar.setLastModified(ONE_HOUR_AGO);
+    }
+
+    @Test
+    void restoreStoredDescriptors() throws Exception {
+        ModuleDescriptorCache cache = ModuleDescriptorCache.load(cacheFile, 17, false, mock(Log.class));
+        assertThat(cache.get(jar)).isEmpty();
+        cache.put(jar, descriptor);
+        cache.save();
+
+        ModuleDescriptorCache reloaded = ModuleDescriptorCache.load(cacheFile, 17, false, mock(Log.class));
+        assertThat(reloaded.get(jar)).contains(descriptor);
+        assertThat(reloaded.getHits()).isEqualTo(1);
+
+        File automatic = Files.write(tempDir.resolve("auto.jar"), new byte[1]).toFile();
+        automatic.setLastModified(ONE_HOUR_AGO);
+        reloaded.put(automatic, JavaModuleDescriptor.newAutomaticModule("auto").build());
+        reloaded.save();
+        assertThat(ModuleDescriptorCache.load(cacheFile, 17, false, mock(Log.class)).get(automatic))
+                .hasValueSatisfying(d -> assertThat(d.isAutomatic()).isTrue());
+    }
+
+    @Test
+    void ignoreReplacedJarFiles() throws Exception {
+        ModuleDescriptorCache cache = ModuleDescriptorCache.load(cacheFile, 17, false, mock(Log.class));
+        cache.put(jar, descriptor);
+        cache.save();
+
+        // a new SNAPSHOT with the same size
+        Files.write(jar.toPath(), new byte[100]);
+        jar.setLastModified(ONE_HOUR_AGO + 1000);
+
+        assertThat(ModuleDescriptorCache.load(cacheFile, 17, false, mock(Log.class)).get(jar))
+                .isEmpty();
+    }
+
+    @Test
+    void verifyContent() throws Exception {
+        ModuleDescriptorCache cache = ModuleDescriptorCache.load(cacheFile, 17, true, mock(Log.class));
+        cache.put(jar, descriptor);
+        cache.save();
+
+        // same size and modification time, but a different content
+        byte[] content = new byte[100];
+        content[0] = 1;
+        Files.write(jar.toPath(), content);
+        jar.setLastModified(ONE_HOUR_AGO);
+
+        assertThat(ModuleDescriptorCache.load(cacheFile, 17, false, mock(Log.class)).get(jar))
+                .contains(descriptor);
+        assertThat(ModuleDescriptorCache.load(cacheFile, 17, true, mock(Log.class)).get(jar))
+                .isEmpty();
+    }
+
+    @Test
+    void keyDescriptorsByJavaVersion() throws Exception {
+        ModuleDescriptorCache cache = ModuleDescriptorCache.load(cacheFile, 17, false, mock(Log.class));
+        cache.put(jar, descriptor);
+        cache.save();
+
+        // a multi-release jar file may have another descriptor for another Java version
+        ModuleDescriptorCache other = ModuleDescriptorCache.load(cacheFile, 21, false, mock(Log.class));
+        assertThat(other.get(jar)).isEmpty();
+        JavaModuleDescriptor descriptor21 = JavaModuleDescriptor.newModule("org.example.app").build();
+        other.put(jar, descriptor21);
+        other.save();
+
+        assertThat(ModuleDescriptorCache.load(cacheFile, 17, false, mock(Log.class)).get(jar))
+                .contains(descriptor);
+        assertThat(ModuleDescriptorCache.load(cacheFile, 21, false, mock(Log.class)).get(jar))
+                .contains(descriptor21);
+    }
+
+    @Test
+    void doNotCacheRecentlyModifiedFiles() throws Exception {
+        jar.setLastModified(System.currentTimeMillis());
+        ModuleDescriptorCache cache = ModuleDescriptorCache.load(cacheFile, 17, false, mock(Log.class));
+        cache.put(jar, descriptor);
+        cache.save();
+
+        assertThat(cacheFile).doesNotExist();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor;
+import org.codehaus.plexus.languages.java.jpms.LocationManager;
+import org.codehaus.plexus.languages.java.jpms.ResolvePathsRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModuleDescriptorReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sameDescriptorsAsLocationManager() throws Exception {
+        byte[] moduleInfo = compileModuleInfo(
+                "org.example.app",
+                "module org.example.app {",
+                "  requires transitive java.logging;",
+                "  requires static java.sql;",
+                "  exports org.example.app;",
+                "  exports org.example.app.internal to java.base;",
+                "  uses org.example.app.Service;",
+                "  provides org.example.app.Service with org.example.app.Impl;",
+                "}");
+
+        File modular = createJar("app-1.0.jar", null, Map.of("module-info.class", moduleInfo));
+        Manifest multiReleaseManifest = new Manifest();
+        multiReleaseManifest.getMainAttributes().putValue("Multi-Release", "true");
+        File multiRelease = createJar(
+                "multi-release-1.0.jar",
+                multiReleaseManifest,
+                Map.of("META-INF/versions/9/module-info.class", moduleInfo));
+        Manifest automaticManifest = new Manifest();
+        automaticManifest.getMainAttributes().putValue("Automatic-Module-Name", "org.example.automatic");
+        File automatic = createJar("automatic-2.0.jar", automaticManifest, Map.of());
+        File fileName = createJar("commons-foo_bar-1.2.3-SNAPSHOT.jar", null, Map.of());
+        List<File> files = List.of(modular, multiRelease, automatic, fileName);
+
+        Map<File, JavaModuleDescriptor> descriptors = new ModuleDescriptorReader(2).read(files);
+
+        Map<File, JavaModuleDescriptor> expected = new LocationManager()
+                .resolvePaths(ResolvePathsRequest.ofFiles(files))
+                .getPathElements();
+        assertThat(descriptors).containsExactlyEntriesOf(expected);
+        assertThat(descriptors.get(modular).requires()).hasSize(3);
+        assertThat(descriptors.get(fileName).name()).isEqualTo("commons.foo.bar");
+        assertThat(descriptors.get(fileName).isAutomatic()).isTrue();
+    }
+
+    @Test
+    void selectModuleInfoOfTheTargetJavaVersion() throws Exception {
+        byte[] moduleInfo9 = compileModuleInfo("org.example.app", "module org.example.app {", "}");
+        byte[] moduleInfo11 =
+                compileModuleInfo("org.example.app", "module org.example.app {", "  requires java.sql;", "}");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Multi-Release", "true");
+        File jar = createJar(
+                "multi-release-1.0.jar",
+                manifest,
+                Map.of(
+                        "META-INF/versions/9/module-info.class", moduleInfo9,
+                        "META-INF/versions/11/module-info.class", moduleInfo11));
+
+        assertThat(new ModuleDescriptorReader(1, 10).read(jar).requires())
+                .extracting(JavaModuleDescriptor.JavaRequires::name)
+                .containsExactly("java.base");
+        assertThat(new ModuleDescriptorReader(1, 11).read(jar).requires())
+                .extracting(JavaModuleDescriptor.JavaRequires::name)
+                .containsExactlyInAnyOrder("java.base", "java.sql");
+    }
+
+    @Test
+    void leaveOtherPathElementsToTheLocationManager() throws Exception {
+        File directory = Files.createDirectories(tempDir.resolve("classes")).toFile();
+        File invalidName = createJar("1-invalid.jar", null, Map.of());
+        File notAJar = Files.write(tempDir.resolve("not-a.jar"), new byte[10]).toFile();
+
+        Map<File, JavaModuleDescriptor> descriptors =
+                new ModuleDescriptorReader(1).read(List.of(directory, invalidName, notAJar));
+
+        assertThat(descriptors).containsOnlyKeys(directory, invalidName, notAJar);
+        assertThat(descriptors.values()).containsOnlyNulls();
+    }
+
+    @Test
+    void deriveModuleName() {
+        assertThat(ModuleDescriptorReader.deriveModuleName("foo-bar-1.2.jar")).isEqualTo("foo.bar");
+        assertThat(ModuleDescriptorReader.deriveModuleName("foo..bar_-baz.jar")).isEqualTo("foo.bar.baz");
+        assertThat(ModuleDescriptorReader.deriveModuleName("-foo-.jar")).isEqualTo("foo");
+        assertThat(ModuleDescriptorReader.deriveModuleName("foo-bar2-1.0.jar")).isEqualTo("foo.bar2");
+        assertThat(ModuleDescriptorReader.deriveModuleName("foo.bar")).isNull();
+        assertThat(ModuleDescriptorReader.deriveModuleName("foo-class.jar")).isNull();
+    }
+
+    private byte[] compileModuleInfo(String moduleName, String... lines) throws Exception {
+        Path sources = Files.createDirectories(tempDir.resolve("src/org/example/app"));
+        Files.write(sources.resolve("Service.java"), List.of("package org.example.app; public interface Service {}"));
+        Files.write(
+                sources.resolve("Impl.java"),
+                List.of("package org.example.app; public class Impl implements Service {}"));
+        Path internal = Files.createDirectories(sources.resolve("internal"));
+        Files.write(internal.resolve("Internal.java"), List.of("package org.example.app.internal; class Internal {}"));
+        Path moduleInfo = Files.write(tempDir.resolve("src/module-info.java"), List.of(lines));
+        Path classes = Files.createDirectories(tempDir.resolve("compiled"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int result = compiler.run(
+                null,
+                null,
+                null,
+                "--release",
+                "9",
+                "-d",
+                classes.toString(),
+                moduleInfo.toString(),
+                sources.resolve("Service.java").toString(),
+                sources.resolve("Impl.java").toString(),
+                internal.resolve("Internal.java").toString());
+        assertThat(result).as("compile " + moduleName).isZero();
+        return Files.readAllBytes(classes.resolve("module-info.class"));
+    }
+
+    private File createJar(String name, Manifest manifest, Map<String, byte[]> entries) throws Exception {
+        Path jar = tempDir.resolve(name);
+        try (OutputStream os = Files.newOutputStream(jar);
+                JarOutputStream jos =
+                        manifest != null ? new JarOutputStream(os, withVersion(manifest)) : new JarOutputStream(os)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                jos.putNextEntry(new JarEntry(entry.getKey()));
+                jos.write(entry.getValue());
+                jos.closeEntry();
+            }
+        }
+        return jar.toFile();
+    }
+
+    private static Manifest withVersion(Manifest manifest) {
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        return manifest;
+    }
+}
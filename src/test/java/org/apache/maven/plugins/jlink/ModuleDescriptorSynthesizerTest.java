@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import javax.tools.ToolProvider;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarFile;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ModuleDescriptorSynthesizerTest {
+    /**
+     * The Java version of a toolchain JDK older than the running JDK.
+     */
+    private static final int JAVA_VERSION = Runtime.version().feature() - 1;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void addAutomaticModulesAsNamedModules() throws Exception {
+        File a = createJar(
+                "a-1.0.jar",
+                "a",
+                "package a; public class A { public static java.util.logging.Logger log() {"
+                        + " return java.util.logging.Logger.getLogger(\"a\"); } }");
+        File b = createJar("b-lib-2.0.jar", "b", "package b; public class B {"
+                + " public static void main(String[] args) { a.A.log().info(\"b\"); } }");
+        Map<File, String> automaticModules = new LinkedHashMap<>();
+        automaticModules.put(a, "a");
+        automaticModules.put(b, "b.lib");
+        File cacheDirectory = directory.resolve("cache").toFile();
+        ModuleGraph moduleGraph = new ModuleGraph();
+
+        new ModuleDescriptorSynthesizer(cacheDirectory, "jdk", JAVA_VERSION, mock(Log.class))
+                .addModules(moduleGraph, automaticModules);
+
+        assertThat(moduleGraph.getModuleNames()).containsExactly("a", "b.lib");
+        assertThat(moduleGraph.getRequires("b.lib")).contains("a", "java.logging");
+        assertThat(moduleGraph.getFinder(List.of("a")).find("a").get().descriptor().isAutomatic())
+                .isFalse();
+        File modularJar = moduleGraph.getFile("b.lib");
+        assertThat(modularJar).isFile().hasName("b-lib-2.0.jar");
+        assertThat(modularJar.toPath()).startsWith(cacheDirectory.toPath());
+        // the jlink of the toolchain JDK can read the descriptor
+        try (JarFile jarFile = new JarFile(modularJar);
+                DataInputStream is = new DataInputStream(
+                        jarFile.getInputStream(jarFile.getJarEntry("module-info.class")))) {
+            assertThat(is.readInt()).isEqualTo(0xCAFEBABE);
+            is.readUnsignedShort();
+            assertThat(is.readUnsignedShort()).isEqualTo(44 + JAVA_VERSION);
+        }
+
+        // the cached copies are reused
+        long lastModified = modularJar.lastModified();
+        Map<File, File> modularJars = new ModuleDescriptorSynthesizer(
+                        cacheDirectory, "jdk", JAVA_VERSION, mock(Log.class))
+                .synthesize(automaticModules, List.of());
+
+        assertThat(modularJars).containsEntry(b, modularJar);
+        assertThat(modularJar.lastModified()).isEqualTo(lastModified);
+        assertThat(new ModuleDescriptorSynthesizer(cacheDirectory, "other jdk", JAVA_VERSION, mock(Log.class))
+                        .synthesize(automaticModules, List.of())
+                        .get(b))
+                .isNotEqualTo(modularJar);
+    }
+
+    private File createJar(String name, String packageName, String source) throws Exception {
+        Path sources = Files.createDirectories(directory.resolve("src").resolve(packageName));
+        Path sourceFile = Files.write(
+                sources.resolve(Character.toUpperCase(packageName.charAt(0)) + ".java"), List.of(source));
+        Path classes = directory.resolve("classes").resolve(packageName);
+        String classPath = directory.resolve("classes/a").toString();
+        assertThat(ToolProvider.getSystemJavaCompiler()
+                        .run(
+                                null,
+                                null,
+                                null,
+                                "--release",
+                                Integer.toString(JAVA_VERSION),
+                                "-d",
+                                classes.toString(),
+                                "-cp",
+                                classPath,
+                                sourceFile.toString()))
+                .isZero();
+        File jar = directory.resolve(name).toFile();
+        int exitCode = java.util.spi.ToolProvider.findFirst("jar")
+                .orElseThrow()
+                .run(System.out, System.err, "--create", "--file", jar.getPath(), "-C", classes.toString(), ".");
+        assertThat(exitCode).isZero();
+        return jar;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.util.List;
+
+import org.codehaus.plexus.languages.java.jpms.JavaModuleDescriptor;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModuleGraphTest {
+
+    @Test
+    void indexModulesByName() {
+        ModuleGraph graph = new ModuleGraph();
+        graph.add(
+                new File("app.jar"),
+                JavaModuleDescriptor.newModule("org.example.app")
+                        .requires("org.example.lib")
+                        .uses("org.example.spi.Service")
+                        .build());
+        graph.add(
+                new File("lib.jar"),
+                JavaModuleDescriptor.newModule("org.example.lib")
+                        .provides("org.example.spi.Service", List.of("org.example.lib.Impl"))
+                        .build());
+
+        assertThat(graph.getModuleNames()).containsExactly("org.example.app", "org.example.lib");
+        assertThat(graph.getModulePathElements()).containsEntry("org.example.lib", new File("lib.jar"));
+        assertThat(graph.getRequires("org.example.app")).containsExactly("org.example.lib");
+
+        ModuleFinder finder = graph.getFinder(List.of("org.example.app", "org.example.lib"));
+        assertThat(finder.find("org.example.app").get().descriptor().uses()).containsExactly("org.example.spi.Service");
+        assertThat(finder.find("org.example.lib").get().descriptor().provides())
+                .extracting(ModuleDescriptor.Provides::service)
+                .containsExactly("org.example.spi.Service");
+        assertThat(finder.find("org.example.lib").get().location()).contains(new File("lib.jar").toURI());
+        assertThat(graph.getFinder(List.of("org.example.app")).find("org.example.lib")).isEmpty();
+    }
+
+    @Test
+    void requiresClosureOfTheRootModules() {
+        ModuleGraph graph = new ModuleGraph();
+        graph.add(new File("unused.jar"), JavaModuleDescriptor.newModule("org.example.unused").build());
+        graph.add(
+                new File("lib.jar"),
+                JavaModuleDescriptor.newModule("org.example.lib")
+                        .requires("org.example.util")
+                        .requires("java.logging")
+                        .build());
+        graph.add(new File("util.jar"), JavaModuleDescriptor.newModule("org.example.util").build());
+        graph.add(
+                new File("app.jar"),
+                JavaModuleDescriptor.newModule("org.example.app")
+                        .requires("org.example.lib")
+                        .build());
+
+        assertThat(graph.getRequiresClosure(List.of("org.example.app", "java.sql")))
+                .containsExactly("org.example.lib", "org.example.util", "org.example.app");
+        assertThat(graph.getRequiresClosure(List.of("java.sql"))).isEmpty();
+    }
+
+    @Test
+    void laterModuleReplacesModuleOfTheSameName() {
+        ModuleGraph graph = new ModuleGraph();
+        graph.add(
+                new File("lib-1.jar"),
+                JavaModuleDescriptor.newModule("org.example.lib")
+                        .provides("org.example.spi.Service", List.of("org.example.lib.Impl"))
+                        .build());
+        graph.add(new File("lib-2.jar"), JavaModuleDescriptor.newModule("org.example.lib").build());
+
+        assertThat(graph.contains("org.example.lib")).isTrue();
+        assertThat(graph.getFile("org.example.lib")).isEqualTo(new File("lib-2.jar"));
+        assertThat(graph.getFinder(graph.getModuleNames())
+                        .find("org.example.lib")
+                        .get()
+                        .descriptor()
+                        .provides())
+                .isEmpty();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import javax.tools.ToolProvider;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ModulePathPrunerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void linkOnlyTheModulesOfTheImage() throws Exception {
+        Map<String, File> modulePathElements = compileModules();
+        File prunedDirectory = directory.resolve("pruned").toFile();
+        ModulePathPruner pruner = new ModulePathPruner(prunedDirectory, mock(Log.class));
+
+        Optional<List<String>> modulePath =
+                pruner.prune(modulePathElements, null, Optional.empty(), List.of("app"), null, false);
+
+        // jlink does not follow a link to the exploded directory of app
+        assertThat(modulePath)
+                .contains(List.of(prunedDirectory.getPath(), modulePathElements.get("app").getPath()));
+        assertThat(prunedDirectory.list()).containsExactly("lib.jar");
+        assertThat(Files.readSymbolicLink(prunedDirectory.toPath().resolve("lib.jar")))
+                .isEqualTo(modulePathElements.get("lib").toPath());
+
+        // the links of a previous image are replaced
+        modulePath = pruner.prune(modulePathElements, null, Optional.empty(), List.of("lib"), null, false);
+
+        assertThat(modulePath).contains(List.of(prunedDirectory.getPath()));
+        assertThat(prunedDirectory.list()).containsExactly("lib.jar");
+
+        pruner.prune(modulePathElements, null, Optional.empty(), List.of("unused"), null, false);
+
+        assertThat(prunedDirectory.list()).isEmpty();
+    }
+
+    @Test
+    void useTheFullModulePathIfTheModulesCanNotBeResolved() throws Exception {
+        Map<String, File> modulePathElements = compileModules();
+        modulePathElements.remove("lib");
+
+        Optional<List<String>> modulePath = new ModulePathPruner(directory.resolve("pruned").toFile(), mock(Log.class))
+                .prune(modulePathElements, null, Optional.empty(), List.of("app"), null, false);
+
+        assertThat(modulePath).isEmpty();
+    }
+
+    private Map<String, File> compileModules() throws Exception {
+        Path modules = directory.resolve("modules");
+        List<String> args = new ArrayList<>();
+        args.add("-d");
+        args.add(modules.toString());
+        args.add("--module-source-path");
+        args.add(directory.resolve("src").toString());
+        args.add(write("app/module-info.java", "module app { requires lib; }"));
+        args.add(write("lib/module-info.java", "module lib { requires java.logging; }"));
+        args.add(write("unused/module-info.java", "module unused {}"));
+        assertThat(ToolProvider.getSystemJavaCompiler().run(null, null, null, args.toArray(new String[0])))
+                .isZero();
+
+        Path lib = directory.resolve("lib.jar");
+        int exitCode = java.util.spi.ToolProvider.findFirst("jar")
+                .orElseThrow()
+                .run(System.out, System.err, "--create", "--file", lib.toString(), "-C", modules.resolve("lib")
+                        .toString(), ".");
+        assertThat(exitCode).isZero();
+
+        Map<String, File> modulePathElements = new LinkedHashMap<>();
+        modulePathElements.put("app", modules.resolve("app").toFile());
+        modulePathElements.put("lib", lib.toFile());
+        modulePathElements.put("unused", modules.resolve("unused").toFile());
+        return modulePathElements;
+    }
+
+    private String write(String name, String source) throws Exception {
+        Path file = directory.resolve("src").resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, List.of(source)).toString();
+    }
+}
@@ -32,7 +32,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class MultipleLauncherTest {
 
-    private JLinkMojo mojo = new JLinkMojo(null, null, null, null);
+    private JLinkMojo mojo = new JLinkMojo(null, null, null, null, null);
 
     @Test
     void singleLauncher() throws Exception {
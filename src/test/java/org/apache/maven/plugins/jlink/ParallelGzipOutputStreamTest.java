@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelGzipOutputStreamTest {
+
+    @Test
+    void readMultipleMembers() throws Exception {
+        byte[] data = new byte[10_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 7);
+        }
+
+        byte[] compressed = compress(data, 3);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertThat(in.readAllBytes()).isEqualTo(data);
+        }
+        assertThat(compress(data, 1)).isEqualTo(compressed);
+    }
+
+    @Test
+    void emptyInputIsValidGzip() throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compress(new byte[0], 2)))) {
+            assertThat(in.readAllBytes()).isEmpty();
+        }
+    }
+
+    private static byte[] compress(byte[] data, int threads) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzipOut =
+                new ParallelGzipOutputStream(out, threads, Deflater.DEFAULT_COMPRESSION, 1000)) {
+            int split = Math.min(3, data.length);
+            gzipOut.write(data, 0, split);
+            gzipOut.write(data, split, data.length - split);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.OptionalLong;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ResourceOrderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readClassLoadOrder() {
+        List<String> log = List.of(
+                "java.lang.Object source: jrt:/java.base",
+                "java.lang.String source: jrt:/java.base",
+                "java.lang.invoke.LambdaForm$MH/0x0000000800c01000 source: __JVM_LookupDefineClass__",
+                "java.lang.Object source: jrt:/java.base",
+                "p.Main$Inner source: jrt:/m");
+
+        assertThat(ResourceOrder.readClassLoadOrder(log))
+                .containsExactly("java/lang/Object", "java/lang/String", "p/Main$Inner");
+    }
+
+    @Test
+    void readUptimeOfMainClass() {
+        List<String> log = List.of(
+                "[0.006s] java.lang.Object source: shared objects file",
+                "[0.132s] p.Main source: jrt:/m",
+                "[0.140s] p.Main$Inner source: jrt:/m");
+
+        assertThat(ResourceOrder.readUptimeMillis(log, "p.Main")).hasValue(132);
+        assertThat(ResourceOrder.readUptimeMillis(log, "p.Other")).isEmpty();
+    }
+
+    @Test
+    void orderFileIsOnlyReusedForTheSameKey() throws Exception {
+        File orderFile = directory.resolve("order.txt").toFile();
+        assertThat(ResourceOrder.isCapturedFor(orderFile, "a")).isFalse();
+
+        ResourceOrder.write(orderFile, "a", List.of("java/lang/Object", "p/Main"));
+
+        assertThat(Files.readAllLines(orderFile.toPath())).containsExactly("# key: a", "java/lang/Object", "p/Main");
+        assertThat(ResourceOrder.isCapturedFor(orderFile, "a")).isTrue();
+        assertThat(ResourceOrder.isCapturedFor(orderFile, "b")).isFalse();
+    }
+
+    @Test
+    void readChildPageFaults() {
+        String stat = "10608 (sh -c) S 10582 10608 10582 0 -1 4194304 93 2930 1 2 0 0 11 1 20 0 1 0 607830";
+
+        assertThat(ImageJava.readChildPageFaults(stat)).hasValue(2932);
+        assertThat(ImageJava.readChildPageFaults("10608 (sh) S 1 2")).isEmpty();
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void captureAndMeasureTrainingRun() throws Exception {
+        File image = HelloWorldImage.link(directory);
+        ResourceOrder resourceOrder =
+                new ResourceOrder(image, HelloWorldImage.LAUNCHER, List.of("training"), mock(Log.class));
+        File logFile = directory.resolve("class-load.log").toFile();
+
+        List<String> classes = resourceOrder.capture(logFile);
+
+        assertThat(classes).startsWith("java/lang/Object").contains("java/lang/String", "p/Main");
+        assertThat(logFile).doesNotExist();
+
+        ResourceOrder.Measurement measurement = resourceOrder.measure(logFile);
+
+        assertThat(measurement.getTimeToMainMillis()).isPresent();
+        assertThat(logFile).doesNotExist();
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    void countPageFaultsOnLinux() throws Exception {
+        File image = HelloWorldImage.link(directory);
+
+        OptionalLong pageFaults = new ImageJava(image, mock(Log.class))
+                .runCountingPageFaults(List.of("-m", "m/p.Main"), line -> {}, "run the image");
+
+        assertThat(pageFaults).isPresent();
+        assertThat(pageFaults.getAsLong()).isPositive();
+    }
+}
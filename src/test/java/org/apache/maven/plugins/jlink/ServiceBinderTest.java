@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import javax.tools.ToolProvider;
+
+import java.io.InputStream;
+import java.lang.module.ModuleDescriptor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ServiceBinderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void matchServicesByName() {
+        ServiceBinder binder = new ServiceBinder(
+                new ModuleGraph(),
+                List.of(),
+                null,
+                Optional.empty(),
+                List.of("org.example.*"),
+                List.of("org.example.internal.*"),
+                mock(Log.class));
+
+        assertThat(binder.isBound("org.example.Service")).isTrue();
+        assertThat(binder.isBound("org.example.internal.Service")).isFalse();
+        assertThat(binder.isBound("java.sql.Driver")).isFalse();
+    }
+
+    @Test
+    void bindProvidersOfUsedServices() throws Exception {
+        ModuleGraph moduleGraph = compileModules();
+
+        ServiceBinder.Binding binding = new ServiceBinder(
+                        moduleGraph,
+                        moduleGraph.getModuleNames(),
+                        null,
+                        Optional.empty(),
+                        null,
+                        null,
+                        mock(Log.class))
+                .bind(List.of("app"), null);
+
+        // the provider of the service used by impl is bound as well
+        assertThat(binding.getProviders()).containsExactly("impl", "logging");
+        assertThat(binding.getUnboundModules()).contains("jdk.charsets").doesNotContain("impl", "logging", "unused");
+        assertThat(binding.getUnboundSize()).isPositive();
+    }
+
+    @Test
+    void bindProvidersOfServicesUsedByTheJdk() throws Exception {
+        ModuleGraph moduleGraph = compileModules();
+
+        ServiceBinder.Binding binding = new ServiceBinder(
+                        moduleGraph,
+                        moduleGraph.getModuleNames(),
+                        null,
+                        Optional.empty(),
+                        null,
+                        null,
+                        mock(Log.class))
+                .bind(List.of("app", "java.sql"), null);
+
+        // java.sql uses java.sql.Driver, app does not
+        assertThat(binding.getProviders()).containsExactly("impl", "driver", "logging");
+        // but the providers of the JDK for the services of java.base are not bound
+        assertThat(binding.getUnboundModules()).contains("jdk.charsets");
+    }
+
+    @Test
+    void excludedServicesAreNotBound() throws Exception {
+        ModuleGraph moduleGraph = compileModules();
+
+        ServiceBinder.Binding binding = new ServiceBinder(
+                        moduleGraph,
+                        moduleGraph.getModuleNames(),
+                        null,
+                        Optional.empty(),
+                        null,
+                        List.of("api.*"),
+                        mock(Log.class))
+                .bind(List.of("app"), null);
+
+        assertThat(binding.getProviders()).isEmpty();
+    }
+
+    private ModuleGraph compileModules() throws Exception {
+        List<String> args = new ArrayList<>();
+        args.add("-d");
+        args.add(directory.resolve("modules").toString());
+        args.add("--module-source-path");
+        args.add(directory.resolve("src").toString());
+        args.add(write("api/module-info.java", "module api { exports api; }"));
+        args.add(write("api/api/Service.java", "package api; public interface Service {}"));
+        args.add(write("api/api/Log.java", "package api; public interface Log {}"));
+        args.add(write("app/module-info.java", "module app { requires api; uses api.Service; }"));
+        args.add(write(
+                "impl/module-info.java", "module impl { requires api; uses api.Log; provides api.Service with i.I; }"));
+        args.add(write("impl/i/I.java", "package i; public class I implements api.Service {}"));
+        args.add(write("logging/module-info.java", "module logging { requires api; provides api.Log with l.L; }"));
+        args.add(write("logging/l/L.java", "package l; public class L implements api.Log {}"));
+        args.add(write("unused/module-info.java", "module unused { provides java.lang.Runnable with u.U; }"));
+        args.add(write(
+                "driver/module-info.java", "module driver { requires java.sql; provides java.sql.Driver with d.D; }"));
+        args.add(write(
+                "driver/d/D.java",
+                "package d; public class D implements java.sql.Driver {"
+                        + " public java.sql.Connection connect(String u, java.util.Properties p) { return null; }"
+                        + " public boolean acceptsURL(String u) { return false; }"
+                        + " public java.sql.DriverPropertyInfo[] getPropertyInfo(String u, java.util.Properties p) {"
+                        + " return null; }"
+                        + " public int getMajorVersion() { return 0; }"
+                        + " public int getMinorVersion() { return 0; }"
+                        + " public boolean jdbcCompliant() { return false; }"
+                        + " public java.util.logging.Logger getParentLogger() { return null; } }"));
+        args.add(write("unused/u/U.java", "package u; public class U implements Runnable { public void run() {} }"));
+        assertThat(ToolProvider.getSystemJavaCompiler().run(null, null, null, args.toArray(new String[0])))
+                .isZero();
+
+        ModuleGraph moduleGraph = new ModuleGraph();
+        for (String name : List.of("api", "app", "impl", "logging", "unused", "driver")) {
+            Path module = directory.resolve("modules").resolve(name);
+            try (InputStream is = Files.newInputStream(module.resolve("module-info.class"))) {
+                moduleGraph.add(
+                        module.toFile(), ModuleDescriptorReader.toJavaModuleDescriptor(ModuleDescriptor.read(is)));
+            }
+        }
+        return moduleGraph;
+    }
+
+    private String write(String name, String source) throws Exception {
+        Path file = directory.resolve("src").resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, List.of(source)).toString();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.jlink;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Generates a graph of named modules as modular jar files, to test and measure the plugin with many modules.
+ *
+ * <p>The modules are named {@code synthetic.m0} to {@code synthetic.m<count - 1>}. Module {@code synthetic.m0}
+ * exports the service interfaces {@code synthetic.api.Service0} to {@code Service<providesFanOut - 1>} and uses
+ * them. Every other module requires {@code synthetic.m0} and up to {@code requiresFanOut} of its predecessors, and
+ * provides each service. All modules are compiled with a single javac run.</p>
+ */
+final class SyntheticModules {
+    private final int moduleCount;
+
+    private int requiresFanOut = 1;
+
+    private int providesFanOut;
+
+    private int resourceSize;
+
+    private int pathDepth;
+
+    /**
+     * @param moduleCount the number of modules, at least 1
+     */
+    SyntheticModules(int moduleCount) {
+        if (moduleCount < 1) {
+            throw new IllegalArgumentException("The number of modules must be at least 1, but was " + moduleCount);
+        }
+        this.moduleCount = moduleCount;
+    }
+
+    /**
+     * @param requiresFanOut the number of preceding modules each module requires, default 1
+     */
+    void setRequiresFanOut(int requiresFanOut) {
+        this.requiresFanOut = requiresFanOut;
+    }
+
+    /**
+     * @param providesFanOut the number of services each module except the first provides, default 0
+     */
+    void setProvidesFanOut(int providesFanOut) {
+        this.providesFanOut = providesFanOut;
+    }
+
+    /**
+     * @param resourceSize the size of a resource of random content in each jar file, to control the size of the jar
+     *            files, default 0 for no resource
+     */
+    void setResourceSize(int resourceSize) {
+        this.resourceSize = resourceSize;
+    }
+
+    /**
+     * @param pathDepth the number of directories between the target directory and each jar file, to control the
+     *            length of the module path, like in a local repository, default 0
+     */
+    void setPathDepth(int pathDepth) {
+        this.pathDepth = pathDepth;
+    }
+
+    /**
+     * @param index the index of a module
+     * @return the name of the module
+     */
+    static String moduleName(int index) {
+        return "synthetic.m" + index;
+    }
+
+    /**
+     * Generates, compiles and packages the modules.
+     *
+     * @param directory the target directory
+     * @return the jar files, in the order of the modules
+     * @throws IOException if the files can not be written
+     */
+    List<File> create(Path directory) throws IOException {
+        Path sources = directory.resolve("src");
+        List<String> sourceFiles = new ArrayList<>();
+        for (int i = 0; i < moduleCount; i++) {
+            sourceFiles.addAll(writeSources(sources.resolve(moduleName(i)), i));
+        }
+
+        Path classes = directory.resolve("classes");
+        List<String> args = new ArrayList<>(List.of(
+                "--release", "11", "--module-source-path", sources.toString(), "-d", classes.toString()));
+        args.addAll(sourceFiles);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler.run(null, null, null, args.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Unable to compile the synthetic modules in " + sources);
+        }
+
+        Random random = new Random(moduleCount);
+        List<File> jars = new ArrayList<>();
+        for (int i = 0; i < moduleCount; i++) {
+            Path jarDirectory = directory.resolve("repository");
+            for (int depth = 0; depth < pathDepth; depth++) {
+                jarDirectory = jarDirectory.resolve("level" + depth);
+            }
+            jarDirectory = Files.createDirectories(jarDirectory.resolve("synthetic-m" + i + "/1.0"));
+            Path jar = jarDirectory.resolve("synthetic-m" + i + "-1.0.jar");
+            String packageDirectory = i == 0 ? "synthetic/api/" : "synthetic/p" + i + "/";
+            writeJar(jar, classes.resolve(moduleName(i)), packageDirectory + "resource.bin", random);
+            jars.add(jar.toFile());
+        }
+        return jars;
+    }
+
+    private List<String> writeSources(Path moduleSources, int index) throws IOException {
+        List<String> moduleInfo = new ArrayList<>();
+        moduleInfo.add("module " + moduleName(index) + " {");
+        List<Path> files = new ArrayList<>();
+        if (index == 0) {
+            moduleInfo.add("  exports synthetic.api;");
+            Path api = Files.createDirectories(moduleSources.resolve("synthetic/api"));
+            for (int service = 0; service < providesFanOut; service++) {
+                moduleInfo.add("  uses synthetic.api.Service" + service + ";");
+                files.add(Files.write(
+                        api.resolve("Service" + service + ".java"),
+                        List.of("package synthetic.api; public interface Service" + service + " {}")));
+            }
+            files.add(Files.write(api.resolve("Api.java"), List.of("package synthetic.api; public class Api {}")));
+        } else {
+            moduleInfo.add("  requires synthetic.m0;");
+            for (int required = Math.max(1, index - requiresFanOut); required < index; required++) {
+                moduleInfo.add("  requires " + moduleName(required) + ";");
+            }
+            String packageName = "synthetic.p" + index;
+            moduleInfo.add("  exports " + packageName + ";");
+            Path packageDirectory = Files.createDirectories(moduleSources.resolve("synthetic/p" + index));
+            files.add(Files.write(
+                    packageDirectory.resolve("Type.java"),
+                    List.of("package " + packageName + "; public class Type {}")));
+            for (int service = 0; service < providesFanOut; service++) {
+                String impl = "Service" + service + "Impl";
+                moduleInfo.add(
+                        "  provides synthetic.api.Service" + service + " with " + packageName + "." + impl + ";");
+                files.add(Files.write(
+                        packageDirectory.resolve(impl + ".java"),
+                        List.of("package " + packageName + "; public class " + impl
+                                + " implements synthetic.api.Service" + service + " {}")));
+            }
+        }
+        moduleInfo.add("}");
+        files.add(Files.write(moduleSources.resolve("module-info.java"), moduleInfo));
+        return files.stream().map(Path::toString).collect(Collectors.toList());
+    }
+
+    private void writeJar(Path jar, Path moduleClasses, String resourceName, Random random) throws IOException {
+        try (OutputStream os = Files.newOutputStream(jar);
+                JarOutputStream jos = new JarOutputStream(os);
+                Stream<Path> files = Files.walk(moduleClasses)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                jos.putNextEntry(
+                        new JarEntry(moduleClasses.relativize(file).toString().replace(File.separatorChar, '/')));
+                jos.write(Files.readAllBytes(file));
+                jos.closeEntry();
+            }
+            if (resourceSize > 0) {
+                byte[] resource = new byte[resourceSize];
+                random.nextBytes(resource);
+                // in a package of the module, other packages would be split between the modules
+                jos.putNextEntry(new JarEntry(resourceName));
+                jos.write(resource);
+                jos.closeEntry();
+            }
+        }
+    }
+}